@@ -0,0 +1,26 @@
+package geometries;
+
+/**
+ * The acceleration structure of a geometries collection - a trade-off between memory and
+ * intersection speed, chosen when the scene is built
+ */
+public enum Acceleration {
+    /**
+     * No acceleration - every ray is tested against every geometry
+     */
+    NONE,
+    /**
+     * Binary bounding volume hierarchy - the fastest traversal
+     */
+    BVH,
+    /**
+     * Wide bounding volume hierarchy with quantized boxes - about a third of the node
+     * memory of the binary hierarchy, for scenes too big for it
+     */
+    COMPRESSED_BVH,
+    /**
+     * Uniform grid walked by 3D-DDA - built in linear time, for uniformly spread content
+     * that moves too much to refit a hierarchy
+     */
+    GRID
+}
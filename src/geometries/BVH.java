@@ -0,0 +1,878 @@
+package geometries;
+
+import primitives.*;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Bounding volume hierarchy over bounded geometries (or instances, or other hierarchies).
+ * The hierarchy is a binary tree of bounding boxes built top-down by the surface area
+ * heuristic (SAH) over binned primitive centroids. A ray is tested only against the
+ * primitives whose boxes it crosses.<br/>
+ * A BVH over instances above BVHs of the instanced models forms a two-level acceleration
+ * structure - the models are built once and shared by all their instances.<br/>
+ * The hierarchy is built in the common fork-join pool: subtrees of big ranges are built by
+ * parallel tasks, and the bounds and the bins of big ranges are reduced in parallel chunks.
+ * The built tree is flattened into depth-first arrays of node bounds and links, and it is
+ * traversed by a per-thread stack of node indices.
+ */
+public final class BVH extends Intersectable {
+    /**
+     * Amount of bins along the split axis for the SAH evaluation
+     */
+    private static final int BINS = 12;
+    /**
+     * A node with at most this amount of primitives is always a leaf
+     */
+    private static final int MIN_SPLIT_SIZE = 2;
+    /**
+     * A node with at most this amount of primitives becomes a leaf when splitting it is
+     * not cheaper by the SAH, bigger nodes are always split
+     */
+    static final int MAX_LEAF_SIZE = 8;
+    /**
+     * Ranges of at least this amount of primitives are bounded, binned and split in parallel
+     */
+    private static final int PARALLEL_SIZE = 4096;
+    /**
+     * Amount of primitives bounded or binned by a single parallel task
+     */
+    private static final int CHUNK_SIZE = 1024;
+    /**
+     * An update rebuilds the hierarchy when the SAH cost of the refitted hierarchy exceeds
+     * its cost when it was built by this factor
+     */
+    static final double REBUILD_FACTOR = 1.5;
+    /**
+     * Cost of traversing a node relative to the cost of intersecting a primitive
+     */
+    static final double TRAVERSAL_COST = 1;
+
+    /**
+     * A node of the hierarchy during the build - either an inner node with two children, or
+     * a leaf with a range of the reordered primitives. The built tree is flattened into arrays.
+     */
+    private static final class Node {
+        /**
+         * Bounding box of all the primitives under the node
+         */
+        final BoundingBox box;
+        /**
+         * The split axis of an inner node (0 - x, 1 - y, 2 - z)
+         */
+        final int axis;
+        /**
+         * Children of an inner node, null for a leaf
+         */
+        final Node left, right;
+        /**
+         * First primitive of a leaf
+         */
+        final int first;
+        /**
+         * Amount of primitives of a leaf, 0 for an inner node
+         */
+        final int count;
+
+        /**
+         * Constructs an inner node
+         *
+         * @param box   bounding box of the node
+         * @param axis  the split axis
+         * @param left  the child on the lower side of the split
+         * @param right the child on the upper side of the split
+         */
+        Node(BoundingBox box, int axis, Node left, Node right) {
+            this.box = box;
+            this.axis = axis;
+            this.left = left;
+            this.right = right;
+            this.first = 0;
+            this.count = 0;
+        }
+
+        /**
+         * Constructs a leaf
+         *
+         * @param box   bounding box of the node
+         * @param first first primitive of the leaf
+         * @param count amount of primitives of the leaf
+         */
+        Node(BoundingBox box, int first, int count) {
+            this.box = box;
+            this.axis = 0;
+            this.left = null;
+            this.right = null;
+            this.first = first;
+            this.count = count;
+        }
+    }
+
+    /**
+     * The flattened hierarchy over primitives given by their indices (see {@link #layout(BoundingBox[])})
+     *
+     * @param order  the indices of the primitives, ordered so that the primitives of every leaf
+     *               are consecutive
+     * @param box    bounding box of the whole hierarchy, null if there are no primitives
+     * @param bounds bounds of the nodes in depth-first order, six floats per node
+     * @param links  links of the nodes in depth-first order, two ints per node
+     */
+    record Layout(int[] order, BoundingBox box, float[] bounds, int[] links) {
+    }
+
+    /**
+     * Bounding box of the whole hierarchy, null if there are no primitives
+     */
+    private BoundingBox box;
+    /**
+     * The primitives, ordered so that the primitives of every leaf are consecutive
+     */
+    private Intersectable[] primitives;
+    /**
+     * Bounds of the nodes in depth-first order, six floats per node:
+     * minX, minY, minZ, maxX, maxY, maxZ - rounded outwards
+     */
+    private float[] bounds;
+    /**
+     * Links of the nodes in depth-first order, two ints per node. The left child of an
+     * inner node follows it, so an inner node keeps the index of its right child and
+     * -1 - (split axis). A leaf keeps its first primitive and its amount of primitives.
+     */
+    private int[] links;
+    /**
+     * Amount of nodes in the hierarchy
+     */
+    private int nodeCount;
+    /**
+     * Time it took to build (or to update) the hierarchy, in nanoseconds
+     */
+    private long buildTime;
+    /**
+     * SAH cost of the hierarchy when it was built
+     */
+    private double builtCost;
+
+    /**
+     * Builds a hierarchy over the given primitives
+     *
+     * @param primitives the primitives
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    public BVH(Intersectable... primitives) {
+        this(Arrays.asList(primitives));
+    }
+
+    /**
+     * Builds a hierarchy over the given primitives
+     *
+     * @param primitives the primitives
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    public BVH(List<? extends Intersectable> primitives) {
+        long start = System.nanoTime();
+        build(primitives.toArray(new Intersectable[0]));
+        buildTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Restores a hierarchy from its flattened arrays (e.g. loaded by {@link BVHCache})
+     *
+     * @param primitives the primitives, ordered so that the primitives of every leaf are consecutive
+     * @param box        bounding box of the whole hierarchy, null if there are no primitives
+     * @param bounds     bounds of the nodes in depth-first order
+     * @param links      links of the nodes in depth-first order
+     * @param buildTime  time it took to restore the hierarchy, in nanoseconds
+     */
+    BVH(Intersectable[] primitives, BoundingBox box, float[] bounds, int[] links, long buildTime) {
+        this.primitives = primitives;
+        this.box = box;
+        this.bounds = bounds;
+        this.links = links;
+        this.nodeCount = links.length / 2;
+        this.buildTime = buildTime;
+        builtCost = cost();
+    }
+
+    /**
+     * Builds the hierarchy over the given primitives
+     *
+     * @param items the primitives, reordered by the build
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    private void build(Intersectable[] items) {
+        int n = items.length;
+        BoundingBox[] boxes = new BoundingBox[n];
+        for (int i = 0; i < n; ++i) {
+            boxes[i] = items[i].getBoundingBox();
+            if (boxes[i] == null)
+                throw new IllegalArgumentException("Bounding volume hierarchy cannot contain unbounded geometries");
+        }
+        Layout layout = layout(boxes);
+        primitives = new Intersectable[n];
+        for (int i = 0; i < n; ++i)
+            primitives[i] = items[layout.order()[i]];
+        box = layout.box();
+        bounds = layout.bounds();
+        links = layout.links();
+        nodeCount = links.length / 2;
+        builtCost = cost();
+    }
+
+    /**
+     * Builds the flattened hierarchy over primitives given by their bounding boxes, so a
+     * structure of many small primitives (e.g. the faces of a mesh) can keep the hierarchy
+     * over their indices without an object per primitive
+     *
+     * @param boxes bounding boxes of the primitives, reordered by the build
+     * @return the hierarchy over the indices of the primitives
+     */
+    static Layout layout(BoundingBox[] boxes) {
+        int n = boxes.length;
+        int[] order = new int[n];
+        double[][] centroids = new double[3][n];
+        for (int i = 0; i < n; ++i) {
+            order[i] = i;
+            centroids[0][i] = (boxes[i].minX + boxes[i].maxX) / 2;
+            centroids[1][i] = (boxes[i].minY + boxes[i].maxY) / 2;
+            centroids[2][i] = (boxes[i].minZ + boxes[i].maxZ) / 2;
+        }
+        Node root = n == 0 ? null
+                : ForkJoinPool.commonPool().invoke(new BuildTask(new Primitives(order, boxes, centroids), 0, n));
+        int nodes = root == null ? 0 : count(root);
+        float[] bounds = new float[6 * nodes];
+        int[] links = new int[2 * nodes];
+        if (root != null) flatten(root, 0, bounds, links);
+        return new Layout(order, root == null ? null : root.box, bounds, links);
+    }
+
+    /**
+     * Recalculates the bounds of all the nodes after the primitives moved, keeping the
+     * structure of the hierarchy. The nodes are visited in reverse depth-first order, so
+     * the children of a node are refitted before it. The hierarchy must not be traversed
+     * while it is refitted.
+     */
+    public void refit() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int node = nodeCount - 1; node >= 0; --node) {
+            int b = 6 * node;
+            int count = links[2 * node + 1];
+            if (count < 0) {
+                int l = b + 6, r = 6 * links[2 * node];
+                for (int a = 0; a < 3; ++a) {
+                    bounds[b + a] = Math.min(bounds[l + a], bounds[r + a]);
+                    bounds[b + 3 + a] = Math.max(bounds[l + 3 + a], bounds[r + 3 + a]);
+                }
+                continue;
+            }
+            BoundingBox leaf = null;
+            for (int i = links[2 * node]; i < links[2 * node] + count; ++i) {
+                BoundingBox primitive = primitives[i].getBoundingBox();
+                leaf = leaf == null ? primitive : leaf.union(primitive);
+            }
+            bounds[b] = down(leaf.minX);
+            bounds[b + 1] = down(leaf.minY);
+            bounds[b + 2] = down(leaf.minZ);
+            bounds[b + 3] = up(leaf.maxX);
+            bounds[b + 4] = up(leaf.maxY);
+            bounds[b + 5] = up(leaf.maxZ);
+            minX = Math.min(minX, leaf.minX);
+            minY = Math.min(minY, leaf.minY);
+            minZ = Math.min(minZ, leaf.minZ);
+            maxX = Math.max(maxX, leaf.maxX);
+            maxY = Math.max(maxY, leaf.maxY);
+            maxZ = Math.max(maxZ, leaf.maxZ);
+        }
+        if (nodeCount > 0) box = new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Updates the hierarchy after the primitives moved: refits it, and rebuilds it if the
+     * refitted hierarchy is much worse than the built one by the SAH (the moving
+     * primitives stretched the boxes over too much empty space)
+     *
+     * @return true if the hierarchy was rebuilt
+     */
+    public boolean update() {
+        long start = System.nanoTime();
+        refit();
+        boolean rebuild = cost() > REBUILD_FACTOR * builtCost;
+        if (rebuild) build(primitives);
+        buildTime = System.nanoTime() - start;
+        return rebuild;
+    }
+
+    /**
+     * Calculates the SAH cost of the hierarchy - the expected cost of tracing a ray that
+     * crosses the root box, relative to the cost of intersecting a primitive
+     *
+     * @return the SAH cost
+     */
+    double cost() {
+        if (nodeCount == 0) return 0;
+        double cost = 0;
+        for (int node = 0; node < nodeCount; ++node) {
+            int count = links[2 * node + 1];
+            cost += (count < 0 ? TRAVERSAL_COST : count) * area(node);
+        }
+        double rootArea = area(0);
+        return rootArea > 0 ? cost / rootArea : cost;
+    }
+
+    /**
+     * Calculates the surface area of the box of a node
+     *
+     * @param node the node index
+     * @return the surface area
+     */
+    private double area(int node) {
+        int b = 6 * node;
+        double ex = bounds[b + 3] - bounds[b], ey = bounds[b + 4] - bounds[b + 1], ez = bounds[b + 5] - bounds[b + 2];
+        return 2 * (ex * ey + ey * ez + ez * ex);
+    }
+
+    /**
+     * Returns the amount of nodes in the hierarchy
+     *
+     * @return the amount of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the time it took to build the hierarchy, or to update it the last time
+     *
+     * @return the build time in nanoseconds
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    /**
+     * Returns the primitives, ordered so that the primitives of every leaf are consecutive
+     *
+     * @return the primitives array (not a copy)
+     */
+    Intersectable[] getPrimitives() {
+        return primitives;
+    }
+
+    /**
+     * Returns the bounds of the nodes in depth-first order, six floats per node
+     *
+     * @return the bounds array (not a copy)
+     */
+    float[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Returns the links of the nodes in depth-first order, two ints per node
+     *
+     * @return the links array (not a copy)
+     */
+    int[] getLinks() {
+        return links;
+    }
+
+    /**
+     * Returns the memory taken by the nodes of the hierarchy
+     *
+     * @return the size of the node arrays in bytes
+     */
+    public long getNodeMemory() {
+        return (long) bounds.length * Float.BYTES + (long) links.length * Integer.BYTES;
+    }
+
+    /**
+     * Counts the nodes of a subtree
+     *
+     * @param node the root of the subtree
+     * @return the amount of nodes
+     */
+    private static int count(Node node) {
+        return node.count > 0 ? 1 : 1 + count(node.left) + count(node.right);
+    }
+
+    /**
+     * The primitives being built into the hierarchy, by their indices, with their boxes and
+     * centroids. The build reorders all the arrays together.
+     *
+     * @param order     the indices of the primitives
+     * @param boxes     bounding boxes of the primitives
+     * @param centroids centroids of the primitive boxes by axis
+     */
+    private record Primitives(int[] order, BoundingBox[] boxes, double[][] centroids) {
+        /**
+         * Swaps two primitives with their boxes and centroids
+         *
+         * @param i first primitive index
+         * @param j second primitive index
+         */
+        void swap(int i, int j) {
+            int item = order[i];
+            order[i] = order[j];
+            order[j] = item;
+            BoundingBox box = boxes[i];
+            boxes[i] = boxes[j];
+            boxes[j] = box;
+            for (double[] c : centroids) {
+                double t = c[i];
+                c[i] = c[j];
+                c[j] = t;
+            }
+        }
+    }
+
+    /**
+     * Bounds of a range of primitives - the box of the primitives and the box of their centroids
+     */
+    private static final class RangeBounds {
+        /**
+         * Bounding box of the primitives, null if there are none
+         */
+        BoundingBox box = null;
+        /**
+         * Minimal centroid coordinate along each axis
+         */
+        final double[] cMin = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        /**
+         * Maximal centroid coordinate along each axis
+         */
+        final double[] cMax = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+        /**
+         * Calculates the bounds of a range of primitives
+         *
+         * @param p    the primitives
+         * @param from first primitive of the range
+         * @param to   end of the range (exclusive)
+         */
+        RangeBounds(Primitives p, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                box = box == null ? p.boxes[i] : box.union(p.boxes[i]);
+                for (int a = 0; a < 3; ++a) {
+                    cMin[a] = Math.min(cMin[a], p.centroids[a][i]);
+                    cMax[a] = Math.max(cMax[a], p.centroids[a][i]);
+                }
+            }
+        }
+
+        /**
+         * Adds the bounds of another range to these bounds
+         *
+         * @param other the bounds of the other range
+         * @return these bounds
+         */
+        RangeBounds merge(RangeBounds other) {
+            if (other.box != null) box = box == null ? other.box : box.union(other.box);
+            for (int a = 0; a < 3; ++a) {
+                cMin[a] = Math.min(cMin[a], other.cMin[a]);
+                cMax[a] = Math.max(cMax[a], other.cMax[a]);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * The SAH bins of a range of primitives along the split axis
+     */
+    private static final class Bins {
+        /**
+         * Amount of primitives in each bin
+         */
+        final int[] counts = new int[BINS];
+        /**
+         * Bounding box of the primitives of each bin, null for an empty bin
+         */
+        final BoundingBox[] boxes = new BoundingBox[BINS];
+
+        /**
+         * Bins a range of primitives by their centroids
+         *
+         * @param p      the primitives
+         * @param from   first primitive of the range
+         * @param to     end of the range (exclusive)
+         * @param axis   the split axis
+         * @param min    minimal centroid coordinate of the whole range along the axis
+         * @param extent extent of the centroids of the whole range along the axis
+         */
+        Bins(Primitives p, int from, int to, int axis, double min, double extent) {
+            double[] c = p.centroids[axis];
+            for (int i = from; i < to; ++i) {
+                int bin = bin(c[i], min, extent);
+                ++counts[bin];
+                boxes[bin] = boxes[bin] == null ? p.boxes[i] : boxes[bin].union(p.boxes[i]);
+            }
+        }
+
+        /**
+         * Adds the bins of another range to these bins
+         *
+         * @param other the bins of the other range
+         * @return these bins
+         */
+        Bins merge(Bins other) {
+            for (int b = 0; b < BINS; ++b) {
+                counts[b] += other.counts[b];
+                if (other.boxes[b] != null) boxes[b] = boxes[b] == null ? other.boxes[b] : boxes[b].union(other.boxes[b]);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Splits a range of primitives into chunks and reduces a function of the chunks,
+     * in parallel if the range is big enough
+     *
+     * @param from    first primitive of the range
+     * @param to      end of the range (exclusive)
+     * @param chunk   the function of a chunk (from, to)
+     * @param combine the reduction of two results
+     * @param <T>     the result type
+     * @return the reduced result
+     */
+    private static <T> T reduce(int from, int to, BiFunction<Integer, Integer, T> chunk, BinaryOperator<T> combine) {
+        if (to - from < PARALLEL_SIZE) return chunk.apply(from, to);
+        int chunks = (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> chunk.apply(from + c * CHUNK_SIZE, Math.min(to, from + (c + 1) * CHUNK_SIZE)))
+                .reduce(combine).orElseThrow();
+    }
+
+    /**
+     * Task of building the subtree of a range of primitives
+     */
+    private static final class BuildTask extends RecursiveTask<Node> {
+        /**
+         * Serialization version - the tasks are never serialized, only inherited from the task class
+         */
+        @Serial
+        private static final long serialVersionUID = 1L;
+        /**
+         * The primitives
+         */
+        private final transient Primitives p;
+        /**
+         * First primitive of the range
+         */
+        private final int from;
+        /**
+         * End of the range (exclusive)
+         */
+        private final int to;
+
+        /**
+         * Constructs the task of building a subtree
+         *
+         * @param p    the primitives
+         * @param from first primitive of the range
+         * @param to   end of the range (exclusive)
+         */
+        BuildTask(Primitives p, int from, int to) {
+            this.p = p;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Node compute() {
+            return build(p, from, to);
+        }
+    }
+
+    /**
+     * Builds the subtree of a range of primitives, reordering the range so that the
+     * primitives of the left child precede the primitives of the right child. The subtrees
+     * of big ranges are built by parallel tasks.
+     *
+     * @param p    the primitives
+     * @param from first primitive of the range
+     * @param to   end of the range (exclusive)
+     * @return the root of the subtree
+     */
+    private static Node build(Primitives p, int from, int to) {
+        RangeBounds bounds = reduce(from, to, (f, t) -> new RangeBounds(p, f, t), RangeBounds::merge);
+        BoundingBox box = bounds.box;
+        int count = to - from;
+        if (count <= MIN_SPLIT_SIZE) return leaf(box, from, to);
+
+        // split along the axis where the centroids are spread the most
+        double[] cMin = bounds.cMin, cMax = bounds.cMax;
+        int axis = 0;
+        for (int a = 1; a < 3; ++a)
+            if (cMax[a] - cMin[a] > cMax[axis] - cMin[axis]) axis = a;
+        final int splitAxis = axis;
+        double min = cMin[axis], extent = cMax[axis] - min;
+        if (extent <= 0)
+            // all the centroids coincide - split by the middle, so the leaves stay small
+            return count <= MAX_LEAF_SIZE ? leaf(box, from, to) : split(p, box, axis, from, (from + to) / 2, to);
+
+        // bin the primitives by their centroids
+        Bins bins = reduce(from, to, (f, t) -> new Bins(p, f, t, splitAxis, min, extent), Bins::merge);
+
+        // sweep from the right, then from the left, to evaluate every split between bins
+        double[] rightAreas = new double[BINS];
+        int[] rightCounts = new int[BINS];
+        BoundingBox accumulated = null;
+        int accumulatedCount = 0;
+        for (int b = BINS - 1; b > 0; --b) {
+            if (bins.boxes[b] != null) accumulated = accumulated == null ? bins.boxes[b] : accumulated.union(bins.boxes[b]);
+            accumulatedCount += bins.counts[b];
+            rightAreas[b] = accumulated == null ? 0 : accumulated.surfaceArea();
+            rightCounts[b] = accumulatedCount;
+        }
+        double parentArea = box.surfaceArea();
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestSplit = -1;
+        accumulated = null;
+        accumulatedCount = 0;
+        for (int b = 1; b < BINS; ++b) {
+            if (bins.boxes[b - 1] != null)
+                accumulated = accumulated == null ? bins.boxes[b - 1] : accumulated.union(bins.boxes[b - 1]);
+            accumulatedCount += bins.counts[b - 1];
+            if (accumulatedCount == 0 || rightCounts[b] == 0) continue;
+            double cost = TRAVERSAL_COST + (accumulatedCount * accumulated.surfaceArea()
+                    + rightCounts[b] * rightAreas[b]) / (parentArea > 0 ? parentArea : 1);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestSplit = b;
+            }
+        }
+        if (bestSplit < 0 || bestCost >= count && count <= MAX_LEAF_SIZE) return leaf(box, from, to);
+
+        // partition the range by the chosen split
+        double[] c = p.centroids[axis];
+        int mid = from;
+        for (int i = from; i < to; ++i)
+            if (bin(c[i], min, extent) < bestSplit) p.swap(i, mid++);
+        return split(p, box, axis, from, mid, to);
+    }
+
+    /**
+     * Builds an inner node over a partitioned range of primitives, the subtrees of a big
+     * range by parallel tasks
+     *
+     * @param p    the primitives
+     * @param box  bounding box of the range
+     * @param axis the split axis
+     * @param from first primitive of the range
+     * @param mid  first primitive of the right child
+     * @param to   end of the range (exclusive)
+     * @return the inner node
+     */
+    private static Node split(Primitives p, BoundingBox box, int axis, int from, int mid, int to) {
+        if (to - from < PARALLEL_SIZE)
+            return new Node(box, axis, build(p, from, mid), build(p, mid, to));
+        BuildTask left = new BuildTask(p, from, mid);
+        left.fork();
+        Node right = build(p, mid, to);
+        return new Node(box, axis, left.join(), right);
+    }
+
+    /**
+     * Calculates the bin of a centroid
+     *
+     * @param c      the centroid coordinate along the split axis
+     * @param min    minimal centroid coordinate of the range
+     * @param extent extent of the centroids of the range
+     * @return the bin index
+     */
+    private static int bin(double c, double min, double extent) {
+        return Math.min(BINS - 1, (int) ((c - min) / extent * BINS));
+    }
+
+    /**
+     * Creates a leaf of a range of primitives
+     *
+     * @param box  bounding box of the range
+     * @param from first primitive of the range
+     * @param to   end of the range (exclusive)
+     * @return the leaf
+     */
+    private static Node leaf(BoundingBox box, int from, int to) {
+        return new Node(box, from, to - from);
+    }
+
+    /**
+     * Stores a subtree in the node arrays in depth-first order
+     *
+     * @param node   the root of the subtree
+     * @param index  the array index of the root
+     * @param bounds the bounds of the nodes
+     * @param links  the links of the nodes
+     * @return the array index following the subtree
+     */
+    private static int flatten(Node node, int index, float[] bounds, int[] links) {
+        bounds[6 * index] = down(node.box.minX);
+        bounds[6 * index + 1] = down(node.box.minY);
+        bounds[6 * index + 2] = down(node.box.minZ);
+        bounds[6 * index + 3] = up(node.box.maxX);
+        bounds[6 * index + 4] = up(node.box.maxY);
+        bounds[6 * index + 5] = up(node.box.maxZ);
+        if (node.count > 0) {
+            links[2 * index] = node.first;
+            links[2 * index + 1] = node.count;
+            return index + 1;
+        }
+        int right = flatten(node.left, index + 1, bounds, links);
+        links[2 * index] = right;
+        links[2 * index + 1] = -1 - node.axis;
+        return flatten(node.right, right, bounds, links);
+    }
+
+    /**
+     * Rounds a coordinate down to a float
+     *
+     * @param value the coordinate
+     * @return the largest float not bigger than the coordinate
+     */
+    static float down(double value) {
+        float f = (float) value;
+        return f > value ? Math.nextDown(f) : f;
+    }
+
+    /**
+     * Rounds a coordinate up to a float
+     *
+     * @param value the coordinate
+     * @return the smallest float not smaller than the coordinate
+     */
+    static float up(double value) {
+        float f = (float) value;
+        return f < value ? Math.nextUp(f) : f;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    /**
+     * Checks whether a ray crosses the box of a node in front of its head
+     *
+     * @param bounds the bounds of the nodes
+     * @param node   the node index
+     * @param ox     x coordinate of the ray head
+     * @param oy     y coordinate of the ray head
+     * @param oz     z coordinate of the ray head
+     * @param invDx  inverse of the x component of the ray direction
+     * @param invDy  inverse of the y component of the ray direction
+     * @param invDz  inverse of the z component of the ray direction
+     * @param tMax   the ray is tested up to this distance
+     * @return true if the ray crosses the box
+     */
+    static boolean hits(float[] bounds, int node, double ox, double oy, double oz,
+                        double invDx, double invDy, double invDz, double tMax) {
+        int b = 6 * node;
+        double tx1 = (bounds[b] - ox) * invDx, tx2 = (bounds[b + 3] - ox) * invDx;
+        double ty1 = (bounds[b + 1] - oy) * invDy, ty2 = (bounds[b + 4] - oy) * invDy;
+        double tz1 = (bounds[b + 2] - oz) * invDz, tz2 = (bounds[b + 5] - oz) * invDz;
+        double tNear = Math.max(Math.max(Math.min(tx1, tx2), Math.min(ty1, ty2)), Math.min(tz1, tz2));
+        double tFar = Math.min(Math.min(Math.max(tx1, tx2), Math.max(ty1, ty2)), Math.max(tz1, tz2));
+        return tNear <= tFar && tFar > 0 && tNear < tMax;
+    }
+
+    /**
+     * Checks whether any ray of a packet crosses the box of a node in front of its nearest hit
+     *
+     * @param bounds the bounds of the nodes
+     * @param node   the node index
+     * @param packet the ray packet
+     * @return true if at least one ray crosses the box
+     */
+    static boolean hits(float[] bounds, int node, RayPacket packet) {
+        for (int lane = 0; lane < RayPacket.WIDTH; ++lane)
+            if (hits(bounds, node, packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.invDx[lane], packet.invDy[lane], packet.invDz[lane], packet.t[lane]))
+                return true;
+        return false;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        if (nodeCount == 0) return null;
+        Point head = ray.getP0();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invDx = BoundingBox.inverse(direction.getX());
+        double invDy = BoundingBox.inverse(direction.getY());
+        double invDz = BoundingBox.inverse(direction.getZ());
+
+        List<GeoPoint> intersections = null;
+        TraversalStack stack = TraversalStack.get();
+        int base = stack.top;
+        try {
+            stack.push(0);
+            while (stack.top > base) {
+                int node = stack.pop();
+                if (!hits(bounds, node, ox, oy, oz, invDx, invDy, invDz, Double.POSITIVE_INFINITY)) continue;
+                int count = links[2 * node + 1];
+                if (count < 0) {
+                    stack.push(links[2 * node]);
+                    stack.push(node + 1);
+                    continue;
+                }
+                for (int i = links[2 * node]; i < links[2 * node] + count; ++i) {
+                    List<GeoPoint> found = primitives[i].findGeoIntersections(ray);
+                    if (found != null) {
+                        if (intersections == null) intersections = new LinkedList<>();
+                        intersections.addAll(found);
+                    }
+                }
+            }
+        } finally {
+            stack.top = base;
+        }
+        return intersections;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The nearer child is visited first, so the nearest hits found there cull the boxes of
+     * the farther child.
+     */
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        if (nodeCount == 0) return;
+        TraversalStack stack = TraversalStack.get();
+        int base = stack.top;
+        try {
+            stack.push(0);
+            while (stack.top > base) {
+                int node = stack.pop();
+                if (!hits(bounds, node, packet)) continue;
+                int count = links[2 * node + 1];
+                if (count > 0) {
+                    for (int i = links[2 * node]; i < links[2 * node] + count; ++i)
+                        primitives[i].intersectPacket(packet);
+                    continue;
+                }
+                double d = switch (-1 - count) {
+                    case 0 -> packet.dx[0];
+                    case 1 -> packet.dy[0];
+                    default -> packet.dz[0];
+                };
+                // the child popped first is pushed last
+                if (d < 0) {
+                    stack.push(node + 1);
+                    stack.push(links[2 * node]);
+                } else {
+                    stack.push(links[2 * node]);
+                    stack.push(node + 1);
+                }
+            }
+        } finally {
+            stack.top = base;
+        }
+    }
+}
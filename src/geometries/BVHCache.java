@@ -0,0 +1,263 @@
+package geometries;
+
+import primitives.BoundingBox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of built bounding volume hierarchies in binary files, so a scene rendered again
+ * (e.g. from another camera) does not pay for building its hierarchy.<br/>
+ * A file is keyed by a hash of the classes and the bounding boxes of the primitives in
+ * their given order. It keeps the flattened node arrays of the hierarchy and the order of
+ * the primitives in the leaves as indices into the given list, so the hierarchy is restored
+ * over the same primitive objects. The file is memory-mapped when it is loaded.<br/>
+ * A missing, unreadable or mismatching file is a cache miss - the hierarchy is built and
+ * the file is rewritten.
+ */
+public class BVHCache {
+    /**
+     * Magic number at the beginning of a cache file
+     */
+    private static final int MAGIC = 0x42564831; // "BVH1"
+    /**
+     * Size of the file header in bytes: magic, key, primitives amount, nodes amount and
+     * the root box
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + 2 * Integer.BYTES + 6 * Double.BYTES;
+    /**
+     * Byte order of the cache files
+     */
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    /**
+     * Logger of the cache write errors
+     */
+    private static final Logger logger = Logger.getLogger(BVHCache.class.getName());
+
+    /**
+     * The directory of the cache files
+     */
+    private final Path directory;
+    /**
+     * Amount of hierarchies loaded from the cache
+     */
+    private final AtomicInteger hits = new AtomicInteger();
+    /**
+     * Amount of hierarchies built because they were not in the cache
+     */
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Constructs a cache in a directory - the directory is created when the first file
+     * is written
+     *
+     * @param directory the directory of the cache files
+     */
+    public BVHCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns a hierarchy over the given primitives - loaded from the cache if it is there,
+     * otherwise built and stored in the cache
+     *
+     * @param primitives the primitives
+     * @return the hierarchy
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    public BVH get(List<? extends Intersectable> primitives) {
+        long start = System.nanoTime();
+        Intersectable[] items = primitives.toArray(new Intersectable[0]);
+        long key = key(items);
+        Path file = directory.resolve(String.format("bvh-%016x.bin", key));
+        BVH bvh = Files.isRegularFile(file) ? load(file, key, items, start) : null;
+        if (bvh != null) {
+            hits.incrementAndGet();
+            return bvh;
+        }
+        misses.incrementAndGet();
+        bvh = new BVH(primitives);
+        store(file, key, items, bvh);
+        return bvh;
+    }
+
+    /**
+     * Returns the amount of hierarchies loaded from the cache
+     *
+     * @return the amount of cache hits
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the amount of hierarchies built because they were not in the cache
+     *
+     * @return the amount of cache misses
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Calculates the key of the primitives - a 64-bit FNV-1a hash of their amount, their
+     * classes and their bounding boxes
+     *
+     * @param items the primitives
+     * @return the key
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    private static long key(Intersectable[] items) {
+        long hash = mix(0xcbf29ce484222325L, items.length);
+        for (Intersectable item : items) {
+            BoundingBox box = item.getBoundingBox();
+            if (box == null)
+                throw new IllegalArgumentException("Bounding volume hierarchy cannot contain unbounded geometries");
+            hash = mix(hash, item.getClass().getName().hashCode());
+            hash = mix(hash, Double.doubleToLongBits(box.minX));
+            hash = mix(hash, Double.doubleToLongBits(box.minY));
+            hash = mix(hash, Double.doubleToLongBits(box.minZ));
+            hash = mix(hash, Double.doubleToLongBits(box.maxX));
+            hash = mix(hash, Double.doubleToLongBits(box.maxY));
+            hash = mix(hash, Double.doubleToLongBits(box.maxZ));
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes a value into an FNV-1a hash, byte by byte
+     *
+     * @param hash  the hash
+     * @param value the value
+     * @return the new hash
+     */
+    private static long mix(long hash, long value) {
+        for (int b = 0; b < Long.BYTES; ++b, value >>>= 8)
+            hash = (hash ^ (value & 0xff)) * 0x100000001b3L;
+        return hash;
+    }
+
+    /**
+     * Loads a hierarchy from a cache file
+     *
+     * @param file  the file
+     * @param key   the key of the primitives
+     * @param items the primitives in their given order
+     * @param start start time of the loading, in nanoseconds
+     * @return the hierarchy, or null if the file does not match the primitives or is corrupted
+     */
+    private static BVH load(Path file, long key, Intersectable[] items, long start) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ORDER);
+            if (buffer.getInt() != MAGIC || buffer.getLong() != key || buffer.getInt() != items.length) return null;
+            int nodeCount = buffer.getInt();
+            if (nodeCount < 0 || size != HEADER_SIZE + (long) nodeCount * (6 * Float.BYTES + 2 * Integer.BYTES)
+                    + (long) items.length * Integer.BYTES)
+                return null;
+            double minX = buffer.getDouble(), minY = buffer.getDouble(), minZ = buffer.getDouble();
+            double maxX = buffer.getDouble(), maxY = buffer.getDouble(), maxZ = buffer.getDouble();
+            float[] bounds = new float[6 * nodeCount];
+            buffer.asFloatBuffer().get(bounds);
+            buffer.position(buffer.position() + bounds.length * Float.BYTES);
+            int[] links = new int[2 * nodeCount];
+            buffer.asIntBuffer().get(links);
+            buffer.position(buffer.position() + links.length * Integer.BYTES);
+            if (!isValid(bounds, links, items.length)) return null;
+            // the order of the primitives must be a permutation
+            Intersectable[] primitives = new Intersectable[items.length];
+            boolean[] used = new boolean[items.length];
+            for (int i = 0; i < items.length; ++i) {
+                int index = buffer.getInt();
+                if (index < 0 || index >= items.length || used[index]) return null;
+                used[index] = true;
+                primitives[i] = items[index];
+            }
+            BoundingBox box = nodeCount == 0 ? null : new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+            return new BVH(primitives, box, bounds, links, System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            // a corrupted file is a cache miss
+            return null;
+        }
+    }
+
+    /**
+     * Checks that flattened nodes form a well-formed hierarchy - every node has a well-formed
+     * box, every inner node has a valid split axis and its children follow it in depth-first
+     * order, and every leaf has a non-empty range of primitives
+     *
+     * @param bounds     bounds of the nodes in depth-first order
+     * @param links      links of the nodes in depth-first order
+     * @param primitives amount of the primitives
+     * @return true if the nodes are well-formed
+     */
+    private static boolean isValid(float[] bounds, int[] links, int primitives) {
+        int nodeCount = links.length / 2;
+        for (int node = 0; node < nodeCount; ++node) {
+            for (int axis = 0; axis < 3; ++axis)
+                // also false for NaN bounds
+                if (!(bounds[6 * node + axis] <= bounds[6 * node + axis + 3])) return false;
+            int first = links[2 * node], count = links[2 * node + 1];
+            if (count > 0) {
+                if (first < 0 || first > primitives - count) return false;
+            } else if (count < -3 || count == 0 || node + 1 >= nodeCount || first <= node + 1 || first >= nodeCount)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stores a hierarchy in a cache file. The file is written aside and moved into place,
+     * so a concurrent reader never sees a partial file. A failure to write is logged and
+     * otherwise ignored.
+     *
+     * @param file  the file
+     * @param key   the key of the primitives
+     * @param items the primitives in their given order
+     * @param bvh   the hierarchy
+     */
+    private void store(Path file, long key, Intersectable[] items, BVH bvh) {
+        Map<Intersectable, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < items.length; ++i) indices.put(items[i], i);
+        float[] bounds = bvh.getBounds();
+        int[] links = bvh.getLinks();
+        BoundingBox box = bvh.getBoundingBox();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bounds.length * Float.BYTES
+                + links.length * Integer.BYTES + items.length * Integer.BYTES).order(ORDER);
+        buffer.putInt(MAGIC).putLong(key).putInt(items.length).putInt(bvh.getNodeCount());
+        if (box == null)
+            for (int i = 0; i < 6; ++i) buffer.putDouble(0);
+        else
+            buffer.putDouble(box.minX).putDouble(box.minY).putDouble(box.minZ)
+                    .putDouble(box.maxX).putDouble(box.maxY).putDouble(box.maxZ);
+        for (float bound : bounds) buffer.putFloat(bound);
+        for (int link : links) buffer.putInt(link);
+        for (Intersectable primitive : bvh.getPrimitives()) buffer.putInt(indices.get(primitive));
+        buffer.flip();
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "bvh-", ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Cannot write the hierarchy cache file " + file, e);
+        }
+    }
+}
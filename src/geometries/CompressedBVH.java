@@ -0,0 +1,487 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Compressed bounding volume hierarchy - a memory saving variant of {@link BVH} for big
+ * scenes. The binary hierarchy is collapsed into wide nodes of up to four children, and the
+ * boxes of the children are quantized to 8 bits per coordinate, relative to the box of
+ * their parent, and binary subtrees of a few primitives become single leaves. A wide node
+ * takes 68 bytes for up to four children, where the binary hierarchy takes 32 bytes for
+ * each node, so the nodes take three to four times less memory. The quantized boxes are
+ * rounded outwards, so they are only a bit looser than the exact ones.
+ */
+public class CompressedBVH extends Intersectable {
+    /**
+     * Maximal amount of children of a node
+     */
+    static final int WIDTH = 4;
+    /**
+     * A binary subtree with at most this amount of primitives becomes a single leaf
+     * (a binary leaf stays a leaf anyway)
+     */
+    private static final int LEAF_SIZE = 4;
+    /**
+     * Maximal quantized coordinate
+     */
+    private static final int LEVELS = 255;
+
+    /**
+     * Bounding box of the whole hierarchy, null if there are no primitives
+     */
+    private BoundingBox box;
+    /**
+     * The primitives, ordered so that the primitives of every leaf are consecutive
+     */
+    private Intersectable[] primitives;
+    /**
+     * Quantization frame of each node, six floats per node: the origin (minimal corner) of
+     * the node box and the size of a quantization step along each axis
+     */
+    private float[] frames;
+    /**
+     * Quantized boxes of the children, six bytes per child (unsigned): the minimal and the
+     * maximal steps along each axis
+     */
+    private byte[] quantized;
+    /**
+     * Children of each node: the node index of an inner child, the first primitive of a
+     * leaf child, -1 for an empty slot
+     */
+    private int[] children;
+    /**
+     * Amount of primitives of each leaf child, 0 for an inner child or an empty slot
+     */
+    private byte[] counts;
+    /**
+     * Amount of nodes in the hierarchy
+     */
+    private int nodeCount;
+    /**
+     * Time it took to build (or to update) the hierarchy, in nanoseconds
+     */
+    private long buildTime;
+    /**
+     * SAH cost of the hierarchy when it was built
+     */
+    private double builtCost;
+
+    /**
+     * Builds a compressed hierarchy over the given primitives
+     *
+     * @param primitives the primitives
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    public CompressedBVH(Intersectable... primitives) {
+        this(Arrays.asList(primitives));
+    }
+
+    /**
+     * Builds a compressed hierarchy over the given primitives
+     *
+     * @param primitives the primitives
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    public CompressedBVH(List<? extends Intersectable> primitives) {
+        long start = System.nanoTime();
+        build(new BVH(primitives));
+        buildTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Builds a compressed hierarchy by collapsing a binary hierarchy (e.g. one loaded by
+     * {@link BVHCache}). The build time includes the build time of the binary hierarchy.
+     *
+     * @param bvh the binary hierarchy
+     */
+    public CompressedBVH(BVH bvh) {
+        long start = System.nanoTime();
+        build(bvh);
+        buildTime = bvh.getBuildTime() + System.nanoTime() - start;
+    }
+
+    /**
+     * Builds the hierarchy - collapses a binary hierarchy into wide nodes, then fits the
+     * quantized boxes of the nodes
+     *
+     * @param bvh the binary hierarchy
+     */
+    private void build(BVH bvh) {
+        this.primitives = bvh.getPrimitives();
+        float[] bounds = bvh.getBounds();
+        int[] links = bvh.getLinks();
+
+        // every wide node is made of a different binary node, so there are not more of them
+        int capacity = Math.max(1, bvh.getNodeCount());
+        int[] children = new int[WIDTH * capacity];
+        byte[] counts = new byte[WIDTH * capacity];
+        // the wide nodes are created in breadth-first order - the queue index is the node index
+        int[] queue = new int[capacity];
+        int size = 0;
+        if (bvh.getNodeCount() > 0) queue[size++] = 0;
+        // the primitives of a binary subtree are consecutive - find their range, children first
+        int[] firsts = new int[bvh.getNodeCount()];
+        int[] ends = new int[bvh.getNodeCount()];
+        for (int binary = bvh.getNodeCount() - 1; binary >= 0; --binary)
+            if (links[2 * binary + 1] > 0) {
+                firsts[binary] = links[2 * binary];
+                ends[binary] = links[2 * binary] + links[2 * binary + 1];
+            } else {
+                firsts[binary] = firsts[binary + 1];
+                ends[binary] = ends[links[2 * binary]];
+            }
+
+        int[] slots = new int[WIDTH];
+        for (int node = 0; node < size; ++node) {
+            int binary = queue[node];
+
+            // open the biggest inner child until there are enough children
+            int arity = 1;
+            slots[0] = binary;
+            if (links[2 * binary + 1] < 0 && ends[binary] - firsts[binary] > LEAF_SIZE) {
+                slots[0] = binary + 1;
+                slots[1] = links[2 * binary];
+                arity = 2;
+            }
+            while (arity < WIDTH) {
+                int biggest = -1;
+                double biggestArea = -1;
+                for (int c = 0; c < arity; ++c)
+                    if (links[2 * slots[c] + 1] < 0 && ends[slots[c]] - firsts[slots[c]] > LEAF_SIZE
+                            && area(bounds, slots[c]) > biggestArea) {
+                        biggest = c;
+                        biggestArea = area(bounds, slots[c]);
+                    }
+                if (biggest < 0) break;
+                int opened = slots[biggest];
+                slots[biggest] = opened + 1;
+                slots[arity++] = links[2 * opened];
+            }
+
+            for (int c = 0; c < WIDTH; ++c) {
+                int slot = WIDTH * node + c;
+                if (c >= arity) {
+                    children[slot] = -1;
+                    continue;
+                }
+                int child = slots[c];
+                if (links[2 * child + 1] > 0 || ends[child] - firsts[child] <= LEAF_SIZE) {
+                    children[slot] = firsts[child];
+                    counts[slot] = (byte) (ends[child] - firsts[child]);
+                } else {
+                    children[slot] = size;
+                    queue[size++] = child;
+                }
+            }
+        }
+        nodeCount = size;
+        this.children = Arrays.copyOf(children, WIDTH * size);
+        this.counts = Arrays.copyOf(counts, WIDTH * size);
+        frames = new float[6 * size];
+        quantized = new byte[6 * WIDTH * size];
+        builtCost = fit();
+    }
+
+    /**
+     * Calculates the surface area of a binary node
+     *
+     * @param bounds the binary node bounds
+     * @param binary the binary node index
+     * @return the surface area of the node box
+     */
+    private static double area(float[] bounds, int binary) {
+        int b = 6 * binary;
+        double ex = bounds[b + 3] - bounds[b], ey = bounds[b + 4] - bounds[b + 1], ez = bounds[b + 5] - bounds[b + 2];
+        return ex * ey + ey * ez + ez * ex;
+    }
+
+    /**
+     * Calculates the surface area of a box
+     *
+     * @param boxes the boxes array
+     * @param b     offset of the box in the array - minimal then maximal coordinates
+     * @return the surface area
+     */
+    private static double area(double[] boxes, int b) {
+        double ex = boxes[b + 3] - boxes[b], ey = boxes[b + 4] - boxes[b + 1], ez = boxes[b + 5] - boxes[b + 2];
+        return 2 * (ex * ey + ey * ez + ez * ex);
+    }
+
+    /**
+     * Fits the frames and the quantized boxes of all the nodes to the current bounding boxes
+     * of the primitives. The nodes are visited in reverse breadth-first order, so the
+     * children of a node are fitted before it.
+     *
+     * @return the SAH cost of the fitted hierarchy
+     */
+    private double fit() {
+        if (nodeCount == 0) {
+            box = null;
+            return 0;
+        }
+        // exact boxes of the nodes and of the children of the current node
+        double[] nodeBoxes = new double[6 * nodeCount];
+        double[] childBoxes = new double[6 * WIDTH];
+        double cost = 0;
+        for (int node = nodeCount - 1; node >= 0; --node) {
+            int n = 6 * node;
+            Arrays.fill(nodeBoxes, n, n + 3, Double.POSITIVE_INFINITY);
+            Arrays.fill(nodeBoxes, n + 3, n + 6, Double.NEGATIVE_INFINITY);
+            for (int c = 0; c < WIDTH; ++c) {
+                int slot = WIDTH * node + c;
+                if (children[slot] < 0) continue;
+                if (counts[slot] == 0)
+                    System.arraycopy(nodeBoxes, 6 * children[slot], childBoxes, 6 * c, 6);
+                else {
+                    Arrays.fill(childBoxes, 6 * c, 6 * c + 3, Double.POSITIVE_INFINITY);
+                    Arrays.fill(childBoxes, 6 * c + 3, 6 * c + 6, Double.NEGATIVE_INFINITY);
+                    for (int i = children[slot]; i < children[slot] + counts[slot]; ++i)
+                        unite(childBoxes, 6 * c, primitives[i].getBoundingBox());
+                    cost += counts[slot] * area(childBoxes, 6 * c);
+                }
+                for (int a = 0; a < 3; ++a) {
+                    nodeBoxes[n + a] = Math.min(nodeBoxes[n + a], childBoxes[6 * c + a]);
+                    nodeBoxes[n + 3 + a] = Math.max(nodeBoxes[n + 3 + a], childBoxes[6 * c + 3 + a]);
+                }
+            }
+            cost += BVH.TRAVERSAL_COST * area(nodeBoxes, n);
+            setFrame(node, nodeBoxes, n);
+            for (int c = 0; c < WIDTH; ++c)
+                if (children[WIDTH * node + c] >= 0) quantize(node, WIDTH * node + c, childBoxes, 6 * c);
+        }
+        box = new BoundingBox(nodeBoxes[0], nodeBoxes[1], nodeBoxes[2], nodeBoxes[3], nodeBoxes[4], nodeBoxes[5]);
+        double rootArea = area(nodeBoxes, 0);
+        return rootArea > 0 ? cost / rootArea : cost;
+    }
+
+    /**
+     * Enlarges a box to contain another bounding box
+     *
+     * @param boxes the boxes array
+     * @param b     offset of the enlarged box in the array
+     * @param other the other bounding box
+     */
+    private static void unite(double[] boxes, int b, BoundingBox other) {
+        boxes[b] = Math.min(boxes[b], other.minX);
+        boxes[b + 1] = Math.min(boxes[b + 1], other.minY);
+        boxes[b + 2] = Math.min(boxes[b + 2], other.minZ);
+        boxes[b + 3] = Math.max(boxes[b + 3], other.maxX);
+        boxes[b + 4] = Math.max(boxes[b + 4], other.maxY);
+        boxes[b + 5] = Math.max(boxes[b + 5], other.maxZ);
+    }
+
+    /**
+     * Sets the quantization frame of a node by its box. The origin is rounded down and the
+     * steps are rounded up until the last step covers the maximal corner of the box.
+     *
+     * @param node  the node index
+     * @param boxes the boxes array
+     * @param b     offset of the node box in the array
+     */
+    private void setFrame(int node, double[] boxes, int b) {
+        for (int a = 0; a < 3; ++a) {
+            float origin = BVH.down(boxes[b + a]);
+            double max = boxes[b + 3 + a];
+            float step = Math.max(Float.MIN_NORMAL, (float) ((max - origin) / LEVELS));
+            while (origin + LEVELS * (double) step < max) step = Math.nextUp(step);
+            frames[6 * node + a] = origin;
+            frames[6 * node + 3 + a] = step;
+        }
+    }
+
+    /**
+     * Quantizes the box of a child relative to the frame of its parent, rounding outwards
+     *
+     * @param node  the parent node index
+     * @param slot  the child slot index
+     * @param boxes the boxes array
+     * @param b     offset of the child box in the array
+     */
+    private void quantize(int node, int slot, double[] boxes, int b) {
+        for (int a = 0; a < 3; ++a) {
+            double origin = frames[6 * node + a], step = frames[6 * node + 3 + a];
+            double min = boxes[b + a], max = boxes[b + 3 + a];
+            int qMin = (int) Math.max(0, Math.min(LEVELS, Math.floor((min - origin) / step)));
+            while (qMin > 0 && origin + qMin * step > min) --qMin;
+            int qMax = (int) Math.max(0, Math.min(LEVELS, Math.ceil((max - origin) / step)));
+            while (qMax < LEVELS && origin + qMax * step < max) ++qMax;
+            quantized[6 * slot + a] = (byte) qMin;
+            quantized[6 * slot + 3 + a] = (byte) qMax;
+        }
+    }
+
+    /**
+     * Recalculates the quantized boxes of all the nodes after the primitives moved, keeping
+     * the structure of the hierarchy. The hierarchy must not be traversed while it is refitted.
+     */
+    public void refit() {
+        fit();
+    }
+
+    /**
+     * Updates the hierarchy after the primitives moved: refits it, and rebuilds it if the
+     * refitted hierarchy is much worse than the built one by the SAH
+     *
+     * @return true if the hierarchy was rebuilt
+     */
+    public boolean update() {
+        long start = System.nanoTime();
+        boolean rebuild = fit() > BVH.REBUILD_FACTOR * builtCost;
+        if (rebuild) build(new BVH(primitives));
+        buildTime = System.nanoTime() - start;
+        return rebuild;
+    }
+
+    /**
+     * Returns the amount of nodes in the hierarchy
+     *
+     * @return the amount of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the time it took to build the hierarchy (including the binary hierarchy it
+     * is collapsed from), or to update it the last time
+     *
+     * @return the build time in nanoseconds
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    /**
+     * Returns the memory taken by the nodes of the hierarchy
+     *
+     * @return the size of the node arrays in bytes
+     */
+    public long getNodeMemory() {
+        return (long) frames.length * Float.BYTES + quantized.length
+                + (long) children.length * Integer.BYTES + counts.length;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    /**
+     * Calculates the distance where a ray enters the dequantized box of a child
+     *
+     * @param slot  the child slot index
+     * @param ox    x coordinate of the ray head
+     * @param oy    y coordinate of the ray head
+     * @param oz    z coordinate of the ray head
+     * @param invDx inverse of the x component of the ray direction
+     * @param invDy inverse of the y component of the ray direction
+     * @param invDz inverse of the z component of the ray direction
+     * @param tMax  the ray is tested up to this distance
+     * @return the entry distance, or positive infinity if the ray misses the box
+     */
+    private double near(int slot, double ox, double oy, double oz,
+                        double invDx, double invDy, double invDz, double tMax) {
+        int f = 6 * (slot / WIDTH), q = 6 * slot;
+        double tx1 = (frames[f] + (quantized[q] & 0xFF) * (double) frames[f + 3] - ox) * invDx;
+        double tx2 = (frames[f] + (quantized[q + 3] & 0xFF) * (double) frames[f + 3] - ox) * invDx;
+        double ty1 = (frames[f + 1] + (quantized[q + 1] & 0xFF) * (double) frames[f + 4] - oy) * invDy;
+        double ty2 = (frames[f + 1] + (quantized[q + 4] & 0xFF) * (double) frames[f + 4] - oy) * invDy;
+        double tz1 = (frames[f + 2] + (quantized[q + 2] & 0xFF) * (double) frames[f + 5] - oz) * invDz;
+        double tz2 = (frames[f + 2] + (quantized[q + 5] & 0xFF) * (double) frames[f + 5] - oz) * invDz;
+        double tNear = Math.max(Math.max(Math.min(tx1, tx2), Math.min(ty1, ty2)), Math.min(tz1, tz2));
+        double tFar = Math.min(Math.min(Math.max(tx1, tx2), Math.max(ty1, ty2)), Math.max(tz1, tz2));
+        return tNear <= tFar && tFar > 0 && tNear < tMax ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        if (nodeCount == 0) return null;
+        Point head = ray.getP0();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invDx = BoundingBox.inverse(direction.getX());
+        double invDy = BoundingBox.inverse(direction.getY());
+        double invDz = BoundingBox.inverse(direction.getZ());
+
+        List<GeoPoint> intersections = null;
+        TraversalStack stack = TraversalStack.get();
+        int base = stack.top;
+        try {
+            stack.push(0);
+            while (stack.top > base) {
+                int node = stack.pop();
+                for (int slot = WIDTH * node; slot < WIDTH * node + WIDTH; ++slot) {
+                    if (children[slot] < 0
+                            || near(slot, ox, oy, oz, invDx, invDy, invDz, Double.POSITIVE_INFINITY)
+                            == Double.POSITIVE_INFINITY)
+                        continue;
+                    if (counts[slot] == 0) {
+                        stack.push(children[slot]);
+                        continue;
+                    }
+                    for (int i = children[slot]; i < children[slot] + counts[slot]; ++i) {
+                        List<GeoPoint> found = primitives[i].findGeoIntersections(ray);
+                        if (found != null) {
+                            if (intersections == null) intersections = new LinkedList<>();
+                            intersections.addAll(found);
+                        }
+                    }
+                }
+            }
+        } finally {
+            stack.top = base;
+        }
+        return intersections;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The children of a node are visited by the distance where the packet enters them, so
+     * the nearest hits found in the nearer children cull the farther ones.
+     */
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        if (nodeCount == 0) return;
+        int[] order = new int[WIDTH];
+        double[] distances = new double[WIDTH];
+        TraversalStack stack = TraversalStack.get();
+        int base = stack.top;
+        try {
+            stack.push(0);
+            while (stack.top > base) {
+                int node = stack.pop();
+                // the children the packet enters, sorted by the entry distance
+                int hit = 0;
+                for (int slot = WIDTH * node; slot < WIDTH * node + WIDTH; ++slot) {
+                    if (children[slot] < 0) continue;
+                    double distance = Double.POSITIVE_INFINITY;
+                    for (int lane = 0; lane < RayPacket.WIDTH; ++lane)
+                        distance = Math.min(distance, near(slot, packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                                packet.invDx[lane], packet.invDy[lane], packet.invDz[lane], packet.t[lane]));
+                    if (distance == Double.POSITIVE_INFINITY) continue;
+                    int i = hit++;
+                    for (; i > 0 && distances[i - 1] > distance; --i) {
+                        distances[i] = distances[i - 1];
+                        order[i] = order[i - 1];
+                    }
+                    distances[i] = distance;
+                    order[i] = slot;
+                }
+                // the leaves are intersected at once, the inner children are pushed nearest last
+                for (int i = hit - 1; i >= 0; --i)
+                    if (counts[order[i]] == 0) stack.push(children[order[i]]);
+                for (int i = 0; i < hit; ++i) {
+                    int slot = order[i];
+                    for (int p = children[slot]; p < children[slot] + counts[slot]; ++p)
+                        primitives[p].intersectPacket(packet);
+                }
+            }
+        } finally {
+            stack.top = base;
+        }
+    }
+}
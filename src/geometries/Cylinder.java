@@ -1,116 +1,174 @@
-//package geometries;
-//
-//import primitives.*;
-//
-//import java.util.List;
-//
-//import static primitives.Util.isZero;
-//
-///**
-// * Cylinder represents a cylinder in 3D space.
-// */
-//public class Cylinder extends Tube{
-//    private final double height;
-//
-//    /**
-//     * Constructs a new cylinder with the specified radius, axis, and height.
-//     *
-//     * @param radius the radius of the cylinder
-//     * @param axis the axis of the cylinder
-//     * @param height the height of the cylinder
-//     */
-//    public Cylinder(double radius, Ray axis, double height) {
-//        super(radius, axis);
-//        this.height = height;
-//    }
-//
-//    @Override
-//    public String toString() {
-//        return "Cylinder{" +
-//                "radius=" + radius +
-//                ", axis=" + axis +
-//                ", height=" + height +
-//                '}';
-//    }
-//
-//    @Override
-//    public Vector getNormal(Point p) {
-//        // Check that surface point is different from head of axisRay to avoid creating
-//        // a zero vector
-//        Vector dir = axis.getDirection();
-//        Point p0 = axis.getP0();
-//        if (p.equals(p0))
-//            return dir.scale(-1);
-//        // Finding the nearest point to the given point that is on the axis ray
-//        double t = dir.dotProduct(p.subtract(p0));
-//        // Finds out if surface point is on a base and returns a normal appropriately
-//        if (isZero(t))
-//            return dir.scale(-1);
-//        if (isZero(t - height))
-//            return dir;
-//        // If surface point is on the side of the cylinder, the superclass (Tube) is
-//        // used to find the normal
-//        return super.getNormal(p);
-//    }
-//
-//    /**
-//     * Finds the intersection points of a given ray with the cylinder.
-//     *
-//     * @param ray the ray to intersect with the cylinder
-//     * @return a list of intersection points, or null if there are no intersections
-//     */
-//    @Override
-//    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray){
-//
-//
-//        // Find geoPoints intersections with the infinite cylinder
-//        List<GeoPoint> tubeIntersections = super.findGeoIntersectionsHelper(ray);
-//        if (tubeIntersections == null) {
-//            return null;
-//        }
-//
-//        // Initialize variables to track the intersection parameters
-//        double t1 = Double.POSITIVE_INFINITY;
-//        double t2 = Double.NEGATIVE_INFINITY;
-//
-//        // Check if ray intersects the infinite cylinder
-//        for (GeoPoint intersection : tubeIntersections) {
-//            Vector v = intersection.point.subtract(axis.getP0());
-//            double t = axis.getDirection().dotProduct(v);
-//
-//            if (t1 > t) {
-//                t1 = t;
-//            }
-//
-//            if (t2 < t) {
-//                t2 = t;
-//            }
-//        }
-//
-//        // Check if ray intersects the finite cylinder
-//        double tMin = 0;
-//        double tMax = height;
-//
-//        if (t1 > tMax || t2 < tMin) {
-//            return null;
-//        }
-//
-//        // Adjust intersection points to be within the height range
-//        Point p1 = ray.getPoint(t1);
-//        Point p2 = ray.getPoint(t2);
-//
-//        // Check if the intersection points are inside the finite cylinder
-//        if (p1.getZ() >= tMin && p1.getZ() <= tMax) {
-//            if (p2.getZ() >= tMin && p2.getZ() <= tMax) {
-//                return List.of(new GeoPoint(this, p1), new GeoPoint(this, p2));
-//            } else {
-//                return List.of(new GeoPoint(this, p1));
-//            }
-//        } else if (p2.getZ() >= tMin && p2.getZ() <= tMax) {
-//            return List.of(new GeoPoint(this, p2));
-//        }
-//
-//        return null; // No valid intersections found
-//    }
-//
-//}
+package geometries;
+
+import primitives.*;
+
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Cylinder represents a finite cylinder in 3D space - a tube cut by two bases (caps)
+ * orthogonal to its axis. The axis head is the center of the bottom base.<br/>
+ * Unlike a tube, a cylinder is bounded, so an acceleration structure can cull it.
+ * The intersections are calculated in plain coordinates, without intermediate vectors.
+ */
+public class Cylinder extends Tube {
+    /**
+     * The height of the cylinder along its axis
+     */
+    private final double height;
+
+    /**
+     * Constructs a new cylinder with the specified radius, axis, and height.
+     *
+     * @param radius the radius of the cylinder
+     * @param axis   the axis of the cylinder, its head is the center of the bottom base
+     * @param height the height of the cylinder
+     * @throws IllegalArgumentException if the height is not positive
+     */
+    public Cylinder(double radius, Ray axis, double height) {
+        super(radius, axis);
+        if (alignZero(height) <= 0) throw new IllegalArgumentException("Height of a cylinder must be positive");
+        this.height = height;
+    }
+
+    /**
+     * Returns the height of the cylinder
+     *
+     * @return the height
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    @Override
+    public String toString() {
+        return "Cylinder{" +
+                "radius=" + radius +
+                ", axis=" + axis +
+                ", height=" + height +
+                '}';
+    }
+
+    @Override
+    public Vector getNormal(Point p) {
+        Vector dir = axis.getDirection();
+        Point p0 = axis.getP0();
+        // the center of the bottom base - avoid creating a zero vector
+        if (p.equals(p0))
+            return dir.scaleUnchecked(-1);
+        // the distance of the point along the axis tells whether it is on a base
+        double t = dir.dotProduct(p.subtract(p0));
+        if (isZero(t))
+            return dir.scaleUnchecked(-1);
+        if (isZero(t - height))
+            return dir;
+        // a point on the side - the normal of the tube
+        return super.getNormal(p);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The bounding box is exact: the extent of a base disc along each coordinate axis is the
+     * radius times the sine of the angle between the cylinder axis and the coordinate axis.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        Point p0 = axis.getP0();
+        Vector v = axis.getDirection();
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
+        double ex = radius * Math.sqrt(Math.max(0, 1 - vx * vx));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - vy * vy));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - vz * vz));
+        double x0 = p0.getX(), y0 = p0.getY(), z0 = p0.getZ();
+        double x1 = x0 + vx * height, y1 = y0 + vy * height, z1 = z0 + vz * height;
+        return new BoundingBox(Math.min(x0, x1) - ex, Math.min(y0, y1) - ey, Math.min(z0, z1) - ez,
+                Math.max(x0, x1) + ex, Math.max(y0, y1) + ey, Math.max(z0, z1) + ez);
+    }
+
+    /**
+     * Finds the intersection points of a given ray with the cylinder - with its side
+     * between the bases and with the discs of the bases.
+     *
+     * @param ray the ray to intersect with the cylinder
+     * @return a list of intersection points, or null if there are no intersections
+     */
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        Point head = ray.getP0();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double t1 = Double.NaN, t2 = Double.NaN;
+        // a convex body - at most two intersections, collected in order of discovery
+        for (int part = 0; part < 3; ++part)
+            for (int root = 0; root < (part == 0 ? 2 : 1); ++root) {
+                double t = hit(part, root, ox, oy, oz, dx, dy, dz);
+                if (!(alignZero(t) > 0) || t == t1) continue;
+                if (Double.isNaN(t1)) t1 = t;
+                else if (Double.isNaN(t2)) t2 = t;
+            }
+        if (Double.isNaN(t1)) return null;
+        if (Double.isNaN(t2)) return List.of(new GeoPoint(this, ray.getPoint(t1)));
+        return t1 < t2
+                ? List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)))
+                : List.of(new GeoPoint(this, ray.getPoint(t2)), new GeoPoint(this, ray.getPoint(t1)));
+    }
+
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        for (int lane = 0; lane < packet.size(); ++lane)
+            for (int part = 0; part < 3; ++part)
+                for (int root = 0; root < (part == 0 ? 2 : 1); ++root) {
+                    double t = hit(part, root, packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                            packet.dx[lane], packet.dy[lane], packet.dz[lane]);
+                    if (alignZero(t) > 0) packet.record(lane, t, this);
+                }
+    }
+
+    /**
+     * Intersects a ray (given by its coordinates) with a part of the cylinder
+     *
+     * @param part the part: 0 for the side, 1 for the bottom base, 2 for the top base
+     * @param root for the side - 0 for the nearer root of its quadratic, 1 for the farther
+     * @param ox   x coordinate of the ray head
+     * @param oy   y coordinate of the ray head
+     * @param oz   z coordinate of the ray head
+     * @param dx   x coordinate of the ray direction (normalized)
+     * @param dy   y coordinate of the ray direction
+     * @param dz   z coordinate of the ray direction
+     * @return the distance of the intersection from the ray head, NaN if there is none
+     */
+    private double hit(int part, int root, double ox, double oy, double oz, double dx, double dy, double dz) {
+        Point p0 = axis.getP0();
+        Vector v = axis.getDirection();
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
+        // the ray head relative to the bottom base center, and projections on the axis
+        double wx = ox - p0.getX(), wy = oy - p0.getY(), wz = oz - p0.getZ();
+        double dv = dx * vx + dy * vy + dz * vz;
+        double wv = wx * vx + wy * vy + wz * vz;
+
+        if (part == 0) {
+            // the side: |w + t*d|^2 - ((w + t*d).v)^2 = r^2, with the halved linear coefficient
+            double a = 1 - dv * dv;
+            if (isZero(a)) return Double.NaN;
+            double b = dx * wx + dy * wy + dz * wz - dv * wv;
+            double c = wx * wx + wy * wy + wz * wz - wv * wv - radiusSquared;
+            double discriminant = b * b - a * c;
+            if (alignZero(discriminant) <= 0) return Double.NaN;
+            double sqrt = Math.sqrt(discriminant);
+            double t = (-b + (root == 0 ? -sqrt : sqrt)) / a;
+            double h = wv + t * dv;
+            return alignZero(h) > 0 && alignZero(h - height) < 0 ? t : Double.NaN;
+        }
+
+        // a base: the plane of the base along the axis, inside the base disc
+        if (isZero(dv)) return Double.NaN;
+        double level = part == 1 ? 0 : height;
+        double t = (level - wv) / dv;
+        double qx = wx + t * dx, qy = wy + t * dy, qz = wz + t * dz;
+        double radialSquared = qx * qx + qy * qy + qz * qz - level * level;
+        return alignZero(radialSquared - radiusSquared) < 0 ? t : Double.NaN;
+    }
+}
@@ -1,7 +1,11 @@
 package geometries;
+import primitives.BoundingBox;
 import primitives.Ray;
+import primitives.RayPacket;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -9,7 +13,17 @@ import java.util.List;
  * The Geometries class represents a collection of geometric objects.
  */
 public class Geometries extends Intersectable {
+    /**
+     * Minimal amount of vertices of a polygon to be triangulated into a mesh when an
+     * acceleration structure is built
+     */
+    static final int TRIANGULATED_POLYGON_SIZE = 16;
+
     final private List<Intersectable> geometries = new LinkedList<>();
+    /**
+     * Total time of building the acceleration structures of the collection, in nanoseconds
+     */
+    private long buildTime = 0;
 
     /**
      * Default constructor that initializes an empty collection of geometric objects.
@@ -35,6 +49,143 @@ public class Geometries extends Intersectable {
         this.geometries.addAll(Arrays.asList(geometries));
     }
 
+    /**
+     * Replaces the bounded geometries of the collection by a bounding volume hierarchy over
+     * them. Unbounded geometries are kept beside the hierarchy and tested linearly, as well as
+     * geometries added later.
+     *
+     * @return the collection itself
+     */
+    public Geometries buildBvh() {
+        return buildAcceleration(Acceleration.BVH);
+    }
+
+    /**
+     * Replaces the bounded geometries of the collection by an acceleration structure over
+     * them. Unbounded geometries are kept beside the structure and tested linearly, as well
+     * as geometries added later.
+     *
+     * @param acceleration the acceleration structure
+     * @return the collection itself
+     */
+    public Geometries buildAcceleration(Acceleration acceleration) {
+        return buildAcceleration(acceleration, null);
+    }
+
+    /**
+     * Replaces the bounded geometries of the collection by an acceleration structure over
+     * them. Polygons of at least {@value #TRIANGULATED_POLYGON_SIZE} vertices are triangulated
+     * into meshes, which are intersected in logarithmic time. The binary hierarchy of a BVH or
+     * a compressed BVH is taken from the cache when the same geometries were built before (a
+     * grid is not cached - it is built in linear time). Unbounded geometries are kept beside
+     * the structure and tested linearly, as well as geometries added later.
+     *
+     * @param acceleration the acceleration structure
+     * @param cache        the hierarchies cache, or null to always build
+     * @return the collection itself
+     */
+    public Geometries buildAcceleration(Acceleration acceleration, BVHCache cache) {
+        // the unbounded geometries cannot be indexed spatially - they stay in the side list
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> unboundedGeometries = new LinkedList<>();
+        for (Intersectable geometry : geometries)
+            if (geometry.getBoundingBox() == null) unboundedGeometries.add(geometry);
+            else if (geometry instanceof Polygon polygon && polygon.size() >= TRIANGULATED_POLYGON_SIZE)
+                bounded.add(polygon.triangulate());
+            else bounded.add(geometry);
+        if (bounded.size() < 2) return this;
+        Intersectable structure;
+        switch (acceleration) {
+            case BVH -> {
+                BVH bvh = cache == null ? new BVH(bounded) : cache.get(bounded);
+                buildTime += bvh.getBuildTime();
+                structure = bvh;
+            }
+            case COMPRESSED_BVH -> {
+                CompressedBVH bvh = cache == null ? new CompressedBVH(bounded)
+                        : new CompressedBVH(cache.get(bounded));
+                buildTime += bvh.getBuildTime();
+                structure = bvh;
+            }
+            case GRID -> {
+                UniformGrid grid = new UniformGrid(bounded);
+                buildTime += grid.getBuildTime();
+                structure = grid;
+            }
+            default -> {
+                return this;
+            }
+        }
+        geometries.clear();
+        geometries.add(structure);
+        geometries.addAll(unboundedGeometries);
+        return this;
+    }
+
+    /**
+     * Updates the collection after its geometries moved (e.g. by {@link Instance#setTransform}):
+     * refits or rebuilds its acceleration structures and updates its nested collections.
+     * The time of the update is added to the build time.
+     *
+     * @return the collection itself
+     */
+    public Geometries update() {
+        long start = System.nanoTime();
+        for (Intersectable geometry : geometries)
+            if (geometry instanceof BVH bvh) bvh.update();
+            else if (geometry instanceof CompressedBVH bvh) bvh.update();
+            else if (geometry instanceof UniformGrid grid) grid.update();
+            else if (geometry instanceof Geometries nested) nested.update();
+        buildTime += System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * Returns the geometries of the collection
+     *
+     * @return unmodifiable view of the geometries
+     */
+    public List<Intersectable> getGeometries() {
+        return Collections.unmodifiableList(geometries);
+    }
+
+    /**
+     * Returns the time spent on building the acceleration structures of the collection
+     * (not including the structures of instanced models)
+     *
+     * @return the build time in nanoseconds
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The bounding box is the union of the current boxes of the geometries, so it covers
+     * geometries added to a nested collection, mesh or cloud after it was added here.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = null;
+        for (Intersectable geometry : geometries) {
+            BoundingBox geometryBox = geometry.getBoundingBox();
+            if (geometryBox == null) return null;
+            box = box == null ? geometryBox : box.union(geometryBox);
+        }
+        return box;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The collection does not cull the packet by a box of its own, which could be stale -
+     * the geometries cull it by their own boxes and structures.
+     */
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        for (Intersectable geometry : geometries)
+            geometry.intersectPacket(packet);
+    }
+
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
         List<GeoPoint> intersections = null;
@@ -14,9 +14,14 @@ public abstract class Geometry extends Intersectable {
     protected Color emission = Color.BLACK;
 
     /**
-     * material of the geometry body
+     * index of the default material in the shared materials table
      */
-    private Material material = new Material();
+    private static final int DEFAULT_MATERIAL = MaterialTable.SHARED.intern(new Material());
+
+    /**
+     * index of the material of the geometry body in the shared materials table
+     */
+    private int materialIndex = DEFAULT_MATERIAL;
 
 
 
@@ -51,20 +56,32 @@ public abstract class Geometry extends Intersectable {
     /**
      * get the material of the geometry body
      *
-     * @return material of the geometry body
+     * @return the shared snapshot of the material of the geometry body, which cannot be changed
      */
     public Material getMaterial() {
-        return material;
+        return MaterialTable.SHARED.get(getMaterialIndex());
+    }
+
+    /**
+     * get the index of the material of the geometry body in the shared materials table -
+     * geometries with equal materials have the same index
+     *
+     * @return index of the material in {@link MaterialTable#SHARED}
+     */
+    public int getMaterialIndex() {
+        return materialIndex;
     }
 
     /**
-     * set the material of the geometry body
+     * set the material of the geometry body - a snapshot of its values is interned in the shared
+     * materials table, so changing the material afterward does not change the geometry
      *
      * @param m material of the geometry body
      * @return the geometry body itself
+     * @throws IllegalArgumentException if the material is null
      */
     public Geometry setMaterial(Material m) {
-        material = m;
+        materialIndex = MaterialTable.SHARED.intern(m);
         return this;
     }
 }
@@ -0,0 +1,221 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Instance is a placement of a shared model (e.g. a {@link Geometries} collection or a
+ * {@link BVH} of triangles) in the scene by an affine transformation. The model is kept
+ * once in its own object space, and the rays are transformed into that space for the
+ * intersection, so repeating a model many times costs a transformation per copy.<br/>
+ * The bounding box of the instance is calculated on construction and whenever the instance
+ * is moved, so the model must be complete before it is instanced.
+ */
+public final class Instance extends Intersectable {
+    /**
+     * The instanced model
+     */
+    private final Intersectable model;
+    /**
+     * Transformation from the object space of the model to the world space
+     */
+    private Transform transform;
+    /**
+     * Transformation from the world space to the object space of the model
+     */
+    private Transform inverse;
+    /**
+     * Bounding box of the instance in the world space, null if the model is unbounded
+     */
+    private BoundingBox box;
+
+    /**
+     * A geometry of the model as placed by the instance - the intersected geometry of the
+     * GeoPoints of the instance. The material and the emission are the ones of the model
+     * geometry, the normal is transformed into the world space.
+     */
+    public final class InstancedGeometry extends Geometry {
+        /**
+         * The geometry of the model
+         */
+        private final Geometry geometry;
+
+        /**
+         * Constructs a placed view of a geometry of the model
+         *
+         * @param geometry the geometry of the model
+         */
+        private InstancedGeometry(Geometry geometry) {
+            this.geometry = geometry;
+        }
+
+        /**
+         * Returns the geometry of the model
+         *
+         * @return the geometry in the object space
+         */
+        public Geometry getGeometry() {
+            return geometry;
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return transform.applyToNormal(geometry.getNormal(inverse.apply(point)));
+        }
+
+        @Override
+        public Color getEmission() {
+            return geometry.getEmission();
+        }
+
+        @Override
+        public int getMaterialIndex() {
+            return geometry.getMaterialIndex();
+        }
+
+        @Override
+        public Geometry setEmission(Color emission) {
+            throw new UnsupportedOperationException("The emission of an instanced geometry is set in its model");
+        }
+
+        @Override
+        public Geometry setMaterial(Material m) {
+            throw new UnsupportedOperationException("The material of an instanced geometry is set in its model");
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+            return toWorld(geometry.findGeoIntersections(inverse.apply(ray)));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof InstancedGeometry other && other.geometry.equals(geometry)
+                    && other.instance() == Instance.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return geometry.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "Instance.InstancedGeometry{" + geometry + '}';
+        }
+
+        /**
+         * Returns the instance of the geometry
+         *
+         * @return the instance
+         */
+        private Instance instance() {
+            return Instance.this;
+        }
+    }
+
+    /**
+     * Constructs an instance of a model
+     *
+     * @param model     the model
+     * @param transform the transformation from the object space of the model to the world space
+     */
+    public Instance(Intersectable model, Transform transform) {
+        this.model = model;
+        setTransform(transform);
+    }
+
+    /**
+     * Returns the instanced model
+     *
+     * @return the model
+     */
+    public Intersectable getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the transformation of the instance
+     *
+     * @return the transformation from the object space to the world space
+     */
+    public Transform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Moves the instance - sets its transformation and recalculates its bounding box.
+     * An acceleration structure that contains the instance must be updated afterwards
+     * (see {@link Geometries#update()}).
+     *
+     * @param transform the transformation from the object space of the model to the world space
+     * @return the instance itself
+     */
+    public Instance setTransform(Transform transform) {
+        this.transform = transform;
+        this.inverse = transform.inverse();
+        BoundingBox modelBox = model.getBoundingBox();
+        this.box = modelBox == null ? null : transform.apply(modelBox);
+        return this;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        if (box != null && !box.intersects(ray)) return null;
+        return toWorld(model.findGeoIntersections(inverse.apply(ray)));
+    }
+
+    /**
+     * Moves the intersections of a ray in the object space into the world space
+     *
+     * @param intersections the intersections in the object space, or null
+     * @return the intersections in the world space, or null if there are none
+     */
+    private List<GeoPoint> toWorld(List<GeoPoint> intersections) {
+        if (intersections == null) return null;
+        List<GeoPoint> result = new LinkedList<>();
+        for (GeoPoint gp : intersections)
+            result.add(new GeoPoint(new InstancedGeometry(gp.geometry), transform.apply(gp.point)));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The rays of the packet are transformed into a packet in the object space. The object
+     * space distances differ from the world distances by the length of the transformed
+     * direction of each ray.
+     */
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        if (box != null && !box.intersects(packet)) return;
+        final int size = packet.size();
+        List<Ray> rays = new ArrayList<>(size);
+        double[] scales = new double[RayPacket.WIDTH];
+        for (int lane = 0; lane < size; ++lane) {
+            Ray ray = packet.getRay(lane);
+            Vector direction = inverse.apply(ray.getDirection());
+            scales[lane] = direction.length();
+            rays.add(new Ray(inverse.apply(ray.getP0()), direction));
+        }
+        RayPacket local = new RayPacket();
+        local.load(rays, 0);
+        for (int lane = 0; lane < size; ++lane)
+            local.t[lane] = packet.t[lane] * scales[lane];
+        model.intersectPacket(local);
+        for (int lane = 0; lane < size; ++lane) {
+            GeoPoint gp = local.hits[lane];
+            if (gp != null)
+                packet.record(lane, local.t[lane] / scales[lane],
+                        new GeoPoint(new InstancedGeometry(gp.geometry), transform.apply(gp.point)));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package geometries;
 
+import primitives.BoundingBox;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 
 import java.util.List;
 
@@ -77,4 +79,30 @@ public abstract class Intersectable {
         return findGeoIntersectionsHelper(ray);
     }
 
+    /**
+     * Returns the axis aligned bounding box of the object.
+     *
+     * @return the bounding box, or null if the object is unbounded
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
+    /**
+     * Intersects all the rays of a packet with the object, updating the nearest hit of each
+     * ray in the packet. The default implementation intersects the rays one by one,
+     * objects that can test the whole packet at once override it.
+     *
+     * @param packet the ray packet
+     */
+    public void intersectPacket(RayPacket packet) {
+        for (int lane = 0; lane < packet.size(); ++lane) {
+            Ray ray = packet.getRay(lane);
+            List<GeoPoint> intersections = findGeoIntersections(ray);
+            if (intersections != null)
+                for (GeoPoint gp : intersections)
+                    packet.record(lane, gp.point.distance(ray.getP0()), gp);
+        }
+    }
+
 }
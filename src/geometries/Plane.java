@@ -3,6 +3,7 @@ package geometries;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
+import primitives.VectorMath;
 
 import java.util.List;
 
@@ -63,6 +64,31 @@ public class Plane extends Geometry {
         return normal;
     }
 
+    /**
+     * Clips the plane into a rectangle around its reference point, e.g. a floor or a wall.
+     * Unlike the plane, the rectangle is bounded, so an acceleration structure can index it.
+     * The rectangle has the emission and the material of the plane.
+     *
+     * @param side   direction of the width of the rectangle, projected onto the plane
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle, orthogonal to its width in the plane
+     * @return the rectangle
+     * @throws IllegalArgumentException if the side direction is orthogonal to the plane,
+     *                                  or if the width or the height is not positive
+     */
+    public Polygon clip(Vector side, double width, double height) {
+        if (alignZero(width) <= 0 || alignZero(height) <= 0)
+            throw new IllegalArgumentException("Size of a clipped plane must be positive");
+        double sn = side.dotProduct(normal);
+        Vector u = (isZero(sn) ? side : side.subtract(normal.scale(sn))).normalize();
+        Vector w = normal.crossProduct(u).scale(height / 2);
+        u = u.scale(width / 2);
+        Point p = q0.add(u);
+        Point m = q0.add(u.scale(-1));
+        return (Polygon) new Polygon(p.add(w), m.add(w), m.add(w.scale(-1)), p.add(w.scale(-1)))
+                .setEmission(getEmission()).setMaterial(getMaterial());
+    }
+
 
     @Override
     public String toString() {
@@ -76,23 +102,20 @@ public class Plane extends Geometry {
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
         Point p0 = ray.getP0();
         Vector v = ray.getDirection();
-        // If the ray starts on the plane, return null
-        if (q0.equals(p0)) {
-            return null;
-        }
 
-        double nv = normal.dotProduct(v);
+        double nv = VectorMath.dot(normal, v);
         // If the ray is parallel to the plane, return null
         if (isZero(nv)) {
             return null;
         }
 
-        double t = (q0.subtract(p0)).dotProduct(normal) / nv;
-        // If the intersection point is behind the ray, return null
+        // (q0 - p0) . n without creating the vector, zero if the ray starts at the reference point
+        double t = VectorMath.dot(normal, q0.getX() - p0.getX(), q0.getY() - p0.getY(), q0.getZ() - p0.getZ()) / nv;
+        // If the intersection point is on the ray head or behind the ray, return null
         if (alignZero(t) <= 0) {
             return null;
         }
 
-        return List.of(new GeoPoint(this, p0.add(v.scale(t))));
+        return List.of(new GeoPoint(this, ray.getPoint(t)));
     }
-}
\ No newline at end of file
+}
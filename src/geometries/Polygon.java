@@ -1,19 +1,23 @@
 package geometries;
 
-import java.util.LinkedList;
-
 import java.util.List;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
+import primitives.BoundingBox;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import primitives.Vector;
+import primitives.VectorMath;
 
 /**
  * Polygon class represents two-dimensional polygon in 3D Cartesian coordinate
- * system
+ * system.<br/>
+ * The plane and the edges are precomputed by the constructor: a hit point of the plane is
+ * projected along the dominant axis of the normal, and tested against the edges in 2D, so
+ * a ray that misses the polygon creates no objects.
  *
  * @author Dan
  */
@@ -30,6 +34,24 @@ public class Polygon extends Geometry {
      * The size of the polygon - the amount of the vertices in the polygon
      */
     private final int size;
+    /**
+     * Coordinates of the unit normal of the plane
+     */
+    private final double nx, ny, nz;
+    /**
+     * Coordinates of the first vertex - the reference point of the plane
+     */
+    private final double qx, qy, qz;
+    /**
+     * The dominant axis of the normal (0, 1 or 2) - the axis the polygon is projected along
+     */
+    private final int axis;
+    /**
+     * The edge lines in the projection, three numbers (a, b, c) per edge, such that
+     * a*u + b*v + c is the distance of a projected point (u, v) from the edge line,
+     * positive inside the polygon
+     */
+    private final double[] edges;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -63,6 +85,16 @@ public class Polygon extends Geometry {
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
         plane = new Plane(vertices[0], vertices[1], vertices[2]);
+        Vector normal = plane.getNormal();
+        nx = normal.getX();
+        ny = normal.getY();
+        nz = normal.getZ();
+        qx = vertices[0].getX();
+        qy = vertices[0].getY();
+        qz = vertices[0].getZ();
+        double ax = Math.abs(nx), ay = Math.abs(ny), az = Math.abs(nz);
+        axis = ax >= ay && ax >= az ? 0 : ay >= az ? 1 : 2;
+        edges = projectEdges(vertices);
         if (size == 3) return; // no need for more tests for a Triangle
 
         Vector n = plane.getNormal();
@@ -91,6 +123,79 @@ public class Polygon extends Geometry {
         }
     }
 
+    /**
+     * Calculates the edge lines of the polygon in the projection along the dominant axis
+     *
+     * @param vertices the vertices of the polygon
+     * @return the edge lines, three numbers per edge
+     */
+    private double[] projectEdges(Point[] vertices) {
+        double[] result = new double[3 * size];
+        // the projection mirrors the polygon when the dominant coordinate of the normal is negative
+        double orientation = (axis == 0 ? nx : axis == 1 ? ny : nz) > 0 ? 1 : -1;
+        for (int i = 0; i < size; ++i) {
+            Point a = vertices[i], b = vertices[(i + 1) % size];
+            double au = u(a.getX(), a.getY(), a.getZ()), av = v(a.getX(), a.getY(), a.getZ());
+            double du = u(b.getX(), b.getY(), b.getZ()) - au, dv = v(b.getX(), b.getY(), b.getZ()) - av;
+            double scale = orientation / Math.sqrt(du * du + dv * dv);
+            result[3 * i] = -dv * scale;
+            result[3 * i + 1] = du * scale;
+            result[3 * i + 2] = (dv * au - du * av) * scale;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first coordinate of a point in the projection along the dominant axis
+     *
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @param z z coordinate of the point
+     * @return the first projected coordinate
+     */
+    private double u(double x, double y, double z) {
+        return axis == 0 ? y : axis == 1 ? z : x;
+    }
+
+    /**
+     * Returns the second coordinate of a point in the projection along the dominant axis
+     *
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @param z z coordinate of the point
+     * @return the second projected coordinate
+     */
+    private double v(double x, double y, double z) {
+        return axis == 0 ? z : axis == 1 ? x : y;
+    }
+
+    /**
+     * Returns the amount of the vertices of the polygon
+     *
+     * @return the amount of the vertices
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Triangulates the polygon into a fan of triangles around its first vertex - a mesh with
+     * the emission and the material of the polygon. The triangles of a mesh are found in
+     * logarithmic time, while a polygon tests all its edges, so a polygon with many vertices
+     * is intersected faster as a mesh.
+     *
+     * @return the mesh
+     */
+    public TriangleMesh triangulate() {
+        TriangleMesh mesh = new TriangleMesh();
+        for (Point vertex : vertices)
+            mesh.addVertex(vertex);
+        for (int i = 1; i < size - 1; ++i)
+            mesh.addFace(0, i, i + 1);
+        mesh.setEmission(getEmission()).setMaterial(getMaterial());
+        return mesh;
+    }
+
     @Override
     public Vector getNormal(Point point) {
         return plane.getNormal();
@@ -98,44 +203,48 @@ public class Polygon extends Geometry {
 
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-
-        List<Point> points = this.plane.findIntersections(ray);
-
-        // If the ray does not intersect the plane, return null
-        if (points == null)
-            return null;
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(vertices.toArray(new Point[0]));
+    }
 
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
         Point p0 = ray.getP0();
         Vector v = ray.getDirection();
-        List<Vector> vectors = new LinkedList<>();
-
-        // Calculate the vectors from the head of the ray to each of the vertices
-        for (Point p : this.vertices) {
-            vectors.add(p.subtract(p0));
-        }
+        double t = intersect(p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ());
+        return t > 0 ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
+    }
 
-        int vSize = vectors.size();
-        double normal = alignZero(vectors.get(vSize - 1).crossProduct(vectors.get(0)).dotProduct(v));
-        // If the intersection point is not on the plane of the polygon, return null
-        if (isZero(normal))
-            return null;
-
-        boolean sign = normal > 0;
-        // Check if the intersection point is inside the polygon
-        for (int i = 0; i < vSize - 1; i++) {
-            normal = alignZero(vectors.get(i).crossProduct(vectors.get(i + 1)).dotProduct(v));
-            if ((normal > 0) ^ sign || isZero(normal))
-                return null;
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+            double t = intersect(packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.dx[lane], packet.dy[lane], packet.dz[lane]);
+            if (t > 0) packet.record(lane, t, this);
         }
+    }
 
-        //return list of geo intersection points
-        List<GeoPoint> result = new LinkedList<>();
-        for (Point p : points) {
-            result.add(new GeoPoint(this, p));
-        }
-        return result;
+    /**
+     * Intersects a ray given by its coordinates with the polygon, without creating any objects.
+     * The edges and the vertices of the polygon are not considered as intersections.
+     *
+     * @param ox x coordinate of the ray head
+     * @param oy y coordinate of the ray head
+     * @param oz z coordinate of the ray head
+     * @param dx x coordinate of the ray direction
+     * @param dy y coordinate of the ray direction
+     * @param dz z coordinate of the ray direction
+     * @return the distance of the intersection from the ray head, 0 if there is none
+     */
+    private double intersect(double ox, double oy, double oz, double dx, double dy, double dz) {
+        double nv = VectorMath.dot(nx, ny, nz, dx, dy, dz);
+        if (isZero(nv)) return 0; // the ray is parallel to the plane
+        double t = VectorMath.dot(nx, ny, nz, qx - ox, qy - oy, qz - oz) / nv;
+        if (alignZero(t) <= 0) return 0;
+        double x = ox + t * dx, y = oy + t * dy, z = oz + t * dz;
+        double u = u(x, y, z), w = v(x, y, z);
+        for (int i = 0; i < edges.length; i += 3)
+            if (alignZero(edges[i] * u + edges[i + 1] * w + edges[i + 2]) <= 0) return 0;
+        return t;
     }
 }
-
-
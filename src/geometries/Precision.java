@@ -0,0 +1,19 @@
+package geometries;
+
+/**
+ * The precision the coordinates of mesh and particle primitives are stored in - a trade-off
+ * between memory and accuracy, chosen when the geometry is created
+ */
+public enum Precision {
+    /**
+     * Coordinates are stored and intersected in double precision
+     */
+    DOUBLE,
+    /**
+     * Coordinates are stored and intersected in single precision - half the memory of the
+     * double precision, for huge scenes that are limited by memory rather than by accuracy.
+     * The hit points are refined in double precision onto the surface, so the secondary rays
+     * leave the surface as reliably as in the double precision.
+     */
+    SINGLE
+}
@@ -10,6 +10,10 @@ abstract public class RadialGeometry extends Geometry{
      * The radius of the radial geometry.
      */
     protected final double radius;
+    /**
+     * The squared radius, kept for the intersection tests
+     */
+    protected final double radiusSquared;
 
     /**
      * Constructs a new radial geometry with the specified radius.
@@ -18,6 +22,7 @@ abstract public class RadialGeometry extends Geometry{
      */
     public RadialGeometry(double radius) {
         this.radius = radius;
+        this.radiusSquared = radius * radius;
     }
 
     @Override
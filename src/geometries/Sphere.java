@@ -5,10 +5,17 @@ import java.util.List;
 import static primitives.Util.alignZero;
 
 /**
- * Sphere represents a sphere in 3D space.
+ * Sphere represents a sphere in 3D space.<br/>
+ * The center coordinates and the squared radius are kept as plain numbers, and the rays are
+ * intersected from the discriminant of the sphere equation, so a ray that misses the sphere
+ * creates no objects.
  */
 public class Sphere extends RadialGeometry {
     private final Point center;
+    /**
+     * Coordinates of the center
+     */
+    private final double cx, cy, cz;
 
     /**
      * Constructs a new sphere with the specified radius and center.
@@ -19,6 +26,9 @@ public class Sphere extends RadialGeometry {
     public Sphere(double radius, Point center) {
         super(radius);
         this.center = center;
+        cx = center.getX();
+        cy = center.getY();
+        cz = center.getZ();
     }
 
     @Override
@@ -31,42 +41,81 @@ public class Sphere extends RadialGeometry {
 
     @Override
     public Vector getNormal(Point p0) {
-        return p0.subtract(center).normalize();
+        return p0.subtractUnchecked(center).normalizeUnchecked();
     }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        //If the ray starts at the center of the sphere
-        if (center.equals(ray.getP0())) {
-            return List.of(new GeoPoint(this, ray.getPoint(radius)));
-        }
-
-        Vector u = center.subtract(ray.getP0());
-        double tm = alignZero(ray.getDirection().dotProduct(u));
-        double d = alignZero(Math.sqrt(u.lengthSquared() - tm * tm));
-
-        // If the ray starts outside the sphere and there is no intersection
-        if (d >= radius) {
-            return null;
-        }
-
-        double th = Math.sqrt(radius * radius - d * d);
-        double t1 = tm - th;
+        Point p0 = ray.getP0();
+        Vector v = ray.getDirection();
+        double ux = cx - p0.getX(), uy = cy - p0.getY(), uz = cz - p0.getZ();
+        // the ray direction is normalized, so the halved quadratic is t^2 - 2*tm*t + c = 0
+        double tm = VectorMath.dot(v, ux, uy, uz);
+        double discriminant = tm * tm - (VectorMath.lengthSquared(ux, uy, uz) - radiusSquared);
+        // no intersections, or the ray's line is tangent to the sphere
+        if (alignZero(discriminant) <= 0) return null;
+        double th = Math.sqrt(discriminant);
         double t2 = tm + th;
+        if (alignZero(t2) <= 0) return null; // the sphere is behind the ray head
+        double t1 = tm - th;
+        return alignZero(t1) > 0
+                ? List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)))
+                : List.of(new GeoPoint(this, ray.getPoint(t2)));
+    }
 
-        if (t1 > 0 && t2 > 0) {
-            return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
-        }
+    /**
+     * Finds the nearest intersection of a ray with the sphere within a range of distances,
+     * without creating any objects
+     *
+     * @param ray  the ray
+     * @param tMin the minimal distance from the ray head (exclusive)
+     * @param tMax the maximal distance from the ray head (exclusive)
+     * @return the distance of the nearest intersection from the ray head, NaN if there is none
+     */
+    public double nearestIntersection(Ray ray, double tMin, double tMax) {
+        Point p0 = ray.getP0();
+        Vector v = ray.getDirection();
+        return nearest(p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ(), tMin, tMax);
+    }
 
-        if (t1 > 0) {
-            return List.of(new GeoPoint(this, ray.getPoint(t1)));
-        }
+    /**
+     * Finds the nearest intersection of a ray given by its coordinates with the sphere within
+     * a range of distances
+     *
+     * @param ox   x coordinate of the ray head
+     * @param oy   y coordinate of the ray head
+     * @param oz   z coordinate of the ray head
+     * @param dx   x coordinate of the ray direction (normalized)
+     * @param dy   y coordinate of the ray direction
+     * @param dz   z coordinate of the ray direction
+     * @param tMin the minimal distance from the ray head (exclusive)
+     * @param tMax the maximal distance from the ray head (exclusive)
+     * @return the distance of the nearest intersection from the ray head, NaN if there is none
+     */
+    private double nearest(double ox, double oy, double oz, double dx, double dy, double dz,
+                           double tMin, double tMax) {
+        double ux = cx - ox, uy = cy - oy, uz = cz - oz;
+        double tm = VectorMath.dot(ux, uy, uz, dx, dy, dz);
+        double discriminant = tm * tm - (VectorMath.lengthSquared(ux, uy, uz) - radiusSquared);
+        if (alignZero(discriminant) <= 0) return Double.NaN;
+        double th = Math.sqrt(discriminant);
+        // the nearer root when it is in the range, otherwise the farther one
+        double t = alignZero(tm - th - tMin) > 0 ? tm - th : tm + th;
+        return alignZero(t - tMin) > 0 && t < tMax ? t : Double.NaN;
+    }
 
-        if (t2 > 0) {
-            return List.of(new GeoPoint(this, ray.getPoint(t2)));
-        }
-        return null;
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(cx - radius, cy - radius, cz - radius, cx + radius, cy + radius, cz + radius);
+    }
 
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+            double t = nearest(packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.dx[lane], packet.dy[lane], packet.dz[lane], 0, packet.t[lane]);
+            if (!Double.isNaN(t)) packet.record(lane, t, this);
+        }
     }
 
     public Point getCenter() {
@@ -0,0 +1,640 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static primitives.Util.alignZero;
+
+/**
+ * SphereCloud represents a big amount of spheres (e.g. bubbles or other particles) as a
+ * single geometry. The centers and the radii are kept in primitive arrays, the spheres
+ * share their materials through a small index into the materials table of the cloud,
+ * and the emission of all the spheres is the emission of the cloud.<br/>
+ * The spheres are intersected through an internal uniform grid which is built on the
+ * first intersection, so the spheres must be added before the cloud is rendered.<br/>
+ * The centers and the radii are stored in the {@link Precision} the cloud is created with.
+ * In single precision the spheres are tested in float and only the hits are refined in
+ * double precision, by Newton steps on the equation of the sphere.
+ */
+public class SphereCloud extends Geometry {
+    /**
+     * Target average amount of grid cells per sphere
+     */
+    private static final double CELLS_PER_SPHERE = 2;
+    /**
+     * Maximal amount of grid cells along an axis
+     */
+    private static final int MAX_CELLS_PER_AXIS = 512;
+    /**
+     * Initial capacity of the spheres arrays
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The precision of the centers and the radii
+     */
+    private final Precision precision;
+    /**
+     * X coordinates of the centers of the spheres, null in single precision
+     */
+    private double[] cx;
+    /**
+     * Y coordinates of the centers of the spheres, null in single precision
+     */
+    private double[] cy;
+    /**
+     * Z coordinates of the centers of the spheres, null in single precision
+     */
+    private double[] cz;
+    /**
+     * Radii of the spheres, null in single precision
+     */
+    private double[] radii;
+    /**
+     * X coordinates of the centers of the spheres, null in double precision
+     */
+    private float[] fx;
+    /**
+     * Y coordinates of the centers of the spheres, null in double precision
+     */
+    private float[] fy;
+    /**
+     * Z coordinates of the centers of the spheres, null in double precision
+     */
+    private float[] fz;
+    /**
+     * Radii of the spheres, null in double precision
+     */
+    private float[] fr;
+    /**
+     * Index of the material of each sphere in the materials table
+     */
+    private short[] materialIndices = new short[INITIAL_CAPACITY];
+    /**
+     * Amount of spheres in the cloud
+     */
+    private int size = 0;
+    /**
+     * The materials table of the cloud - the index of each material in the shared materials table
+     */
+    private final List<Integer> materials = new ArrayList<>();
+    /**
+     * Index of each material in the materials table of the cloud, by its shared index
+     */
+    private final Map<Integer, Short> materialIndex = new HashMap<>();
+    /**
+     * The acceleration grid, null until the first intersection
+     */
+    private volatile Grid grid = null;
+
+    /**
+     * Constructs an empty cloud of spheres stored in double precision
+     */
+    public SphereCloud() {
+        this(Precision.DOUBLE);
+    }
+
+    /**
+     * Constructs an empty cloud of spheres
+     *
+     * @param precision the precision of the centers and the radii of the spheres
+     */
+    public SphereCloud(Precision precision) {
+        this.precision = precision;
+        if (precision == Precision.SINGLE) {
+            fx = new float[INITIAL_CAPACITY];
+            fy = new float[INITIAL_CAPACITY];
+            fz = new float[INITIAL_CAPACITY];
+            fr = new float[INITIAL_CAPACITY];
+        } else {
+            cx = new double[INITIAL_CAPACITY];
+            cy = new double[INITIAL_CAPACITY];
+            cz = new double[INITIAL_CAPACITY];
+            radii = new double[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Uniform grid over the spheres. The spheres of each cell are kept in compressed rows:
+     * the spheres of cell c are items[starts[c]] ... items[starts[c + 1] - 1].
+     */
+    private static final class Grid {
+        /**
+         * Bounds of the grid
+         */
+        final BoundingBox box;
+        /**
+         * Amount of cells along each axis
+         */
+        final int nx, ny, nz;
+        /**
+         * Size of a cell along each axis
+         */
+        final double sx, sy, sz;
+        /**
+         * Start of the spheres of each cell in the items array
+         */
+        final int[] starts;
+        /**
+         * Indices of the spheres of all the cells
+         */
+        final int[] items;
+
+        /**
+         * Creates the grid and registers every sphere in all the cells its bounding box overlaps
+         *
+         * @param cloud the sphere cloud
+         */
+        Grid(SphereCloud cloud) {
+            box = cloud.getBoundingBox();
+            final int n = cloud.size;
+            double ex = box.maxX - box.minX, ey = box.maxY - box.minY, ez = box.maxZ - box.minZ;
+            double cell = Math.cbrt(ex * ey * ez / (CELLS_PER_SPHERE * n));
+            if (!(cell > 0)) cell = Math.max(ex, Math.max(ey, ez)) / Math.cbrt(CELLS_PER_SPHERE * n);
+            nx = cellsAlong(ex, cell);
+            ny = cellsAlong(ey, cell);
+            nz = cellsAlong(ez, cell);
+            sx = ex / nx;
+            sy = ey / ny;
+            sz = ez / nz;
+
+            // count the spheres of each cell, then fill the cells
+            starts = new int[nx * ny * nz + 1];
+            for (int s = 0; s < n; ++s)
+                forEachCell(cloud, s, (c, ignore) -> ++starts[c + 1]);
+            for (int c = 1; c < starts.length; ++c)
+                starts[c] += starts[c - 1];
+            items = new int[starts[starts.length - 1]];
+            int[] fill = Arrays.copyOf(starts, starts.length - 1);
+            for (int s = 0; s < n; ++s)
+                forEachCell(cloud, s, (c, sphere) -> items[fill[c]++] = sphere);
+        }
+
+        /**
+         * Calculates the amount of cells along an axis
+         *
+         * @param extent the extent of the grid along the axis
+         * @param cell   the desired cell size
+         * @return the amount of cells
+         */
+        private static int cellsAlong(double extent, double cell) {
+            return cell > 0 ? (int) Math.max(1, Math.min(MAX_CELLS_PER_AXIS, Math.ceil(extent / cell))) : 1;
+        }
+
+        /**
+         * Consumer of the cells a sphere overlaps
+         */
+        private interface CellConsumer {
+            /**
+             * Consumes a cell of a sphere
+             *
+             * @param cell   the cell index
+             * @param sphere the sphere index
+             */
+            void accept(int cell, int sphere);
+        }
+
+        /**
+         * Calls the consumer for each cell the bounding box of a sphere overlaps.
+         * The box is slightly enlarged, so a sphere touching a cell border is registered
+         * in both cells.
+         *
+         * @param cloud    the sphere cloud
+         * @param s        the sphere index
+         * @param consumer the cells consumer
+         */
+        private void forEachCell(SphereCloud cloud, int s, CellConsumer consumer) {
+            double r = cloud.radius(s) * (1 + 1e-9);
+            double cx = cloud.x(s), cy = cloud.y(s), cz = cloud.z(s);
+            int x0 = cellX(cx - r), x1 = cellX(cx + r);
+            int y0 = cellY(cy - r), y1 = cellY(cy + r);
+            int z0 = cellZ(cz - r), z1 = cellZ(cz + r);
+            for (int z = z0; z <= z1; ++z)
+                for (int y = y0; y <= y1; ++y)
+                    for (int x = x0; x <= x1; ++x)
+                        consumer.accept((z * ny + y) * nx + x, s);
+        }
+
+        /**
+         * Calculates the cell column of an x coordinate
+         *
+         * @param x the coordinate
+         * @return the cell column, clamped into the grid
+         */
+        int cellX(double x) {
+            return Math.max(0, Math.min(nx - 1, (int) Math.floor((x - box.minX) / sx)));
+        }
+
+        /**
+         * Calculates the cell row of a y coordinate
+         *
+         * @param y the coordinate
+         * @return the cell row, clamped into the grid
+         */
+        int cellY(double y) {
+            return Math.max(0, Math.min(ny - 1, (int) Math.floor((y - box.minY) / sy)));
+        }
+
+        /**
+         * Calculates the cell layer of a z coordinate
+         *
+         * @param z the coordinate
+         * @return the cell layer, clamped into the grid
+         */
+        int cellZ(double z) {
+            return Math.max(0, Math.min(nz - 1, (int) Math.floor((z - box.minZ) / sz)));
+        }
+    }
+
+    /**
+     * A single sphere of the cloud, as the intersected geometry of a GeoPoint.
+     * It refers to the cloud arrays by the sphere index and holds no data of its own.
+     */
+    public final class Member extends Geometry {
+        /**
+         * Index of the sphere in the cloud
+         */
+        private final int index;
+
+        /**
+         * Constructs a view of a sphere of the cloud
+         *
+         * @param index the index of the sphere
+         */
+        private Member(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the index of the sphere in the cloud
+         *
+         * @return the sphere index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return Vector.unchecked(point.getX() - x(index), point.getY() - y(index), point.getZ() - z(index))
+                    .normalizeUnchecked();
+        }
+
+        @Override
+        public Color getEmission() {
+            return SphereCloud.this.getEmission();
+        }
+
+        @Override
+        public int getMaterialIndex() {
+            return materials.get(materialIndices[index]);
+        }
+
+        @Override
+        public Geometry setEmission(Color emission) {
+            throw new UnsupportedOperationException("The emission of a cloud sphere is the emission of its cloud");
+        }
+
+        @Override
+        public Geometry setMaterial(Material m) {
+            throw new UnsupportedOperationException("The material of a cloud sphere is set when it is added");
+        }
+
+        @Override
+        public BoundingBox getBoundingBox() {
+            return sphereBox(index);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+            return new Sphere(radius(index), new Point(x(index), y(index), z(index))).findGeoIntersectionsHelper(ray);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof Member other && other.index == index && other.cloud() == SphereCloud.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return "SphereCloud.Member{center=(" + x(index) + "," + y(index) + "," + z(index)
+                    + "), radius=" + radius(index) + '}';
+        }
+
+        /**
+         * Returns the cloud of the sphere
+         *
+         * @return the sphere cloud
+         */
+        private SphereCloud cloud() {
+            return SphereCloud.this;
+        }
+    }
+
+    /**
+     * Adds a sphere to the cloud
+     *
+     * @param center   the center of the sphere
+     * @param radius   the radius of the sphere
+     * @param material the material of the sphere, interned in the shared materials table
+     * @return the cloud itself
+     */
+    public SphereCloud add(Point center, double radius, Material material) {
+        if (radius <= 0) throw new IllegalArgumentException("Radius of a sphere must be positive");
+        int shared = MaterialTable.SHARED.intern(material);
+        Short index = materialIndex.get(shared);
+        if (index == null) {
+            if (materials.size() > Short.MAX_VALUE)
+                throw new IllegalStateException("Too many different materials in a sphere cloud");
+            index = (short) materials.size();
+            materials.add(shared);
+            materialIndex.put(shared, index);
+        }
+        if (size == materialIndices.length) {
+            int capacity = size * 2;
+            if (precision == Precision.SINGLE) {
+                fx = Arrays.copyOf(fx, capacity);
+                fy = Arrays.copyOf(fy, capacity);
+                fz = Arrays.copyOf(fz, capacity);
+                fr = Arrays.copyOf(fr, capacity);
+            } else {
+                cx = Arrays.copyOf(cx, capacity);
+                cy = Arrays.copyOf(cy, capacity);
+                cz = Arrays.copyOf(cz, capacity);
+                radii = Arrays.copyOf(radii, capacity);
+            }
+            materialIndices = Arrays.copyOf(materialIndices, capacity);
+        }
+        if (precision == Precision.SINGLE) {
+            fx[size] = (float) center.getX();
+            fy[size] = (float) center.getY();
+            fz[size] = (float) center.getZ();
+            fr[size] = (float) radius;
+        } else {
+            cx[size] = center.getX();
+            cy[size] = center.getY();
+            cz[size] = center.getZ();
+            radii[size] = radius;
+        }
+        materialIndices[size] = index;
+        ++size;
+        grid = null;
+        return this;
+    }
+
+    /**
+     * Returns the amount of spheres in the cloud
+     *
+     * @return the amount of spheres
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the precision of the centers and the radii of the spheres
+     *
+     * @return the precision
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the x coordinate of the center of a sphere
+     *
+     * @param s the sphere index
+     * @return the coordinate
+     */
+    private double x(int s) {
+        return cx != null ? cx[s] : fx[s];
+    }
+
+    /**
+     * Returns the y coordinate of the center of a sphere
+     *
+     * @param s the sphere index
+     * @return the coordinate
+     */
+    private double y(int s) {
+        return cy != null ? cy[s] : fy[s];
+    }
+
+    /**
+     * Returns the z coordinate of the center of a sphere
+     *
+     * @param s the sphere index
+     * @return the coordinate
+     */
+    private double z(int s) {
+        return cz != null ? cz[s] : fz[s];
+    }
+
+    /**
+     * Returns the radius of a sphere
+     *
+     * @param s the sphere index
+     * @return the radius
+     */
+    private double radius(int s) {
+        return radii != null ? radii[s] : fr[s];
+    }
+
+    @Override
+    public Vector getNormal(Point point) {
+        throw new UnsupportedOperationException("The normal is defined for a single sphere of the cloud");
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (size == 0) return null;
+        BoundingBox box = sphereBox(0);
+        double minX = box.minX, minY = box.minY, minZ = box.minZ;
+        double maxX = box.maxX, maxY = box.maxY, maxZ = box.maxZ;
+        for (int s = 1; s < size; ++s) {
+            double r = radius(s), x = x(s), y = y(s), z = z(s);
+            minX = Math.min(minX, x - r);
+            minY = Math.min(minY, y - r);
+            minZ = Math.min(minZ, z - r);
+            maxX = Math.max(maxX, x + r);
+            maxY = Math.max(maxY, y + r);
+            maxZ = Math.max(maxZ, z + r);
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Calculates the bounding box of a single sphere
+     *
+     * @param s the sphere index
+     * @return the bounding box of the sphere
+     */
+    private BoundingBox sphereBox(int s) {
+        double r = radius(s), x = x(s), y = y(s), z = z(s);
+        return new BoundingBox(x - r, y - r, z - r, x + r, y + r, z + r);
+    }
+
+    /**
+     * Returns the acceleration grid, building it on the first call
+     *
+     * @return the grid
+     */
+    private Grid grid() {
+        Grid g = grid;
+        if (g == null)
+            synchronized (this) {
+                g = grid;
+                if (g == null) grid = g = new Grid(this);
+            }
+        return g;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        if (size == 0) return null;
+        Grid g = grid();
+        Point head = ray.getP0();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+
+        // clip the ray by the grid bounds
+        BoundingBox box = g.box;
+        double invDx = BoundingBox.inverse(dx), invDy = BoundingBox.inverse(dy), invDz = BoundingBox.inverse(dz);
+        double tx1 = (box.minX - ox) * invDx, tx2 = (box.maxX - ox) * invDx;
+        double ty1 = (box.minY - oy) * invDy, ty2 = (box.maxY - oy) * invDy;
+        double tz1 = (box.minZ - oz) * invDz, tz2 = (box.maxZ - oz) * invDz;
+        double tNear = Math.max(0, Math.max(Math.max(Math.min(tx1, tx2), Math.min(ty1, ty2)), Math.min(tz1, tz2)));
+        double tFar = Math.min(Math.min(Math.max(tx1, tx2), Math.max(ty1, ty2)), Math.max(tz1, tz2));
+        if (!(tNear <= tFar)) return null;
+
+        // 3D-DDA setup from the cell where the ray enters the grid
+        int ix = g.cellX(ox + dx * tNear), iy = g.cellY(oy + dy * tNear), iz = g.cellZ(oz + dz * tNear);
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        double tMaxX = stepX == 0 ? Double.POSITIVE_INFINITY : (box.minX + (ix + (stepX > 0 ? 1 : 0)) * g.sx - ox) / dx;
+        double tMaxY = stepY == 0 ? Double.POSITIVE_INFINITY : (box.minY + (iy + (stepY > 0 ? 1 : 0)) * g.sy - oy) / dy;
+        double tMaxZ = stepZ == 0 ? Double.POSITIVE_INFINITY : (box.minZ + (iz + (stepZ > 0 ? 1 : 0)) * g.sz - oz) / dz;
+        double tDeltaX = stepX == 0 ? 0 : g.sx / Math.abs(dx);
+        double tDeltaY = stepY == 0 ? 0 : g.sy / Math.abs(dy);
+        double tDeltaZ = stepZ == 0 ? 0 : g.sz / Math.abs(dz);
+        // the ray in single precision, for the spheres stored in single precision
+        float fox = (float) ox, foy = (float) oy, foz = (float) oz;
+        float fdx = (float) dx, fdy = (float) dy, fdz = (float) dz;
+
+        List<GeoPoint> intersections = null;
+        double tEnter = tNear;
+        while (true) {
+            double tExit = Math.min(tMaxX, Math.min(tMaxY, tMaxZ));
+            boolean last = tExit >= tFar;
+            int cell = (iz * g.ny + iy) * g.nx + ix;
+            // an intersection is reported by the cell it lies in, so it is reported once
+            for (int i = g.starts[cell]; i < g.starts[cell + 1]; ++i) {
+                int s = g.items[i];
+                double limit = last ? tFar : tExit;
+                if (fr != null) {
+                    float ux = fx[s] - fox, uy = fy[s] - foy, uz = fz[s] - foz;
+                    float tm = ux * fdx + uy * fdy + uz * fdz;
+                    float thSquared = fr[s] * fr[s] - (ux * ux + uy * uy + uz * uz - tm * tm);
+                    if (thSquared <= 0) continue;
+                    float th = (float) Math.sqrt(thSquared);
+                    intersections = addInCell(intersections, ray, s,
+                            refine(s, ox, oy, oz, dx, dy, dz, tm - th), tEnter, limit, last);
+                    intersections = addInCell(intersections, ray, s,
+                            refine(s, ox, oy, oz, dx, dy, dz, tm + th), tEnter, limit, last);
+                    continue;
+                }
+                double ux = cx[s] - ox, uy = cy[s] - oy, uz = cz[s] - oz;
+                double tm = ux * dx + uy * dy + uz * dz;
+                double thSquared = radii[s] * radii[s] - (ux * ux + uy * uy + uz * uz - tm * tm);
+                if (thSquared <= 0) continue;
+                double th = Math.sqrt(thSquared);
+                intersections = addInCell(intersections, ray, s, tm - th, tEnter, limit, last);
+                intersections = addInCell(intersections, ray, s, tm + th, tEnter, limit, last);
+            }
+            if (last) break;
+
+            // step into the next cell
+            if (tMaxX == tExit) {
+                ix += stepX;
+                tMaxX += tDeltaX;
+            } else if (tMaxY == tExit) {
+                iy += stepY;
+                tMaxY += tDeltaY;
+            } else {
+                iz += stepZ;
+                tMaxZ += tDeltaZ;
+            }
+            if (ix < 0 || ix >= g.nx || iy < 0 || iy >= g.ny || iz < 0 || iz >= g.nz) break;
+            tEnter = tExit;
+        }
+        return intersections;
+    }
+
+    /**
+     * Refines the distance of a hit of a sphere stored in single precision by two Newton steps
+     * on the sphere equation in double precision, so the hit point lies on the surface as
+     * accurately as a hit of a sphere stored in double precision, and the rays leaving it are
+     * offset reliably.
+     *
+     * @param s  the sphere index
+     * @param ox x coordinate of the ray head
+     * @param oy y coordinate of the ray head
+     * @param oz z coordinate of the ray head
+     * @param dx x coordinate of the ray direction (normalized)
+     * @param dy y coordinate of the ray direction
+     * @param dz z coordinate of the ray direction
+     * @param t  distance of the hit from the ray head, calculated in single precision
+     * @return the refined distance
+     */
+    private double refine(int s, double ox, double oy, double oz, double dx, double dy, double dz, double t) {
+        double x = fx[s], y = fy[s], z = fz[s], r = fr[s];
+        for (int step = 0; step < 2; ++step) {
+            double px = ox + t * dx - x, py = oy + t * dy - y, pz = oz + t * dz - z;
+            double slope = VectorMath.dot(px, py, pz, dx, dy, dz);
+            if (slope == 0) break; // a grazing ray - the float distance is as good as any
+            t -= (VectorMath.lengthSquared(px, py, pz) - r * r) / (2 * slope);
+        }
+        return t;
+    }
+
+    /**
+     * Adds an intersection with a sphere if it lies in front of the ray head and inside the
+     * current grid cell
+     *
+     * @param intersections the intersections found so far, null if none
+     * @param ray           the ray
+     * @param s             the sphere index
+     * @param t             distance of the intersection from the ray head
+     * @param tEnter        distance where the ray enters the cell
+     * @param tExit         distance where the ray exits the cell
+     * @param last          whether the cell is the last one along the ray
+     * @return the intersections list
+     */
+    private List<GeoPoint> addInCell(List<GeoPoint> intersections, Ray ray, int s,
+                                     double t, double tEnter, double tExit, boolean last) {
+        if (alignZero(t) > 0 && t >= tEnter && (t < tExit || last && t == tExit)) {
+            if (intersections == null) intersections = new LinkedList<>();
+            intersections.add(new GeoPoint(new Member(s), ray.getPoint(t)));
+        }
+        return intersections;
+    }
+
+    @Override
+    public String toString() {
+        return "SphereCloud{size=" + size + ", materials=" + materials.size() + ", precision=" + precision + '}';
+    }
+}
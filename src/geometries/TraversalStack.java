@@ -0,0 +1,58 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * TraversalStack is a helper class for traversing the acceleration structures without
+ * recursion. Every thread has a single small stack of node indices. A traversal pushes its
+ * nodes above the current top and restores the top when it ends, so a traversal nested in
+ * another one (e.g. a hierarchy of an instanced model inside the hierarchy of the scene)
+ * shares the same stack.
+ */
+final class TraversalStack {
+    /**
+     * Initial capacity of a stack - enough for a few nested hierarchies
+     */
+    private static final int INITIAL_CAPACITY = 256;
+    /**
+     * The stack of each thread
+     */
+    private static final ThreadLocal<TraversalStack> STACKS = ThreadLocal.withInitial(TraversalStack::new);
+
+    /**
+     * The node indices
+     */
+    private int[] nodes = new int[INITIAL_CAPACITY];
+    /**
+     * The amount of node indices in the stack
+     */
+    int top = 0;
+
+    /**
+     * Returns the stack of the current thread
+     *
+     * @return the stack
+     */
+    static TraversalStack get() {
+        return STACKS.get();
+    }
+
+    /**
+     * Pushes a node index
+     *
+     * @param node the node index
+     */
+    void push(int node) {
+        if (top == nodes.length) nodes = Arrays.copyOf(nodes, top * 2);
+        nodes[top++] = node;
+    }
+
+    /**
+     * Pops a node index
+     *
+     * @return the node index
+     */
+    int pop() {
+        return nodes[--top];
+    }
+}
@@ -4,6 +4,7 @@ import primitives.*;
 import java.util.List;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * Triangle class represents a triangle in 3D Cartesian coordinate
@@ -11,6 +12,12 @@ import static primitives.Util.alignZero;
  * @see Polygon
  */
 public class Triangle extends Polygon {
+    /**
+     * Coordinates of the first vertex and of the two edges leaving it, kept as plain
+     * numbers for intersecting the rays without creating vectors
+     */
+    private final double v0x, v0y, v0z, e1x, e1y, e1z, e2x, e2y, e2z;
+
     /**
      * Triangle constructor based on three vertices. The vertices must be in the same plane
      * and the order of vertices is by edge path.
@@ -21,41 +28,60 @@ public class Triangle extends Polygon {
      */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1, p2, p3);
+        v0x = p1.getX();
+        v0y = p1.getY();
+        v0z = p1.getZ();
+        e1x = p2.getX() - v0x;
+        e1y = p2.getY() - v0y;
+        e1z = p2.getZ() - v0z;
+        e2x = p3.getX() - v0x;
+        e2y = p3.getY() - v0y;
+        e2z = p3.getZ() - v0z;
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        // First, check if the ray intersects the plane of the triangle
-        if (plane.findIntersections(ray) == null)
-            return null;
-
-        // If the ray intersects the plane, get the intersection point
-        Point p = plane.findIntersections(ray).getFirst();
+    public void intersectPacket(RayPacket packet) {
+        for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+            double t = intersect(packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.dx[lane], packet.dy[lane], packet.dz[lane]);
+            if (t > 0) packet.record(lane, t, this);
+        }
+    }
 
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
         Point p0 = ray.getP0();
         Vector v = ray.getDirection();
+        double t = intersect(p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ());
+        return t > 0 ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
+    }
 
-        // Calculate the vectors from the head of the ray to each of the vertices
-        Vector v1 = vertices.get(0).subtract(p0);
-        Vector v2 = vertices.get(1).subtract(p0);
-        Vector v3 = vertices.get(2).subtract(p0);
-
-        // Calculate the normal vectors of the triangles of the pyramid
-        Vector n1 = v1.crossProduct(v2).normalize();
-        Vector n2 = v2.crossProduct(v3).normalize();
-        Vector n3 = v3.crossProduct(v1).normalize();
-
-        // Calculate the dot product of the ray direction vector with the normal vectors
-        double s1 = alignZero(v.dotProduct(n1));
-        double s2 = alignZero(v.dotProduct(n2));
-        double s3 = alignZero(v.dotProduct(n3));
-
-        // Check if the intersection point is inside the triangle
-        if (s1 > 0 && s2 > 0 && s3 > 0 || s1 < 0 && s2 < 0 && s3 < 0)
-            return List.of(new GeoPoint(this, p));
-
-        // If the intersection point is not inside the triangle
-        return null;
+    /**
+     * Intersects a ray given by its coordinates with the triangle by the Moller-Trumbore
+     * test, without creating any objects
+     *
+     * @param ox x coordinate of the ray head
+     * @param oy y coordinate of the ray head
+     * @param oz z coordinate of the ray head
+     * @param dx x coordinate of the ray direction
+     * @param dy y coordinate of the ray direction
+     * @param dz z coordinate of the ray direction
+     * @return the distance of the intersection from the ray head, 0 if there is none
+     */
+    private double intersect(double ox, double oy, double oz, double dx, double dy, double dz) {
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = VectorMath.dot(e1x, e1y, e1z, px, py, pz);
+        if (isZero(det)) return 0; // the ray is parallel to the triangle
+        double invDet = 1 / det;
+        double sx = ox - v0x, sy = oy - v0y, sz = oz - v0z;
+        double u = VectorMath.dot(sx, sy, sz, px, py, pz) * invDet;
+        if (alignZero(u) <= 0) return 0;
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = VectorMath.dot(dx, dy, dz, qx, qy, qz) * invDet;
+        // the edges and vertices of the triangle are not considered as intersections
+        if (alignZero(v) <= 0 || alignZero(1 - u - v) <= 0) return 0;
+        double t = VectorMath.dot(e2x, e2y, e2z, qx, qy, qz) * invDet;
+        return alignZero(t) > 0 ? t : 0;
     }
 
     public Point getP1() {
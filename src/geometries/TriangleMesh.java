@@ -0,0 +1,553 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+
+/**
+ * TriangleMesh represents a big amount of triangles that share their vertices as a single
+ * geometry. The vertices are kept in a primitive array of coordinates and every face refers
+ * to its three vertices by their indices, so a vertex shared by several faces is stored once.
+ * The faces share the emission and the material of the mesh.<br/>
+ * The faces are intersected through an internal bounding volume hierarchy which is built on
+ * the first intersection, so the faces must be added before the mesh is rendered. The
+ * hierarchy refers to the faces by their indices - a {@link Face} object is created only for
+ * a reported hit.<br/>
+ * Unlike a single {@link Triangle}, the edges belong to the faces, so a ray cannot leak
+ * through the mesh between two neighbouring faces.<br/>
+ * The vertices are stored in the {@link Precision} the mesh is created with. In single
+ * precision the faces are tested in float and only the hits are refined in double precision,
+ * by intersecting the plane of the face.
+ */
+public class TriangleMesh extends Geometry {
+    /**
+     * Initial capacity of the vertices and the faces arrays
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Square of the smallest sine of the angle between two edges of a face, or between a
+     * face and a ray - the tests are relative to the lengths, so small faces are not taken
+     * for degenerate ones
+     */
+    private static final double SINE_EPSILON_SQUARED = 1e-24;
+
+    /**
+     * The precision of the vertices
+     */
+    private final Precision precision;
+    /**
+     * Coordinates of the vertices, three per vertex, null in single precision
+     */
+    private double[] coordinates;
+    /**
+     * Coordinates of the vertices, three per vertex, null in double precision
+     */
+    private float[] floatCoordinates;
+    /**
+     * Amount of vertices in the mesh
+     */
+    private int vertexCount = 0;
+    /**
+     * Indices of the vertices of the faces, three per face
+     */
+    private int[] faces = new int[3 * INITIAL_CAPACITY];
+    /**
+     * Amount of faces in the mesh
+     */
+    private int faceCount = 0;
+    /**
+     * The hierarchy over the indices of the faces, null until the first intersection
+     */
+    private volatile BVH.Layout hierarchy = null;
+
+    /**
+     * Constructs an empty mesh with the vertices stored in double precision
+     */
+    public TriangleMesh() {
+        this(Precision.DOUBLE);
+    }
+
+    /**
+     * Constructs an empty mesh
+     *
+     * @param precision the precision of the vertices
+     */
+    public TriangleMesh(Precision precision) {
+        this.precision = precision;
+        if (precision == Precision.SINGLE) floatCoordinates = new float[3 * INITIAL_CAPACITY];
+        else coordinates = new double[3 * INITIAL_CAPACITY];
+    }
+
+    /**
+     * A single face of the mesh, as the intersected geometry of a GeoPoint.
+     * It refers to the mesh arrays by the face index and holds no data of its own.
+     */
+    public final class Face extends Geometry {
+        /**
+         * Index of the face in the mesh
+         */
+        private final int index;
+
+        /**
+         * Constructs a view of a face of the mesh
+         *
+         * @param index the index of the face
+         */
+        private Face(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the index of the face in the mesh
+         *
+         * @return the face index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns a vertex of the face
+         *
+         * @param vertex the vertex of the face: 0, 1 or 2
+         * @return the vertex
+         */
+        public Point getVertex(int vertex) {
+            return TriangleMesh.this.getVertex(faces[3 * index + vertex]);
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            int a = 3 * faces[3 * index], b = 3 * faces[3 * index + 1], c = 3 * faces[3 * index + 2];
+            double e1x = coordinate(b) - coordinate(a), e1y = coordinate(b + 1) - coordinate(a + 1);
+            double e1z = coordinate(b + 2) - coordinate(a + 2);
+            double e2x = coordinate(c) - coordinate(a), e2y = coordinate(c + 1) - coordinate(a + 1);
+            double e2z = coordinate(c + 2) - coordinate(a + 2);
+            return Vector.unchecked(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x)
+                    .normalizeUnchecked();
+        }
+
+        @Override
+        public Color getEmission() {
+            return TriangleMesh.this.getEmission();
+        }
+
+        @Override
+        public int getMaterialIndex() {
+            return TriangleMesh.this.getMaterialIndex();
+        }
+
+        @Override
+        public Geometry setEmission(Color emission) {
+            throw new UnsupportedOperationException("The emission of a mesh face is the emission of its mesh");
+        }
+
+        @Override
+        public Geometry setMaterial(Material m) {
+            throw new UnsupportedOperationException("The material of a mesh face is the material of its mesh");
+        }
+
+        @Override
+        public BoundingBox getBoundingBox() {
+            return faceBox(index);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+            Point p0 = ray.getP0();
+            Vector v = ray.getDirection();
+            double t = intersect(index, p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ());
+            return t > 0 ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
+        }
+
+        @Override
+        public void intersectPacket(RayPacket packet) {
+            for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+                double t = intersect(index, packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                        packet.dx[lane], packet.dy[lane], packet.dz[lane]);
+                if (t > 0) packet.record(lane, t, this);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof Face other && other.index == index && other.mesh() == TriangleMesh.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return "TriangleMesh.Face{" + getVertex(0) + ", " + getVertex(1) + ", " + getVertex(2) + '}';
+        }
+
+        /**
+         * Returns the mesh of the face
+         *
+         * @return the triangle mesh
+         */
+        private TriangleMesh mesh() {
+            return TriangleMesh.this;
+        }
+    }
+
+    /**
+     * Adds a vertex to the mesh
+     *
+     * @param vertex the vertex
+     * @return the index of the vertex
+     */
+    public int addVertex(Point vertex) {
+        int i = 3 * vertexCount;
+        if (precision == Precision.SINGLE) {
+            if (i == floatCoordinates.length) floatCoordinates = Arrays.copyOf(floatCoordinates, 2 * i);
+            floatCoordinates[i] = (float) vertex.getX();
+            floatCoordinates[i + 1] = (float) vertex.getY();
+            floatCoordinates[i + 2] = (float) vertex.getZ();
+        } else {
+            if (i == coordinates.length) coordinates = Arrays.copyOf(coordinates, 2 * i);
+            coordinates[i] = vertex.getX();
+            coordinates[i + 1] = vertex.getY();
+            coordinates[i + 2] = vertex.getZ();
+        }
+        return vertexCount++;
+    }
+
+    /**
+     * Adds a face to the mesh. The order of the vertices is by edge path.
+     *
+     * @param v1 index of the first vertex
+     * @param v2 index of the second vertex
+     * @param v3 index of the third vertex
+     * @return the mesh itself
+     * @throws IllegalArgumentException if any of the indices is not of a vertex of the mesh,
+     *                                  or if the vertices are on the same line
+     */
+    public TriangleMesh addFace(int v1, int v2, int v3) {
+        if (v1 < 0 || v1 >= vertexCount || v2 < 0 || v2 >= vertexCount || v3 < 0 || v3 >= vertexCount)
+            throw new IllegalArgumentException("A face must refer to vertices of the mesh");
+        int a = 3 * v1, b = 3 * v2, c = 3 * v3;
+        double e1x = coordinate(b) - coordinate(a), e1y = coordinate(b + 1) - coordinate(a + 1),
+                e1z = coordinate(b + 2) - coordinate(a + 2);
+        double e2x = coordinate(c) - coordinate(a), e2y = coordinate(c + 1) - coordinate(a + 1),
+                e2z = coordinate(c + 2) - coordinate(a + 2);
+        double[] normal = new double[3];
+        VectorMath.cross(e1x, e1y, e1z, e2x, e2y, e2z, normal, 0);
+        if (isDegenerate(VectorMath.lengthSquared(normal[0], normal[1], normal[2]),
+                VectorMath.lengthSquared(e1x, e1y, e1z), VectorMath.lengthSquared(e2x, e2y, e2z)))
+            throw new IllegalArgumentException("The vertices of a face cannot be on the same line");
+        int i = 3 * faceCount;
+        if (i == faces.length) faces = Arrays.copyOf(faces, 2 * i);
+        faces[i] = v1;
+        faces[i + 1] = v2;
+        faces[i + 2] = v3;
+        ++faceCount;
+        hierarchy = null;
+        return this;
+    }
+
+    /**
+     * Returns the amount of vertices in the mesh
+     *
+     * @return the amount of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the amount of faces in the mesh
+     *
+     * @return the amount of faces
+     */
+    public int getFaceCount() {
+        return faceCount;
+    }
+
+    /**
+     * Returns the precision of the vertices
+     *
+     * @return the precision
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns a vertex of the mesh, in the precision it is stored in
+     *
+     * @param vertex the vertex index
+     * @return the vertex
+     */
+    public Point getVertex(int vertex) {
+        int i = 3 * vertex;
+        return new Point(coordinate(i), coordinate(i + 1), coordinate(i + 2));
+    }
+
+    /**
+     * Returns a coordinate of a vertex
+     *
+     * @param i index of the coordinate - three times the vertex index, plus the axis
+     * @return the coordinate
+     */
+    private double coordinate(int i) {
+        return coordinates != null ? coordinates[i] : floatCoordinates[i];
+    }
+
+    @Override
+    public Vector getNormal(Point point) {
+        throw new UnsupportedOperationException("The normal is defined for a single face of the mesh");
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (faceCount == 0) return null;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 3 * faceCount; ++i) {
+            int v = 3 * faces[i];
+            double x = coordinate(v), y = coordinate(v + 1), z = coordinate(v + 2);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Returns the hierarchy over the faces, building it on the first call
+     *
+     * @return the hierarchy
+     */
+    private BVH.Layout hierarchy() {
+        BVH.Layout h = hierarchy;
+        if (h == null)
+            synchronized (this) {
+                h = hierarchy;
+                if (h == null) {
+                    BoundingBox[] boxes = new BoundingBox[faceCount];
+                    for (int f = 0; f < faceCount; ++f)
+                        boxes[f] = faceBox(f);
+                    hierarchy = h = BVH.layout(boxes);
+                }
+            }
+        return h;
+    }
+
+    /**
+     * Calculates the bounding box of a face
+     *
+     * @param face the face index
+     * @return the bounding box
+     */
+    private BoundingBox faceBox(int face) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        return new BoundingBox(
+                Math.min(coordinate(a), Math.min(coordinate(b), coordinate(c))),
+                Math.min(coordinate(a + 1), Math.min(coordinate(b + 1), coordinate(c + 1))),
+                Math.min(coordinate(a + 2), Math.min(coordinate(b + 2), coordinate(c + 2))),
+                Math.max(coordinate(a), Math.max(coordinate(b), coordinate(c))),
+                Math.max(coordinate(a + 1), Math.max(coordinate(b + 1), coordinate(c + 1))),
+                Math.max(coordinate(a + 2), Math.max(coordinate(b + 2), coordinate(c + 2))));
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        if (faceCount == 0) return null;
+        BVH.Layout h = hierarchy();
+        float[] bounds = h.bounds();
+        int[] links = h.links(), order = h.order();
+        Point head = ray.getP0();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double invDx = BoundingBox.inverse(dx), invDy = BoundingBox.inverse(dy), invDz = BoundingBox.inverse(dz);
+
+        List<GeoPoint> intersections = null;
+        TraversalStack stack = TraversalStack.get();
+        int base = stack.top;
+        try {
+            stack.push(0);
+            while (stack.top > base) {
+                int node = stack.pop();
+                if (!BVH.hits(bounds, node, ox, oy, oz, invDx, invDy, invDz, Double.POSITIVE_INFINITY)) continue;
+                int count = links[2 * node + 1];
+                if (count < 0) {
+                    stack.push(links[2 * node]);
+                    stack.push(node + 1);
+                    continue;
+                }
+                for (int i = links[2 * node]; i < links[2 * node] + count; ++i) {
+                    double t = intersect(order[i], ox, oy, oz, dx, dy, dz);
+                    if (t > 0) {
+                        if (intersections == null) intersections = new LinkedList<>();
+                        intersections.add(new GeoPoint(new Face(order[i]), ray.getPoint(t)));
+                    }
+                }
+            }
+        } finally {
+            stack.top = base;
+        }
+        return intersections;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The nearer child is visited first, so the nearest hits found there cull the boxes of
+     * the farther child.
+     */
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        if (faceCount == 0) return;
+        BVH.Layout h = hierarchy();
+        float[] bounds = h.bounds();
+        int[] links = h.links(), order = h.order();
+        TraversalStack stack = TraversalStack.get();
+        int base = stack.top;
+        try {
+            stack.push(0);
+            while (stack.top > base) {
+                int node = stack.pop();
+                if (!BVH.hits(bounds, node, packet)) continue;
+                int count = links[2 * node + 1];
+                if (count > 0) {
+                    for (int i = links[2 * node]; i < links[2 * node] + count; ++i)
+                        for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+                            double t = intersect(order[i], packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                                    packet.dx[lane], packet.dy[lane], packet.dz[lane]);
+                            if (t > 0 && t < packet.t[lane]) packet.record(lane, t, new Face(order[i]));
+                        }
+                    continue;
+                }
+                double d = switch (-1 - count) {
+                    case 0 -> packet.dx[0];
+                    case 1 -> packet.dy[0];
+                    default -> packet.dz[0];
+                };
+                // the child popped first is pushed last
+                if (d < 0) {
+                    stack.push(node + 1);
+                    stack.push(links[2 * node]);
+                } else {
+                    stack.push(links[2 * node]);
+                    stack.push(node + 1);
+                }
+            }
+        } finally {
+            stack.top = base;
+        }
+    }
+
+    /**
+     * Intersects a ray given by its coordinates with a face by the Moller-Trumbore test,
+     * without creating any objects
+     *
+     * @param face the face index
+     * @param ox   x coordinate of the ray head
+     * @param oy   y coordinate of the ray head
+     * @param oz   z coordinate of the ray head
+     * @param dx   x coordinate of the ray direction
+     * @param dy   y coordinate of the ray direction
+     * @param dz   z coordinate of the ray direction
+     * @return the distance of the intersection from the ray head, 0 if there is none
+     */
+    private double intersect(int face, double ox, double oy, double oz, double dx, double dy, double dz) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        if (floatCoordinates != null) return intersectSingle(a, b, c, ox, oy, oz, dx, dy, dz);
+        double[] v = coordinates;
+        double v0x = v[a], v0y = v[a + 1], v0z = v[a + 2];
+        double e1x = v[b] - v0x, e1y = v[b + 1] - v0y, e1z = v[b + 2] - v0z;
+        double e2x = v[c] - v0x, e2y = v[c + 1] - v0y, e2z = v[c + 2] - v0z;
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = VectorMath.dot(e1x, e1y, e1z, px, py, pz);
+        if (isDegenerate(det * det, VectorMath.lengthSquared(e1x, e1y, e1z),
+                VectorMath.lengthSquared(e2x, e2y, e2z) * VectorMath.lengthSquared(dx, dy, dz)))
+            return 0; // the ray is parallel to the face
+        double invDet = 1 / det;
+        double sx = ox - v0x, sy = oy - v0y, sz = oz - v0z;
+        double u = VectorMath.dot(sx, sy, sz, px, py, pz) * invDet;
+        if (u < 0 || u > 1) return 0;
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double w = VectorMath.dot(dx, dy, dz, qx, qy, qz) * invDet;
+        if (w < 0 || u + w > 1) return 0;
+        double t = VectorMath.dot(e2x, e2y, e2z, qx, qy, qz) * invDet;
+        return alignZero(t) > 0 ? t : 0;
+    }
+
+    /**
+     * Intersects a ray given by its coordinates with a face stored in single precision.
+     * The Moller-Trumbore test runs in float, then the distance of a hit is refined in double
+     * precision by intersecting the plane of the face, so the hit point lies on the face as
+     * accurately as a hit of a face stored in double precision, and the rays leaving it are
+     * offset reliably.
+     *
+     * @param a  index of the coordinates of the first vertex
+     * @param b  index of the coordinates of the second vertex
+     * @param c  index of the coordinates of the third vertex
+     * @param ox x coordinate of the ray head
+     * @param oy y coordinate of the ray head
+     * @param oz z coordinate of the ray head
+     * @param dx x coordinate of the ray direction
+     * @param dy y coordinate of the ray direction
+     * @param dz z coordinate of the ray direction
+     * @return the distance of the intersection from the ray head, 0 if there is none
+     */
+    private double intersectSingle(int a, int b, int c,
+                                   double ox, double oy, double oz, double dx, double dy, double dz) {
+        float[] v = floatCoordinates;
+        float fdx = (float) dx, fdy = (float) dy, fdz = (float) dz;
+        float v0x = v[a], v0y = v[a + 1], v0z = v[a + 2];
+        float e1x = v[b] - v0x, e1y = v[b + 1] - v0y, e1z = v[b + 2] - v0z;
+        float e2x = v[c] - v0x, e2y = v[c + 1] - v0y, e2z = v[c + 2] - v0z;
+        float px = fdy * e2z - fdz * e2y, py = fdz * e2x - fdx * e2z, pz = fdx * e2y - fdy * e2x;
+        float det = e1x * px + e1y * py + e1z * pz;
+        if (isDegenerate((double) det * det, VectorMath.lengthSquared(e1x, e1y, e1z),
+                VectorMath.lengthSquared(e2x, e2y, e2z) * VectorMath.lengthSquared(dx, dy, dz)))
+            return 0; // the ray is parallel to the face
+        float invDet = 1 / det;
+        float sx = (float) (ox - v0x), sy = (float) (oy - v0y), sz = (float) (oz - v0z);
+        float u = (sx * px + sy * py + sz * pz) * invDet;
+        if (u < 0 || u > 1) return 0;
+        float qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        float w = (fdx * qx + fdy * qy + fdz * qz) * invDet;
+        if (w < 0 || u + w > 1) return 0;
+        if ((e2x * qx + e2y * qy + e2z * qz) * invDet <= 0) return 0;
+
+        // refine the distance in double precision by the plane of the face
+        double ax = v[b] - (double) v0x, ay = v[b + 1] - (double) v0y, az = v[b + 2] - (double) v0z;
+        double bx = v[c] - (double) v0x, by = v[c + 1] - (double) v0y, bz = v[c + 2] - (double) v0z;
+        double nx = ay * bz - az * by, ny = az * bx - ax * bz, nz = ax * by - ay * bx;
+        double t = VectorMath.dot(v0x - ox, v0y - oy, v0z - oz, nx, ny, nz) / VectorMath.dot(dx, dy, dz, nx, ny, nz);
+        return alignZero(t) > 0 ? t : 0;
+    }
+
+    /**
+     * Checks whether a product of two vectors vanishes relative to their lengths - i.e. whether
+     * the sine of the angle between them is negligible
+     *
+     * @param productSquared square of the product of the vectors (the length of their cross
+     *                       product, or a determinant)
+     * @param aSquared       square of the length of the first vector
+     * @param bSquared       square of the length of the second vector
+     * @return true if the vectors are parallel, or if any of them is zero
+     */
+    private static boolean isDegenerate(double productSquared, double aSquared, double bSquared) {
+        return productSquared <= SINE_EPSILON_SQUARED * aSquared * bSquared;
+    }
+
+    @Override
+    public String toString() {
+        return "TriangleMesh{vertices=" + vertexCount + ", faces=" + faceCount + ", precision=" + precision + '}';
+    }
+}
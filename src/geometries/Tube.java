@@ -32,6 +32,19 @@ public class Tube extends RadialGeometry {
         return "Tube{" + radius + ", " + axis + '}';
     }
 
+    /**
+     * Clips the tube into a cylinder from the head of its axis. Unlike the tube, the
+     * cylinder is bounded, so an acceleration structure can index it.
+     * The cylinder has the emission and the material of the tube.
+     *
+     * @param height the height of the cylinder
+     * @return the cylinder
+     * @throws IllegalArgumentException if the height is not positive
+     */
+    public Cylinder clip(double height) {
+        return (Cylinder) new Cylinder(radius, axis, height).setEmission(getEmission()).setMaterial(getMaterial());
+    }
+
 
     @Override
     public Vector getNormal(Point p) {
@@ -60,11 +73,14 @@ public class Tube extends RadialGeometry {
         Point p1 = axis.getP0();
         Vector v1 = axis.getDirection();
 
-        Vector deltaP = p0.subtract(p1);
+        // deltaP = p0 - p1 as plain coordinates - the ray may start on the axis head
+        double deltaX = p0.getX() - p1.getX(), deltaY = p0.getY() - p1.getY(), deltaZ = p0.getZ() - p1.getZ();
 
-        double a = v.dotProduct(v) - Math.pow(v.dotProduct(v1), 2);
-        double b = 2 * (v.dotProduct(deltaP) - v.dotProduct(v1) * deltaP.dotProduct(v1));
-        double c = deltaP.dotProduct(deltaP) - Math.pow(deltaP.dotProduct(v1), 2) - radius * radius;
+        double vv1 = VectorMath.dot(v, v1);
+        double deltaPv1 = VectorMath.dot(v1, deltaX, deltaY, deltaZ);
+        double a = VectorMath.dot(v, v) - vv1 * vv1;
+        double b = 2 * (VectorMath.dot(v, deltaX, deltaY, deltaZ) - vv1 * deltaPv1);
+        double c = VectorMath.lengthSquared(deltaX, deltaY, deltaZ) - deltaPv1 * deltaPv1 - radiusSquared;
 
         double discriminant = b * b - 4 * a * c;
 
@@ -0,0 +1,380 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Uniform grid over bounded geometries (or instances, or hierarchies) - an alternative to
+ * a {@link BVH} for scenes with uniformly spread content. The grid is built in linear time:
+ * every primitive is registered in all the cells its bounding box overlaps, and a ray walks
+ * the cells it crosses in order by 3D-DDA.<br/>
+ * A primitive overlapping several cells is tested once per ray (or per packet) by a
+ * per-thread mailbox of the primitives tested by the current traversal. The nearest hit
+ * traversal of a packet stops walking a ray when its nearest hit is inside the visited cells.
+ */
+public class UniformGrid extends Intersectable {
+    /**
+     * Target average amount of cells per primitive
+     */
+    private static final double CELLS_PER_PRIMITIVE = 2;
+    /**
+     * Maximal amount of cells along an axis
+     */
+    private static final int MAX_CELLS_PER_AXIS = 256;
+    /**
+     * A grid over at least this amount of primitives is built in parallel
+     */
+    private static final int PARALLEL_SIZE = 4096;
+
+    /**
+     * The primitives
+     */
+    private final Intersectable[] primitives;
+    /**
+     * Bounding boxes of the primitives, kept for the updates
+     */
+    private final BoundingBox[] boxes;
+    /**
+     * Bounding box of the grid, null if there are no primitives
+     */
+    private BoundingBox box;
+    /**
+     * Amount of cells along each axis
+     */
+    private int nx, ny, nz;
+    /**
+     * Size of a cell along each axis
+     */
+    private double sx, sy, sz;
+    /**
+     * Start of the primitives of each cell in the items array - the primitives of cell c are
+     * items[starts[c]] ... items[starts[c + 1] - 1]
+     */
+    private int[] starts;
+    /**
+     * Indices of the primitives of all the cells
+     */
+    private int[] items;
+    /**
+     * Time it took to build the grid (or to update it), in nanoseconds
+     */
+    private long buildTime;
+    /**
+     * Mailbox of each thread
+     */
+    private final ThreadLocal<Mailbox> mailboxes = ThreadLocal.withInitial(Mailbox::new);
+
+    /**
+     * Mailbox of the primitives tested by the current traversal of a thread - each traversal
+     * gets a new stamp, and a primitive is tested only if its stamp differs from it
+     */
+    private final class Mailbox {
+        /**
+         * The stamp of the last traversal that tested each primitive
+         */
+        final int[] stamps = new int[primitives.length];
+        /**
+         * The stamp of the current traversal
+         */
+        int stamp = 0;
+
+        /**
+         * Starts a new traversal
+         */
+        void next() {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+
+        /**
+         * Marks a primitive as tested by the current traversal
+         *
+         * @param primitive the primitive index
+         * @return true if the primitive was not tested before by the current traversal
+         */
+        boolean mark(int primitive) {
+            if (stamps[primitive] == stamp) return false;
+            stamps[primitive] = stamp;
+            return true;
+        }
+    }
+
+    /**
+     * Builds a grid over the given primitives
+     *
+     * @param primitives the primitives
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    public UniformGrid(Intersectable... primitives) {
+        this(Arrays.asList(primitives));
+    }
+
+    /**
+     * Builds a grid over the given primitives
+     *
+     * @param primitives the primitives
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    public UniformGrid(List<? extends Intersectable> primitives) {
+        this.primitives = primitives.toArray(new Intersectable[0]);
+        this.boxes = new BoundingBox[this.primitives.length];
+        long start = System.nanoTime();
+        build();
+        buildTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Builds the grid: chooses the cells by the bounds and the amount of the primitives,
+     * counts the primitives of each cell and then fills the cells
+     *
+     * @throws IllegalArgumentException if any of the primitives is unbounded
+     */
+    private void build() {
+        final int n = primitives.length;
+        box = null;
+        for (int i = 0; i < n; ++i) {
+            boxes[i] = primitives[i].getBoundingBox();
+            if (boxes[i] == null)
+                throw new IllegalArgumentException("Uniform grid cannot contain unbounded geometries");
+            box = box == null ? boxes[i] : box.union(boxes[i]);
+        }
+        if (n == 0) {
+            nx = ny = nz = 0;
+            starts = new int[1];
+            items = new int[0];
+            return;
+        }
+
+        double ex = box.maxX - box.minX, ey = box.maxY - box.minY, ez = box.maxZ - box.minZ;
+        double cell = Math.cbrt(ex * ey * ez / (CELLS_PER_PRIMITIVE * n));
+        if (!(cell > 0)) cell = Math.max(ex, Math.max(ey, ez)) / Math.cbrt(CELLS_PER_PRIMITIVE * n);
+        nx = cellsAlong(ex, cell);
+        ny = cellsAlong(ey, cell);
+        nz = cellsAlong(ez, cell);
+        sx = ex / nx;
+        sy = ey / ny;
+        sz = ez / nz;
+
+        // count the primitives of each cell, then fill the cells
+        final int cells = nx * ny * nz;
+        AtomicIntegerArray counts = new AtomicIntegerArray(cells);
+        range(n).forEach(i -> {
+            BoundingBox b = boxes[i];
+            for (int z = cellZ(b.minZ); z <= cellZ(b.maxZ); ++z)
+                for (int y = cellY(b.minY); y <= cellY(b.maxY); ++y)
+                    for (int x = cellX(b.minX); x <= cellX(b.maxX); ++x)
+                        counts.incrementAndGet((z * ny + y) * nx + x);
+        });
+        starts = new int[cells + 1];
+        for (int c = 0; c < cells; ++c)
+            starts[c + 1] = starts[c] + counts.get(c);
+        items = new int[starts[cells]];
+        AtomicIntegerArray fill = counts;
+        for (int c = 0; c < cells; ++c) fill.set(c, starts[c]);
+        range(n).forEach(i -> {
+            BoundingBox b = boxes[i];
+            for (int z = cellZ(b.minZ); z <= cellZ(b.maxZ); ++z)
+                for (int y = cellY(b.minY); y <= cellY(b.maxY); ++y)
+                    for (int x = cellX(b.minX); x <= cellX(b.maxX); ++x)
+                        items[fill.getAndIncrement((z * ny + y) * nx + x)] = i;
+        });
+        // a parallel fill leaves the primitives of a cell unordered
+        if (n >= PARALLEL_SIZE)
+            for (int c = 0; c < cells; ++c)
+                Arrays.sort(items, starts[c], starts[c + 1]);
+    }
+
+    /**
+     * Returns the stream of the primitive indices, parallel for big grids
+     *
+     * @param n the amount of primitives
+     * @return the indices stream
+     */
+    private static IntStream range(int n) {
+        IntStream indices = IntStream.range(0, n);
+        return n >= PARALLEL_SIZE ? indices.parallel() : indices;
+    }
+
+    /**
+     * Calculates the amount of cells along an axis
+     *
+     * @param extent the extent of the grid along the axis
+     * @param cell   the desired cell size
+     * @return the amount of cells
+     */
+    private static int cellsAlong(double extent, double cell) {
+        return cell > 0 ? (int) Math.max(1, Math.min(MAX_CELLS_PER_AXIS, Math.ceil(extent / cell))) : 1;
+    }
+
+    /**
+     * Calculates the cell column of an x coordinate
+     *
+     * @param x the coordinate
+     * @return the cell column, clamped into the grid
+     */
+    private int cellX(double x) {
+        return Math.max(0, Math.min(nx - 1, (int) Math.floor((x - box.minX) / sx)));
+    }
+
+    /**
+     * Calculates the cell row of a y coordinate
+     *
+     * @param y the coordinate
+     * @return the cell row, clamped into the grid
+     */
+    private int cellY(double y) {
+        return Math.max(0, Math.min(ny - 1, (int) Math.floor((y - box.minY) / sy)));
+    }
+
+    /**
+     * Calculates the cell layer of a z coordinate
+     *
+     * @param z the coordinate
+     * @return the cell layer, clamped into the grid
+     */
+    private int cellZ(double z) {
+        return Math.max(0, Math.min(nz - 1, (int) Math.floor((z - box.minZ) / sz)));
+    }
+
+    /**
+     * Updates the grid after the primitives moved - the grid is rebuilt, which takes
+     * linear time
+     */
+    public void update() {
+        long start = System.nanoTime();
+        build();
+        buildTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the amount of cells of the grid
+     *
+     * @return the amount of cells
+     */
+    public int getCellCount() {
+        return nx * ny * nz;
+    }
+
+    /**
+     * Returns the time it took to build the grid, or to update it the last time
+     *
+     * @return the build time in nanoseconds
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        if (box == null) return null;
+        Point head = ray.getP0();
+        Vector direction = ray.getDirection();
+        return walk(head.getX(), head.getY(), head.getZ(), direction.getX(), direction.getY(), direction.getZ(),
+                ray, null, 0, mailboxes.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Every ray of the packet walks its own cells, and the primitives of its cells are
+     * tested with the whole packet - a primitive tested for a ray is not tested again for
+     * the other rays.
+     */
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        if (box == null || !box.intersects(packet)) return;
+        Mailbox mailbox = mailboxes.get();
+        mailbox.next();
+        for (int lane = 0; lane < packet.size(); ++lane)
+            walk(packet.ox[lane], packet.oy[lane], packet.oz[lane], packet.dx[lane], packet.dy[lane], packet.dz[lane],
+                    null, packet, lane, mailbox);
+    }
+
+    /**
+     * Walks the cells a ray crosses by 3D-DDA and tests their primitives. A single ray
+     * collects all its intersections, a ray of a packet stops when its nearest hit is
+     * inside the visited cells.
+     *
+     * @param ox      x coordinate of the ray head
+     * @param oy      y coordinate of the ray head
+     * @param oz      z coordinate of the ray head
+     * @param dx      x coordinate of the ray direction
+     * @param dy      y coordinate of the ray direction
+     * @param dz      z coordinate of the ray direction
+     * @param ray     the single ray, or null for a ray of a packet
+     * @param packet  the packet, or null for a single ray
+     * @param lane    the lane of the ray in the packet
+     * @param mailbox the mailbox of the thread, its traversal is started by a single ray
+     * @return the intersections of a single ray, null if there are none or for a packet
+     */
+    private List<GeoPoint> walk(double ox, double oy, double oz, double dx, double dy, double dz,
+                                Ray ray, RayPacket packet, int lane, Mailbox mailbox) {
+        // clip the ray by the grid bounds
+        double invDx = BoundingBox.inverse(dx), invDy = BoundingBox.inverse(dy), invDz = BoundingBox.inverse(dz);
+        double tx1 = (box.minX - ox) * invDx, tx2 = (box.maxX - ox) * invDx;
+        double ty1 = (box.minY - oy) * invDy, ty2 = (box.maxY - oy) * invDy;
+        double tz1 = (box.minZ - oz) * invDz, tz2 = (box.maxZ - oz) * invDz;
+        double tNear = Math.max(0, Math.max(Math.max(Math.min(tx1, tx2), Math.min(ty1, ty2)), Math.min(tz1, tz2)));
+        double tFar = Math.min(Math.min(Math.max(tx1, tx2), Math.max(ty1, ty2)), Math.max(tz1, tz2));
+        if (!(tNear <= tFar) || packet != null && tNear >= packet.t[lane]) return null;
+        if (ray != null) mailbox.next();
+
+        // 3D-DDA setup from the cell where the ray enters the grid
+        int ix = cellX(ox + dx * tNear), iy = cellY(oy + dy * tNear), iz = cellZ(oz + dz * tNear);
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        double tMaxX = stepX == 0 ? Double.POSITIVE_INFINITY : (box.minX + (ix + (stepX > 0 ? 1 : 0)) * sx - ox) / dx;
+        double tMaxY = stepY == 0 ? Double.POSITIVE_INFINITY : (box.minY + (iy + (stepY > 0 ? 1 : 0)) * sy - oy) / dy;
+        double tMaxZ = stepZ == 0 ? Double.POSITIVE_INFINITY : (box.minZ + (iz + (stepZ > 0 ? 1 : 0)) * sz - oz) / dz;
+        double tDeltaX = stepX == 0 ? 0 : sx / Math.abs(dx);
+        double tDeltaY = stepY == 0 ? 0 : sy / Math.abs(dy);
+        double tDeltaZ = stepZ == 0 ? 0 : sz / Math.abs(dz);
+
+        List<GeoPoint> intersections = null;
+        while (true) {
+            int cell = (iz * ny + iy) * nx + ix;
+            for (int i = starts[cell]; i < starts[cell + 1]; ++i) {
+                int primitive = items[i];
+                if (!mailbox.mark(primitive)) continue;
+                if (packet != null) {
+                    primitives[primitive].intersectPacket(packet);
+                    continue;
+                }
+                List<GeoPoint> found = primitives[primitive].findGeoIntersections(ray);
+                if (found != null) {
+                    if (intersections == null) intersections = new LinkedList<>();
+                    intersections.addAll(found);
+                }
+            }
+            double tExit = Math.min(tMaxX, Math.min(tMaxY, tMaxZ));
+            // the primitives of the next cells are not nearer than the nearest hit
+            if (tExit >= tFar || packet != null && packet.t[lane] <= tExit) break;
+
+            // step into the next cell
+            if (tMaxX == tExit) {
+                ix += stepX;
+                tMaxX += tDeltaX;
+            } else if (tMaxY == tExit) {
+                iy += stepY;
+                tMaxY += tDeltaY;
+            } else {
+                iz += stepZ;
+                tMaxZ += tDeltaZ;
+            }
+            if (ix < 0 || ix >= nx || iy < 0 || iy >= ny || iz < 0 || iz >= nz) break;
+        }
+        return intersections;
+    }
+}
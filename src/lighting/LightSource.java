@@ -32,4 +32,14 @@ public interface LightSource {
      * @return the distance between the light source and the point
      */
     double getDistance(Point point);
+
+    /**
+     * Returns the radius of influence of the light source - the distance beyond which its
+     * light is negligible, so the points farther from it are not lighted by it at all.
+     *
+     * @return the radius of influence, infinite by default
+     */
+    default double getInfluenceRadius() {
+        return Double.POSITIVE_INFINITY;
+    }
 }
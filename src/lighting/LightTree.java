@@ -0,0 +1,212 @@
+package lighting;
+
+import primitives.BoundingBox;
+import primitives.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * LightTree is a hierarchy of the point lights (and spotlights) of a scene for stochastic
+ * light selection. Every node bounds the positions of its lights and keeps their total power
+ * and their minimal attenuation factors, so the importance of a node for a shaded point -
+ * the total power attenuated by the distance of the point from the node - bounds the light
+ * its lights can bring to the point.<br/>
+ * A light is sampled by descending from the root, choosing each child in proportion to its
+ * importance, so nearby bright lights are sampled often and far dim lights rarely, in
+ * logarithmic time in the amount of lights. The probability of the sampled light is
+ * returned with it, so the contribution of the light divided by the probability estimates
+ * the contribution of all the lights.<br/>
+ * Lights without a position (e.g. directional lights) cannot be bounded - they are kept
+ * aside as global lights which are always shaded.
+ */
+public class LightTree {
+    /**
+     * Smallest attenuation of a node - avoids dividing by zero for lights without attenuation
+     */
+    private static final double MIN_ATTENUATION = 1e-12;
+
+    /**
+     * A sampled light and the probability it was sampled with
+     *
+     * @param light       the light source
+     * @param probability the probability of sampling the light, in (0,1]
+     */
+    public record Sample(LightSource light, double probability) {
+    }
+
+    /**
+     * A node of the tree - either an inner node with two children or a leaf of a single light
+     */
+    private static final class Node {
+        /**
+         * Bounding box of the positions of the lights under the node
+         */
+        final BoundingBox box;
+        /**
+         * Total power (brightness of the intensity) of the lights under the node
+         */
+        final double power;
+        /**
+         * Minimal constant attenuation factor of the lights under the node
+         */
+        final double kC;
+        /**
+         * Minimal linear attenuation factor of the lights under the node
+         */
+        final double kL;
+        /**
+         * Minimal quadratic attenuation factor of the lights under the node
+         */
+        final double kQ;
+        /**
+         * Children of an inner node, null for a leaf
+         */
+        final Node left, right;
+        /**
+         * The light of a leaf, null for an inner node
+         */
+        final PointLight light;
+
+        /**
+         * Creates a leaf
+         *
+         * @param light the light of the leaf
+         */
+        Node(PointLight light) {
+            box = BoundingBox.of(light.getPosition());
+            power = light.getIntensity().brightness();
+            kC = light.getKc();
+            kL = light.getKl();
+            kQ = light.getKq();
+            left = right = null;
+            this.light = light;
+        }
+
+        /**
+         * Creates an inner node
+         *
+         * @param left  the left child
+         * @param right the right child
+         */
+        Node(Node left, Node right) {
+            box = left.box.union(right.box);
+            power = left.power + right.power;
+            kC = Math.min(left.kC, right.kC);
+            kL = Math.min(left.kL, right.kL);
+            kQ = Math.min(left.kQ, right.kQ);
+            this.left = left;
+            this.right = right;
+            light = null;
+        }
+
+        /**
+         * Calculates the importance of the node for a point - an upper bound of the light
+         * its lights bring to the point
+         *
+         * @param point the point
+         * @return the importance
+         */
+        double importance(Point point) {
+            double distanceSquared = box.distanceSquared(point);
+            double attenuation = kC + kL * Math.sqrt(distanceSquared) + kQ * distanceSquared;
+            return power / Math.max(attenuation, MIN_ATTENUATION);
+        }
+    }
+
+    /**
+     * Root of the tree, null if there are no point lights
+     */
+    private final Node root;
+    /**
+     * Amount of the lights in the tree
+     */
+    private final int size;
+    /**
+     * The lights that are not in the tree
+     */
+    private final List<LightSource> globalLights;
+
+    /**
+     * Builds the tree of the lights
+     *
+     * @param lights the lights of the scene
+     */
+    public LightTree(List<LightSource> lights) {
+        List<PointLight> pointLights = new ArrayList<>();
+        List<LightSource> others = new ArrayList<>();
+        for (LightSource light : lights)
+            if (light instanceof PointLight pointLight) pointLights.add(pointLight);
+            else others.add(light);
+        size = pointLights.size();
+        globalLights = Collections.unmodifiableList(others);
+        root = size == 0 ? null : build(pointLights);
+    }
+
+    /**
+     * Builds a subtree by median splits along the longest axis of the positions
+     *
+     * @param lights the lights of the subtree, reordered by the build
+     * @return the root of the subtree
+     */
+    private static Node build(List<PointLight> lights) {
+        if (lights.size() == 1) return new Node(lights.get(0));
+        BoundingBox box = BoundingBox.of(lights.stream().map(PointLight::getPosition).toArray(Point[]::new));
+        double ex = box.maxX - box.minX, ey = box.maxY - box.minY, ez = box.maxZ - box.minZ;
+        Comparator<PointLight> order = ex >= ey && ex >= ez ? Comparator.comparingDouble(l -> l.getPosition().getX())
+                : ey >= ez ? Comparator.comparingDouble(l -> l.getPosition().getY())
+                : Comparator.comparingDouble(l -> l.getPosition().getZ());
+        lights.sort(order);
+        int mid = lights.size() / 2;
+        return new Node(build(lights.subList(0, mid)), build(lights.subList(mid, lights.size())));
+    }
+
+    /**
+     * Samples a light of the tree for a point, in proportion to the importance of the lights
+     *
+     * @param point the shaded point
+     * @param u     a uniform random number in [0,1)
+     * @return the sampled light, null if there are no lights or none can light the point
+     */
+    public Sample sample(Point point, double u) {
+        if (root == null) return null;
+        Node node = root;
+        double probability = 1;
+        while (node.light == null) {
+            double left = node.left.importance(point);
+            double total = left + node.right.importance(point);
+            if (total == 0) return null;
+            double p = left / total;
+            if (u < p) {
+                node = node.left;
+                u /= p;
+                probability *= p;
+            } else {
+                node = node.right;
+                u = (u - p) / (1 - p);
+                probability *= 1 - p;
+            }
+        }
+        return new Sample(node.light, probability);
+    }
+
+    /**
+     * Returns the amount of the lights in the tree
+     *
+     * @return the amount of the sampled lights
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the lights that are not in the tree and are always shaded
+     *
+     * @return unmodifiable list of the global lights
+     */
+    public List<LightSource> getGlobalLights() {
+        return globalLights;
+    }
+}
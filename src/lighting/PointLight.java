@@ -13,6 +13,7 @@ public class PointLight extends Light implements LightSource{
     private double kC = 1;
     private double kL = 0;
     private double kQ = 0;
+    private double influenceRadius = Double.POSITIVE_INFINITY;
 
     /**
      * constructor for PointLight
@@ -57,6 +58,55 @@ public class PointLight extends Light implements LightSource{
         return this;
     }
 
+    /**
+     * setter for the radius of influence - the points farther from the light are not lighted by it
+     *
+     * @param influenceRadius the radius of influence
+     * @return the light itself
+     */
+    public PointLight setInfluenceRadius(double influenceRadius) {
+        if (influenceRadius <= 0)
+            throw new IllegalArgumentException("Radius of influence must be positive");
+        this.influenceRadius = influenceRadius;
+        return this;
+    }
+
+    /**
+     * getter for the position of the light
+     *
+     * @return the position
+     */
+    Point getPosition() {
+        return position;
+    }
+
+    /**
+     * getter for kC in phong model
+     *
+     * @return constant attenuation factor
+     */
+    double getKc() {
+        return kC;
+    }
+
+    /**
+     * getter for kL in phong model
+     *
+     * @return linear attenuation factor
+     */
+    double getKl() {
+        return kL;
+    }
+
+    /**
+     * getter for kQ in phong model
+     *
+     * @return quadratic attenuation factor
+     */
+    double getKq() {
+        return kQ;
+    }
+
     // ***************** Functions ********************** //
 
     @Override
@@ -69,11 +119,16 @@ public class PointLight extends Light implements LightSource{
 
     @Override
     public Vector getL(Point p) {
-        return p.subtract(this.position).normalize();
+        return p.subtractUnchecked(this.position).normalizeUnchecked();
     }
 
 
     public double getDistance(Point point) {
         return this.position.distance(point);
     }
+
+    @Override
+    public double getInfluenceRadius() {
+        return influenceRadius;
+    }
 }
\ No newline at end of file
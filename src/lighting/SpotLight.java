@@ -57,6 +57,17 @@ public class SpotLight extends PointLight {
         return this;
     }
 
+    /**
+     * setter for the radius of influence - the points farther from the light are not lighted by it
+     *
+     * @param influenceRadius the radius of influence
+     * @return the light itself
+     */
+    public SpotLight setInfluenceRadius(double influenceRadius) {
+        super.setInfluenceRadius(influenceRadius);
+        return this;
+    }
+
     @Override
     public Color getIntensity(Point p) {
         double projection = alignZero(direction.dotProduct(getL(p)));
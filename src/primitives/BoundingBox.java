@@ -0,0 +1,167 @@
+package primitives;
+
+/**
+ * Axis aligned bounding box (AABB) in 3D space, defined by its minimal and maximal
+ * coordinates along each axis.
+ */
+public class BoundingBox {
+    /**
+     * Minimal x coordinate of the box
+     */
+    public final double minX;
+    /**
+     * Minimal y coordinate of the box
+     */
+    public final double minY;
+    /**
+     * Minimal z coordinate of the box
+     */
+    public final double minZ;
+    /**
+     * Maximal x coordinate of the box
+     */
+    public final double maxX;
+    /**
+     * Maximal y coordinate of the box
+     */
+    public final double maxY;
+    /**
+     * Maximal z coordinate of the box
+     */
+    public final double maxZ;
+
+    /**
+     * Constructs a bounding box by its minimal and maximal coordinates
+     *
+     * @param minX minimal x coordinate
+     * @param minY minimal y coordinate
+     * @param minZ minimal z coordinate
+     * @param maxX maximal x coordinate
+     * @param maxY maximal y coordinate
+     * @param maxZ maximal z coordinate
+     * @throws IllegalArgumentException if a minimal coordinate is bigger than the maximal one
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        if (minX > maxX || minY > maxY || minZ > maxZ)
+            throw new IllegalArgumentException("Minimal coordinates of a box must not exceed its maximal ones");
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest bounding box containing all the given points
+     *
+     * @param points the points
+     * @return the bounding box of the points
+     */
+    public static BoundingBox of(Point... points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            minX = Math.min(minX, p.xyz.d1);
+            minY = Math.min(minY, p.xyz.d2);
+            minZ = Math.min(minZ, p.xyz.d3);
+            maxX = Math.max(maxX, p.xyz.d1);
+            maxY = Math.max(maxY, p.xyz.d2);
+            maxZ = Math.max(maxZ, p.xyz.d3);
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Calculates the inverse of a ray direction component for the slab tests. A zero
+     * component is replaced by the smallest normal number, so the slab distances become
+     * infinite (or zero for a ray starting on the slab) instead of NaN.
+     *
+     * @param d the direction component
+     * @return the inverse of the component
+     */
+    public static double inverse(double d) {
+        return 1 / (d == 0 ? Double.MIN_NORMAL : d);
+    }
+
+    /**
+     * Calculates the smallest bounding box containing both this box and another one
+     *
+     * @param other the other box
+     * @return the united box
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Calculates the squared distance of a point from the box
+     *
+     * @param point the point
+     * @return the squared distance, 0 if the point is inside the box
+     */
+    public double distanceSquared(Point point) {
+        Double3 p = point.xyz;
+        double dx = Math.max(0, Math.max(minX - p.d1, p.d1 - maxX));
+        double dy = Math.max(0, Math.max(minY - p.d2, p.d2 - maxY));
+        double dz = Math.max(0, Math.max(minZ - p.d3, p.d3 - maxZ));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Calculates the surface area of the box
+     *
+     * @return the surface area
+     */
+    public double surfaceArea() {
+        double ex = maxX - minX, ey = maxY - minY, ez = maxZ - minZ;
+        return 2 * (ex * ey + ey * ez + ez * ex);
+    }
+
+    /**
+     * Checks whether a ray crosses the box in front of its head (slab test)
+     *
+     * @param ray the ray
+     * @return true if the ray crosses the box
+     */
+    public boolean intersects(Ray ray) {
+        Double3 head = ray.head.xyz;
+        Double3 direction = ray.direction.xyz;
+        double invDx = inverse(direction.d1), invDy = inverse(direction.d2), invDz = inverse(direction.d3);
+        double tx1 = (minX - head.d1) * invDx, tx2 = (maxX - head.d1) * invDx;
+        double ty1 = (minY - head.d2) * invDy, ty2 = (maxY - head.d2) * invDy;
+        double tz1 = (minZ - head.d3) * invDz, tz2 = (maxZ - head.d3) * invDz;
+        double tNear = Math.max(Math.max(Math.min(tx1, tx2), Math.min(ty1, ty2)), Math.min(tz1, tz2));
+        double tFar = Math.min(Math.min(Math.max(tx1, tx2), Math.max(ty1, ty2)), Math.max(tz1, tz2));
+        return tNear <= tFar && tFar > 0;
+    }
+
+    /**
+     * Checks whether any ray of a packet may hit something inside the box closer than the
+     * nearest hit the ray has already found (slab test per lane)
+     *
+     * @param packet the ray packet
+     * @return true if at least one active ray of the packet crosses the box in front of its nearest hit
+     */
+    public boolean intersects(RayPacket packet) {
+        boolean any = false;
+        for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+            double tx1 = (minX - packet.ox[lane]) * packet.invDx[lane];
+            double tx2 = (maxX - packet.ox[lane]) * packet.invDx[lane];
+            double ty1 = (minY - packet.oy[lane]) * packet.invDy[lane];
+            double ty2 = (maxY - packet.oy[lane]) * packet.invDy[lane];
+            double tz1 = (minZ - packet.oz[lane]) * packet.invDz[lane];
+            double tz2 = (maxZ - packet.oz[lane]) * packet.invDz[lane];
+            double tNear = Math.max(Math.max(Math.min(tx1, tx2), Math.min(ty1, ty2)), Math.min(tz1, tz2));
+            double tFar = Math.min(Math.min(Math.max(tx1, tx2), Math.max(ty1, ty2)), Math.max(tz1, tz2));
+            any |= tNear <= tFar && tFar > 0 && tNear < packet.t[lane];
+        }
+        return any;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{(" + minX + "," + minY + "," + minZ + ")-(" + maxX + "," + maxY + "," + maxZ + ")}";
+    }
+}
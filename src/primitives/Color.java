@@ -101,6 +101,44 @@ public class Color {
       return new Color(rgb.scale(k));
    }
 
+   /**
+    * Sum the color components - a measure of the power of a light of the color
+    * @return the sum of the RGB components
+    */
+   public double brightness() { return rgb.d1 + rgb.d2 + rgb.d3; }
+
+   /**
+    * Adds the color scaled by factors per rgb to a buffer of raw RGB sums, three numbers
+    * per entry - for the batch loops that sum the colors of many pixels in a primitive array
+    * without creating a color for every term
+    * @param sums  the buffer of the sums
+    * @param entry the entry the color is added to
+    * @param kr    scale factor of the red component
+    * @param kg    scale factor of the green component
+    * @param kb    scale factor of the blue component
+    */
+   public void addTo(double[] sums, int entry, double kr, double kg, double kb) {
+      sums[3 * entry] += rgb.d1 * kr;
+      sums[3 * entry + 1] += rgb.d2 * kg;
+      sums[3 * entry + 2] += rgb.d3 * kb;
+   }
+
+   /**
+    * Adds the color scaled by a triad of factors to a buffer of raw RGB sums, three numbers
+    * per entry
+    * @param sums  the buffer of the sums
+    * @param entry the entry the color is added to
+    * @param k     scale factors of the rgb components
+    */
+   public void addTo(double[] sums, int entry, Double3 k) { addTo(sums, entry, k.d1, k.d2, k.d3); }
+
+   /**
+    * Checks whether all the color components are lower than a level
+    * @param  level the level
+    * @return       true if every RGB component is lower than the level
+    */
+   public boolean lowerThan(double level) { return rgb.lowerThan(level); }
+
    /**
     * Scale the color by (1 / reduction factor)
     * @param  k reduction factor
@@ -114,6 +152,90 @@ public class Color {
    @Override
    public String toString() { return "rgb:" + rgb; }
 
+   /**
+    * Mutable sum of colors on raw RGB numbers, for the inner loops of the shading and of
+    * the sampling, where adding immutable colors would allocate a new color (and a varargs
+    * array) for every term. The terms are not validated - the immutable color is produced
+    * (and validated) once, when the sum is complete. An accumulator is not thread safe, it is
+    * meant to be kept per thread.
+    */
+   public static final class Accumulator {
+      /** Red component of the sum */
+      private double r;
+      /** Green component of the sum */
+      private double g;
+      /** Blue component of the sum */
+      private double b;
+
+      /**
+       * Clears the sum to black
+       * @return the accumulator itself
+       */
+      public Accumulator reset() {
+         r = g = b = 0;
+         return this;
+      }
+
+      /**
+       * Adds a color to the sum
+       * @param  color the color to add
+       * @return       the accumulator itself
+       */
+      public Accumulator add(Color color) {
+         r += color.rgb.d1;
+         g += color.rgb.d2;
+         b += color.rgb.d3;
+         return this;
+      }
+
+      /**
+       * Adds a color scaled by a scalar triad per rgb to the sum
+       * @param  color the color to add
+       * @param  k     scale factor per rgb
+       * @return       the accumulator itself
+       */
+      public Accumulator add(Color color, Double3 k) {
+         r += color.rgb.d1 * k.d1;
+         g += color.rgb.d2 * k.d2;
+         b += color.rgb.d3 * k.d3;
+         return this;
+      }
+
+      /**
+       * Adds a light reflected by the Phong model to the sum:
+       * light * k * (kD * diffuse + kS * specular)
+       * @param  light    intensity of the light
+       * @param  k        attenuation factor per rgb
+       * @param  kD       diffusive attenuation factor per rgb
+       * @param  diffuse  the diffusive factor of the light direction
+       * @param  kS       specular attenuation factor per rgb
+       * @param  specular the specular factor of the light direction
+       * @return          the accumulator itself
+       */
+      public Accumulator add(Color light, Double3 k, Double3 kD, double diffuse, Double3 kS, double specular) {
+         r += light.rgb.d1 * k.d1 * (kD.d1 * diffuse + kS.d1 * specular);
+         g += light.rgb.d2 * k.d2 * (kD.d2 * diffuse + kS.d2 * specular);
+         b += light.rgb.d3 * k.d3 * (kD.d3 * diffuse + kS.d3 * specular);
+         return this;
+      }
+
+      /**
+       * Produces the color of the sum
+       * @return the color
+       */
+      public Color toColor() { return new Color(r, g, b); }
+
+      /**
+       * Produces the average color of the summed colors
+       * @param  count the amount of the summed colors
+       * @return       the average color
+       */
+      public Color average(int count) {
+         if (count < 1) throw new IllegalArgumentException("Can't average less than one color");
+         return new Color(r / count, g / count, b / count);
+      }
+   }
+
    /**
     * Check if the color is equal to another color
     * @param  baseColor the color to compare with
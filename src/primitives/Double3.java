@@ -124,4 +124,15 @@ public class Double3 {
      * @return   true if all the numbers are greater than k, false otherwise
      */
    public boolean greaterThan(double other) { return d1 > other && d2 > other && d3 > other; }
+
+   /**
+    * Copies the three numbers into a buffer of triads, three numbers per entry
+    * @param values the buffer of the triads
+    * @param entry  the entry the numbers are copied to
+    */
+   public void copyTo(double[] values, int entry) {
+      values[3 * entry] = d1;
+      values[3 * entry + 1] = d2;
+      values[3 * entry + 2] = d3;
+   }
 }
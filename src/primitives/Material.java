@@ -1,5 +1,10 @@
 package primitives;
 
+/**
+ * Material of a geometry body for the Phong model. The materials of the geometries are
+ * interned in the shared {@link MaterialTable} - a geometry keeps the index of the values of
+ * its material, and the interned snapshot cannot be changed.
+ */
 public class Material {
     /**
      * Diffuse attenuation factor
@@ -21,6 +26,30 @@ public class Material {
      * Shininess factor
      */
     public int nShininess = 0;
+    /**
+     * Whether the material is an interned snapshot, which cannot be changed
+     */
+    private boolean interned = false;
+
+    /**
+     * Marks the material as an interned snapshot, which cannot be changed
+     *
+     * @return the material itself
+     */
+    Material intern() {
+        interned = true;
+        return this;
+    }
+
+    /**
+     * Checks that the material can be changed
+     *
+     * @throws UnsupportedOperationException if the material is an interned snapshot
+     */
+    private void checkMutable() {
+        if (interned)
+            throw new UnsupportedOperationException("An interned material cannot be changed");
+    }
 
 
     /**
@@ -28,8 +57,10 @@ public class Material {
      *
      * @param kD diffuse attenuation factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setKd(Double3 kD) {
+        checkMutable();
         this.kD = kD;
         return this;
     }
@@ -39,8 +70,10 @@ public class Material {
      *
      * @param kD diffuse attenuation factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setKd(double kD) {
+        checkMutable();
         this.kD = new Double3(kD);
         return this;
     }
@@ -50,8 +83,10 @@ public class Material {
      *
      * @param kS specular attenuation factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setKs(Double3 kS) {
+        checkMutable();
         this.kS = kS;
         return this;
     }
@@ -61,8 +96,10 @@ public class Material {
      *
      * @param kS specular attenuation factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setKs(double kS) {
+        checkMutable();
         this.kS = new Double3(kS);
         return this;
     }
@@ -72,8 +109,10 @@ public class Material {
      *
      * @param ns shininess factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setShininess(int ns) {
+        checkMutable();
         nShininess = ns;
         return this;
     }
@@ -83,8 +122,10 @@ public class Material {
      *
      * @param kT refraction attenuation factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setKt(Double3 kT) {
+        checkMutable();
         this.kT = kT;
         return this;
     }
@@ -94,8 +135,10 @@ public class Material {
      *
      * @param kT refraction attenuation factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setKt(double kT) {
+        checkMutable();
         this.kT = new Double3(kT);
         return this;
     }
@@ -105,8 +148,10 @@ public class Material {
      *
      * @param kR reflection attenuation factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setKr(Double3 kR) {
+        checkMutable();
         this.kR = kR;
         return this;
     }
@@ -116,8 +161,10 @@ public class Material {
      *
      * @param kR reflection attenuation factor
      * @return the material itself
+     * @throws UnsupportedOperationException if the material is an interned snapshot
      */
     public Material setKr(double kR) {
+        checkMutable();
         this.kR = new Double3(kR);
         return this;
     }
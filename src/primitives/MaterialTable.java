@@ -0,0 +1,110 @@
+package primitives;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MaterialTable interns the values of materials - equal materials are kept once and are
+ * referred to by a small index into the table. The geometries keep the index of their
+ * material (see {@link geometries.Geometry#getMaterialIndex()}), so the thousands of equal
+ * materials created by scene generators map to a single shared material and the geometries
+ * can be shaded grouped by their material index.<br/>
+ * The table keeps an immutable snapshot of the values of every interned material, so changing
+ * a material after interning it does not change the table - interning it again gives the index
+ * of its new values. The table only grows - values stay in it once they are interned.
+ */
+public final class MaterialTable {
+    /**
+     * The table the materials of the geometries are interned in
+     */
+    public static final MaterialTable SHARED = new MaterialTable();
+    /**
+     * Initial capacity of a table
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The values of a material, as a key of equal materials
+     *
+     * @param kD         the diffusive attenuation factor
+     * @param kS         the specular attenuation factor
+     * @param kT         the transparency attenuation factor
+     * @param kR         the reflection attenuation factor
+     * @param nShininess the shininess
+     */
+    private record Key(Double3 kD, Double3 kS, Double3 kT, Double3 kR, int nShininess) {
+        /**
+         * Creates the key of a material
+         *
+         * @param material the material
+         */
+        Key(Material material) {
+            this(material.kD, material.kS, material.kT, material.kR, material.nShininess);
+        }
+
+        /**
+         * Creates the immutable snapshot of the values
+         *
+         * @return the interned material
+         */
+        Material toMaterial() {
+            return new Material().setKd(kD).setKs(kS).setKt(kT).setKr(kR).setShininess(nShininess).intern();
+        }
+    }
+
+    /**
+     * The interned snapshots by their indices, republished on every change so the materials can
+     * be read without locking
+     */
+    private volatile Material[] materials = new Material[INITIAL_CAPACITY];
+    /**
+     * Amount of the interned materials
+     */
+    private int size = 0;
+    /**
+     * Index of each interned material
+     */
+    private final Map<Key, Integer> indices = new HashMap<>();
+
+    /**
+     * Interns a material
+     *
+     * @param material the material
+     * @return the index of the current values of the material
+     */
+    public synchronized int intern(Material material) {
+        if (material == null) throw new IllegalArgumentException("Cannot intern a null material");
+        Key key = new Key(material);
+        Integer index = indices.get(key);
+        if (index != null) return index;
+        Material[] table = size == materials.length ? Arrays.copyOf(materials, size * 2) : materials;
+        table[size] = key.toMaterial();
+        indices.put(key, size);
+        materials = table;
+        return size++;
+    }
+
+    /**
+     * Returns an interned material
+     *
+     * @param index the index of the material
+     * @return the shared snapshot of the values, which cannot be changed
+     * @throws IndexOutOfBoundsException if no material was interned at the index
+     */
+    public Material get(int index) {
+        Material[] table = materials;
+        Material material = index >= 0 && index < table.length ? table[index] : null;
+        if (material == null) throw new IndexOutOfBoundsException("No material at index " + index);
+        return material;
+    }
+
+    /**
+     * Returns the amount of the interned materials
+     *
+     * @return the amount of the materials
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
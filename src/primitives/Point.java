@@ -119,4 +119,15 @@ public class Point {
         return new Vector(xyz.subtract(point.xyz));
     }
 
+    /**
+     * Subtracts another point from this point without checking for equal points - for
+     * trusted hot loops only
+     *
+     * @param point the other point
+     * @return the resulting vector
+     */
+    public Vector subtractUnchecked(Point point) {
+        return Vector.unchecked(xyz.d1 - point.xyz.d1, xyz.d2 - point.xyz.d2, xyz.d3 - point.xyz.d3);
+    }
+
 }
@@ -26,7 +26,7 @@ public class Ray {
      */
     public Ray(Point head, Vector direction) {
         this.head = head;
-        this.direction = direction.normalize();
+        this.direction = unit(direction);
     }
 
     /**
@@ -38,9 +38,20 @@ public class Ray {
      */
     public Ray(Point head, Vector direction, Vector normal){
         // Move the starting point slightly in the direction of the reflected ray to avoid self-intersection
-        Vector deltaVector = normal.scale(normal.dotProduct(direction) > 0 ? DELTA : -DELTA);
+        Vector deltaVector = normal.scaleUnchecked(normal.dotProduct(direction) > 0 ? DELTA : -DELTA);
         this.head = head.add(deltaVector);
-        this.direction = direction.normalize();
+        this.direction = unit(direction);
+    }
+
+    /**
+     * Returns the unit vector of a direction - the direction itself when it is already
+     * normalized, as are most directions of the secondary rays
+     *
+     * @param direction the direction
+     * @return the normalized direction
+     */
+    private static Vector unit(Vector direction) {
+        return isZero(direction.lengthSquared() - 1) ? direction : direction.normalize();
     }
 
     /**
@@ -73,7 +84,7 @@ public class Ray {
         if (isZero(t)) {
             return head;
         }
-        return head.add(direction.scale(t));
+        return head.add(direction.scaleUnchecked(t));
     }
 
     @Override
@@ -0,0 +1,190 @@
+package primitives;
+
+import geometries.Geometry;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.List;
+
+/**
+ * A packet of coherent rays (e.g. primary rays of a 2x2 pixels block) stored as
+ * structure-of-arrays: every ray component is kept in its own array, one lane per ray.
+ * The packet also holds the nearest hit found so far for each of its rays, so the
+ * geometries can be intersected with the whole packet at once.<br/>
+ * Packets that hold less rays than {@link #WIDTH} keep the unused lanes as copies of
+ * the first ray with a zero nearest hit distance, so the lane loops can always run over
+ * all the lanes and nothing is ever recorded for the unused lanes.
+ */
+public class RayPacket {
+    /**
+     * The amount of rays in a packet
+     */
+    public static final int WIDTH = 4;
+
+    /**
+     * X coordinate of the head of each ray
+     */
+    public final double[] ox = new double[WIDTH];
+    /**
+     * Y coordinate of the head of each ray
+     */
+    public final double[] oy = new double[WIDTH];
+    /**
+     * Z coordinate of the head of each ray
+     */
+    public final double[] oz = new double[WIDTH];
+    /**
+     * X component of the (normalized) direction of each ray
+     */
+    public final double[] dx = new double[WIDTH];
+    /**
+     * Y component of the (normalized) direction of each ray
+     */
+    public final double[] dy = new double[WIDTH];
+    /**
+     * Z component of the (normalized) direction of each ray
+     */
+    public final double[] dz = new double[WIDTH];
+    /**
+     * Inverse of the x component of the direction of each ray
+     */
+    public final double[] invDx = new double[WIDTH];
+    /**
+     * Inverse of the y component of the direction of each ray
+     */
+    public final double[] invDy = new double[WIDTH];
+    /**
+     * Inverse of the z component of the direction of each ray
+     */
+    public final double[] invDz = new double[WIDTH];
+    /**
+     * Distance of the nearest hit found so far for each ray
+     */
+    public final double[] t = new double[WIDTH];
+    /**
+     * The nearest hit found so far for each ray, null if none
+     */
+    public final GeoPoint[] hits = new GeoPoint[WIDTH];
+    /**
+     * The rays of the packet, created on demand for a packet loaded from coordinates
+     */
+    private final Ray[] rays = new Ray[WIDTH];
+    /**
+     * The amount of active rays in the packet
+     */
+    private int size = 0;
+
+    /**
+     * Loads up to {@link #WIDTH} rays into the packet and resets their nearest hits
+     *
+     * @param rays  list of rays
+     * @param first index of the first ray of the list to load
+     */
+    public void load(List<Ray> rays, int first) {
+        size = Math.min(WIDTH, rays.size() - first);
+        if (size < 1) throw new IllegalArgumentException("There are no rays to load");
+        for (int lane = 0; lane < WIDTH; ++lane) {
+            Ray ray = rays.get(first + (lane < size ? lane : 0));
+            Double3 head = ray.head.xyz;
+            Double3 direction = ray.direction.xyz;
+            this.rays[lane] = ray;
+            ox[lane] = head.d1;
+            oy[lane] = head.d2;
+            oz[lane] = head.d3;
+            dx[lane] = direction.d1;
+            dy[lane] = direction.d2;
+            dz[lane] = direction.d3;
+            invDx[lane] = BoundingBox.inverse(direction.d1);
+            invDy[lane] = BoundingBox.inverse(direction.d2);
+            invDz[lane] = BoundingBox.inverse(direction.d3);
+            t[lane] = lane < size ? Double.POSITIVE_INFINITY : 0;
+            hits[lane] = null;
+        }
+    }
+
+    /**
+     * Loads up to {@link #WIDTH} rays given by their coordinates into the packet and resets
+     * their nearest hits. The ray objects are created only when they are needed - for a
+     * geometry without a packet test or for a recorded hit.
+     *
+     * @param ox    x coordinates of the ray heads
+     * @param oy    y coordinates of the ray heads
+     * @param oz    z coordinates of the ray heads
+     * @param dx    x components of the (normalized) ray directions
+     * @param dy    y components of the ray directions
+     * @param dz    z components of the ray directions
+     * @param first index of the first ray to load
+     * @param count amount of the rays in the arrays
+     */
+    public void load(double[] ox, double[] oy, double[] oz, double[] dx, double[] dy, double[] dz,
+                     int first, int count) {
+        size = Math.min(WIDTH, count - first);
+        if (size < 1) throw new IllegalArgumentException("There are no rays to load");
+        for (int lane = 0; lane < WIDTH; ++lane) {
+            int i = first + (lane < size ? lane : 0);
+            rays[lane] = null;
+            this.ox[lane] = ox[i];
+            this.oy[lane] = oy[i];
+            this.oz[lane] = oz[i];
+            this.dx[lane] = dx[i];
+            this.dy[lane] = dy[i];
+            this.dz[lane] = dz[i];
+            invDx[lane] = BoundingBox.inverse(dx[i]);
+            invDy[lane] = BoundingBox.inverse(dy[i]);
+            invDz[lane] = BoundingBox.inverse(dz[i]);
+            t[lane] = lane < size ? Double.POSITIVE_INFINITY : 0;
+            hits[lane] = null;
+        }
+    }
+
+    /**
+     * Returns the amount of active rays in the packet
+     *
+     * @return the amount of active rays
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a ray of the packet
+     *
+     * @param lane the lane of the ray
+     * @return the ray
+     */
+    public Ray getRay(int lane) {
+        Ray ray = rays[lane];
+        if (ray == null)
+            rays[lane] = ray = new Ray(new Point(ox[lane], oy[lane], oz[lane]),
+                    Vector.unchecked(dx[lane], dy[lane], dz[lane]));
+        return ray;
+    }
+
+    /**
+     * Records a hit of a ray if it is closer than the nearest hit found so far.
+     * The hit point is created only if the hit is recorded.
+     *
+     * @param lane     the lane of the ray
+     * @param distance distance of the hit from the head of the ray
+     * @param geometry the hit geometry
+     */
+    public void record(int lane, double distance, Geometry geometry) {
+        if (distance > 0 && distance < t[lane]) {
+            t[lane] = distance;
+            hits[lane] = new GeoPoint(geometry, getRay(lane).getPoint(distance));
+        }
+    }
+
+    /**
+     * Records a hit of a ray if it is closer than the nearest hit found so far
+     *
+     * @param lane     the lane of the ray
+     * @param distance distance of the hit from the head of the ray
+     * @param geoPoint the hit
+     */
+    public void record(int lane, double distance, GeoPoint geoPoint) {
+        if (distance > 0 && distance < t[lane]) {
+            t[lane] = distance;
+            hits[lane] = geoPoint;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package primitives;
+
+import static primitives.Util.isZero;
+
+/**
+ * Affine transformation of the 3D space - a 3x3 linear part and a translation.
+ * The transformation is immutable and keeps its inverse, so points, directions and normals
+ * can be moved between the object space of an instanced model and the world space.
+ */
+public final class Transform {
+    /**
+     * The identity transformation
+     */
+    public static final Transform IDENTITY = new Transform(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0);
+
+    /**
+     * First row of the matrix - the linear part and the translation
+     */
+    private final double m00, m01, m02, m03;
+    /**
+     * Second row of the matrix - the linear part and the translation
+     */
+    private final double m10, m11, m12, m13;
+    /**
+     * Third row of the matrix - the linear part and the translation
+     */
+    private final double m20, m21, m22, m23;
+    /**
+     * The inverse transformation, created lazily
+     */
+    private Transform inverse = null;
+
+    /**
+     * Constructs a transformation by its matrix rows
+     *
+     * @param m00 row 0, column 0
+     * @param m01 row 0, column 1
+     * @param m02 row 0, column 2
+     * @param m03 row 0, translation
+     * @param m10 row 1, column 0
+     * @param m11 row 1, column 1
+     * @param m12 row 1, column 2
+     * @param m13 row 1, translation
+     * @param m20 row 2, column 0
+     * @param m21 row 2, column 1
+     * @param m22 row 2, column 2
+     * @param m23 row 2, translation
+     * @throws IllegalArgumentException if the linear part is not invertible
+     */
+    private Transform(double m00, double m01, double m02, double m03,
+                      double m10, double m11, double m12, double m13,
+                      double m20, double m21, double m22, double m23) {
+        // the determinant relative to the scale of the linear part, so tiny scalings stay invertible
+        double norm = maxAbs(m00, m01, m02, m10, m11, m12, m20, m21, m22);
+        double det = m00 * (m11 * m22 - m12 * m21) - m01 * (m10 * m22 - m12 * m20) + m02 * (m10 * m21 - m11 * m20);
+        if (norm == 0 || isZero(det / (norm * norm * norm)))
+            throw new IllegalArgumentException("Transformation must be invertible");
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m03 = m03;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+        this.m13 = m13;
+        this.m20 = m20;
+        this.m21 = m21;
+        this.m22 = m22;
+        this.m23 = m23;
+    }
+
+    /**
+     * Finds the largest absolute value of numbers
+     *
+     * @param values the numbers
+     * @return the largest absolute value
+     */
+    private static double maxAbs(double... values) {
+        double max = 0;
+        for (double value : values)
+            max = Math.max(max, Math.abs(value));
+        return max;
+    }
+
+    /**
+     * Creates a translation
+     *
+     * @param v the translation vector
+     * @return the translation
+     */
+    public static Transform translation(Vector v) {
+        return new Transform(1, 0, 0, v.xyz.d1, 0, 1, 0, v.xyz.d2, 0, 0, 1, v.xyz.d3);
+    }
+
+    /**
+     * Creates a uniform scaling around the origin
+     *
+     * @param s the scale factor
+     * @return the scaling
+     */
+    public static Transform scaling(double s) {
+        return scaling(s, s, s);
+    }
+
+    /**
+     * Creates a scaling around the origin along the axes
+     *
+     * @param sx the scale factor along the x axis
+     * @param sy the scale factor along the y axis
+     * @param sz the scale factor along the z axis
+     * @return the scaling
+     * @throws IllegalArgumentException if any of the factors is zero
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        return new Transform(sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0);
+    }
+
+    /**
+     * Creates a rotation around an axis through the origin (right-hand rule)
+     *
+     * @param axis  the rotation axis
+     * @param angle the rotation angle in degrees
+     * @return the rotation
+     */
+    public static Transform rotation(Vector axis, double angle) {
+        Vector u = axis.normalize();
+        double x = u.xyz.d1, y = u.xyz.d2, z = u.xyz.d3;
+        double radians = Math.toRadians(angle);
+        double c = Math.cos(radians), s = Math.sin(radians), t = 1 - c;
+        return new Transform(
+                t * x * x + c, t * x * y - s * z, t * x * z + s * y, 0,
+                t * x * y + s * z, t * y * y + c, t * y * z - s * x, 0,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c, 0);
+    }
+
+    /**
+     * Composes this transformation with another one, applied after it
+     *
+     * @param next the transformation applied after this one
+     * @return the composed transformation
+     */
+    public Transform then(Transform next) {
+        return new Transform(
+                next.m00 * m00 + next.m01 * m10 + next.m02 * m20,
+                next.m00 * m01 + next.m01 * m11 + next.m02 * m21,
+                next.m00 * m02 + next.m01 * m12 + next.m02 * m22,
+                next.m00 * m03 + next.m01 * m13 + next.m02 * m23 + next.m03,
+                next.m10 * m00 + next.m11 * m10 + next.m12 * m20,
+                next.m10 * m01 + next.m11 * m11 + next.m12 * m21,
+                next.m10 * m02 + next.m11 * m12 + next.m12 * m22,
+                next.m10 * m03 + next.m11 * m13 + next.m12 * m23 + next.m13,
+                next.m20 * m00 + next.m21 * m10 + next.m22 * m20,
+                next.m20 * m01 + next.m21 * m11 + next.m22 * m21,
+                next.m20 * m02 + next.m21 * m12 + next.m22 * m22,
+                next.m20 * m03 + next.m21 * m13 + next.m22 * m23 + next.m23);
+    }
+
+    /**
+     * Returns the inverse transformation
+     *
+     * @return the inverse transformation
+     */
+    public Transform inverse() {
+        Transform result = inverse;
+        if (result == null) {
+            // inverse of the linear part by the adjugate matrix
+            double c00 = m11 * m22 - m12 * m21, c01 = m02 * m21 - m01 * m22, c02 = m01 * m12 - m02 * m11;
+            double c10 = m12 * m20 - m10 * m22, c11 = m00 * m22 - m02 * m20, c12 = m02 * m10 - m00 * m12;
+            double c20 = m10 * m21 - m11 * m20, c21 = m01 * m20 - m00 * m21, c22 = m00 * m11 - m01 * m10;
+            double det = m00 * c00 + m01 * c10 + m02 * c20;
+            c00 /= det;
+            c01 /= det;
+            c02 /= det;
+            c10 /= det;
+            c11 /= det;
+            c12 /= det;
+            c20 /= det;
+            c21 /= det;
+            c22 /= det;
+            result = new Transform(
+                    c00, c01, c02, -(c00 * m03 + c01 * m13 + c02 * m23),
+                    c10, c11, c12, -(c10 * m03 + c11 * m13 + c12 * m23),
+                    c20, c21, c22, -(c20 * m03 + c21 * m13 + c22 * m23));
+            result.inverse = this;
+            inverse = result;
+        }
+        return result;
+    }
+
+    /**
+     * Transforms a point
+     *
+     * @param p the point
+     * @return the transformed point
+     */
+    public Point apply(Point p) {
+        double x = p.xyz.d1, y = p.xyz.d2, z = p.xyz.d3;
+        return new Point(m00 * x + m01 * y + m02 * z + m03,
+                m10 * x + m11 * y + m12 * z + m13,
+                m20 * x + m21 * y + m22 * z + m23);
+    }
+
+    /**
+     * Transforms a direction vector - the translation does not affect it
+     *
+     * @param v the vector
+     * @return the transformed vector, not normalized
+     */
+    public Vector apply(Vector v) {
+        double x = v.xyz.d1, y = v.xyz.d2, z = v.xyz.d3;
+        return new Vector(m00 * x + m01 * y + m02 * z,
+                m10 * x + m11 * y + m12 * z,
+                m20 * x + m21 * y + m22 * z);
+    }
+
+    /**
+     * Transforms a normal vector - by the transposed inverse of the linear part, so it
+     * stays orthogonal to the transformed surface
+     *
+     * @param n the normal
+     * @return the transformed normal, normalized
+     */
+    public Vector applyToNormal(Vector n) {
+        Transform inv = inverse();
+        double x = n.xyz.d1, y = n.xyz.d2, z = n.xyz.d3;
+        return new Vector(inv.m00 * x + inv.m10 * y + inv.m20 * z,
+                inv.m01 * x + inv.m11 * y + inv.m21 * z,
+                inv.m02 * x + inv.m12 * y + inv.m22 * z).normalize();
+    }
+
+    /**
+     * Transforms a ray - its head and its direction
+     *
+     * @param ray the ray
+     * @return the transformed ray
+     */
+    public Ray apply(Ray ray) {
+        return new Ray(apply(ray.head), apply(ray.direction));
+    }
+
+    /**
+     * Calculates the bounding box of a transformed box
+     *
+     * @param box the box
+     * @return the bounding box of the transformed corners of the box
+     */
+    public BoundingBox apply(BoundingBox box) {
+        // each coordinate of the result is extreme when each term of the row is extreme
+        return new BoundingBox(
+                m03 + Math.min(m00 * box.minX, m00 * box.maxX) + Math.min(m01 * box.minY, m01 * box.maxY)
+                        + Math.min(m02 * box.minZ, m02 * box.maxZ),
+                m13 + Math.min(m10 * box.minX, m10 * box.maxX) + Math.min(m11 * box.minY, m11 * box.maxY)
+                        + Math.min(m12 * box.minZ, m12 * box.maxZ),
+                m23 + Math.min(m20 * box.minX, m20 * box.maxX) + Math.min(m21 * box.minY, m21 * box.maxY)
+                        + Math.min(m22 * box.minZ, m22 * box.maxZ),
+                m03 + Math.max(m00 * box.minX, m00 * box.maxX) + Math.max(m01 * box.minY, m01 * box.maxY)
+                        + Math.max(m02 * box.minZ, m02 * box.maxZ),
+                m13 + Math.max(m10 * box.minX, m10 * box.maxX) + Math.max(m11 * box.minY, m11 * box.maxY)
+                        + Math.max(m12 * box.minZ, m12 * box.maxZ),
+                m23 + Math.max(m20 * box.minX, m20 * box.maxX) + Math.max(m21 * box.minY, m21 * box.maxY)
+                        + Math.max(m22 * box.minZ, m22 * box.maxZ));
+    }
+
+    @Override
+    public String toString() {
+        return "Transform{[" + m00 + "," + m01 + "," + m02 + "," + m03 + "],[" + m10 + "," + m11 + "," + m12 + ","
+                + m13 + "],[" + m20 + "," + m21 + "," + m22 + "," + m23 + "]}";
+    }
+}
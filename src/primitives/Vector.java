@@ -5,7 +5,11 @@ import static primitives.Util.isZero;
 
 /**
  * This class represents a vector in 3D space.
- * It extends the Point class and provides additional operations specific to vectors.
+ * It extends the Point class and provides additional operations specific to vectors.<br/>
+ * The operations check their input and never create a zero vector. The "unchecked" variants
+ * skip these checks (and the alignment of the results to zero) for trusted hot loops of the
+ * intersections and the shading, where the input is known to be valid - e.g. a unit vector
+ * scaled by a distance that was already tested.
  */
 public class Vector extends Point{
 
@@ -38,6 +42,30 @@ public class Vector extends Point{
             throw new IllegalArgumentException("Vector(0,0,0) is not a valid vector");
     }
 
+    /**
+     * Constructs a new vector without checking for the zero vector
+     *
+     * @param x         the x-coordinate of the vector
+     * @param y         the y-coordinate of the vector
+     * @param z         the z-coordinate of the vector
+     * @param unchecked marks the unchecked constructor
+     */
+    private Vector(double x, double y, double z, boolean unchecked) {
+        super(x, y, z);
+    }
+
+    /**
+     * Creates a vector without checking for the zero vector - for trusted hot loops only
+     *
+     * @param x the x-coordinate of the vector
+     * @param y the y-coordinate of the vector
+     * @param z the z-coordinate of the vector
+     * @return the vector
+     */
+    public static Vector unchecked(double x, double y, double z) {
+        return new Vector(x, y, z, true);
+    }
+
     @Override
     public String toString() {
         return "Vector{" + xyz + "}";
@@ -74,6 +102,17 @@ public class Vector extends Point{
         return new Vector(xyz.scale(scalar));
     }
 
+    /**
+     * Scales this vector by a scalar without checking for a zero scalar - for trusted hot
+     * loops only
+     *
+     * @param scalar the scalar to scale by
+     * @return the new vector
+     */
+    public Vector scaleUnchecked(double scalar) {
+        return new Vector(xyz.d1 * scalar, xyz.d2 * scalar, xyz.d3 * scalar, true);
+    }
+
     /**
      * Returns the squared length of this vector.
      *
@@ -106,6 +145,16 @@ public class Vector extends Point{
         return new Vector(xyz.scale(1d / length));
     }
 
+    /**
+     * Normalizes this vector without checking for the zero vector - for trusted hot loops only
+     *
+     * @return the normalized vector
+     */
+    public Vector normalizeUnchecked() {
+        double scale = 1 / Math.sqrt(lengthSquared());
+        return new Vector(xyz.d1 * scale, xyz.d2 * scale, xyz.d3 * scale, true);
+    }
+
     /**
      * Calculates the dot product of this vector and another vector.
      *
@@ -116,6 +165,17 @@ public class Vector extends Point{
         return alignZero(xyz.d1 * vector.xyz.d1 + xyz.d2 * vector.xyz.d2 + xyz.d3 * vector.xyz.d3);
     }
 
+    /**
+     * Calculates the dot product of this vector and another vector without aligning the
+     * result to zero - for trusted hot loops only
+     *
+     * @param vector the other vector
+     * @return the dot product
+     */
+    public double dotProductUnchecked(Vector vector) {
+        return xyz.d1 * vector.xyz.d1 + xyz.d2 * vector.xyz.d2 + xyz.d3 * vector.xyz.d3;
+    }
+
     /**
      * Calculates the cross product of this vector and another vector.
      *
@@ -133,5 +193,17 @@ public class Vector extends Point{
                 xyz.d1 * vector.xyz.d2 - xyz.d2 * vector.xyz.d1);
     }
 
-
+    /**
+     * Calculates the cross product of this vector and another vector without checking for
+     * parallel vectors - for trusted hot loops only
+     *
+     * @param vector the other vector
+     * @return the cross product
+     */
+    public Vector crossProductUnchecked(Vector vector) {
+        return new Vector(
+                xyz.d2 * vector.xyz.d3 - xyz.d3 * vector.xyz.d2,
+                xyz.d3 * vector.xyz.d1 - xyz.d1 * vector.xyz.d3,
+                xyz.d1 * vector.xyz.d2 - xyz.d2 * vector.xyz.d1, true);
+    }
 }
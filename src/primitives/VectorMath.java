@@ -0,0 +1,126 @@
+package primitives;
+
+/**
+ * VectorMath is a kernel of vector operations over plain coordinates, for the hot paths of
+ * the intersections and the shading. Unlike the operations of {@link Point} and
+ * {@link Vector}, the kernels neither allocate objects nor check for zero vectors, so the
+ * caller is responsible for degenerate input. A vector result is written into a given
+ * array at a given offset, so a caller can keep its temporaries in a single array.
+ */
+public final class VectorMath {
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private VectorMath() {
+    }
+
+    /**
+     * Calculates the dot product of two vectors
+     *
+     * @param ax x coordinate of the first vector
+     * @param ay y coordinate of the first vector
+     * @param az z coordinate of the first vector
+     * @param bx x coordinate of the second vector
+     * @param by y coordinate of the second vector
+     * @param bz z coordinate of the second vector
+     * @return the dot product (not aligned to zero)
+     */
+    public static double dot(double ax, double ay, double az, double bx, double by, double bz) {
+        return ax * bx + ay * by + az * bz;
+    }
+
+    /**
+     * Calculates the dot product of a vector and a vector given by its coordinates
+     *
+     * @param a  the first vector
+     * @param bx x coordinate of the second vector
+     * @param by y coordinate of the second vector
+     * @param bz z coordinate of the second vector
+     * @return the dot product (not aligned to zero)
+     */
+    public static double dot(Vector a, double bx, double by, double bz) {
+        return a.xyz.d1 * bx + a.xyz.d2 * by + a.xyz.d3 * bz;
+    }
+
+    /**
+     * Calculates the dot product of two vectors
+     *
+     * @param a the first vector
+     * @param b the second vector
+     * @return the dot product (not aligned to zero)
+     */
+    public static double dot(Vector a, Vector b) {
+        return a.xyz.d1 * b.xyz.d1 + a.xyz.d2 * b.xyz.d2 + a.xyz.d3 * b.xyz.d3;
+    }
+
+    /**
+     * Calculates the squared length of a vector
+     *
+     * @param x x coordinate of the vector
+     * @param y y coordinate of the vector
+     * @param z z coordinate of the vector
+     * @return the squared length
+     */
+    public static double lengthSquared(double x, double y, double z) {
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * Calculates the scalar triple product a . (b x c) - the signed volume of the
+     * parallelepiped of three vectors
+     *
+     * @param ax x coordinate of the first vector
+     * @param ay y coordinate of the first vector
+     * @param az z coordinate of the first vector
+     * @param bx x coordinate of the second vector
+     * @param by y coordinate of the second vector
+     * @param bz z coordinate of the second vector
+     * @param cx x coordinate of the third vector
+     * @param cy y coordinate of the third vector
+     * @param cz z coordinate of the third vector
+     * @return the triple product (not aligned to zero)
+     */
+    public static double triple(double ax, double ay, double az,
+                                double bx, double by, double bz,
+                                double cx, double cy, double cz) {
+        return ax * (by * cz - bz * cy) + ay * (bz * cx - bx * cz) + az * (bx * cy - by * cx);
+    }
+
+    /**
+     * Calculates the cross product of two vectors
+     *
+     * @param ax     x coordinate of the first vector
+     * @param ay     y coordinate of the first vector
+     * @param az     z coordinate of the first vector
+     * @param bx     x coordinate of the second vector
+     * @param by     y coordinate of the second vector
+     * @param bz     z coordinate of the second vector
+     * @param out    the array of the result
+     * @param offset offset of the result coordinates in the array
+     */
+    public static void cross(double ax, double ay, double az, double bx, double by, double bz,
+                             double[] out, int offset) {
+        out[offset] = ay * bz - az * by;
+        out[offset + 1] = az * bx - ax * bz;
+        out[offset + 2] = ax * by - ay * bx;
+    }
+
+    /**
+     * Normalizes a vector
+     *
+     * @param x      x coordinate of the vector
+     * @param y      y coordinate of the vector
+     * @param z      z coordinate of the vector
+     * @param out    the array of the result
+     * @param offset offset of the result coordinates in the array
+     * @return the length of the vector before the normalization
+     */
+    public static double normalize(double x, double y, double z, double[] out, int offset) {
+        double length = Math.sqrt(x * x + y * y + z * z);
+        double scale = 1 / length;
+        out[offset] = x * scale;
+        out[offset + 1] = y * scale;
+        out[offset + 2] = z * scale;
+        return length;
+    }
+}
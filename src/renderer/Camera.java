@@ -6,9 +6,9 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.*;
 
-import static primitives.Util.isZero;
 
 /**
  * Camera class represents a camera in 3D Cartesian coordinate system
@@ -28,6 +28,15 @@ public class Camera implements Cloneable{
     private int threadsCount = 0;
     private PixelManager pixelManager;
     private boolean adaptiveSamplingEnabled = false;
+    private int tileSize = 0;
+    private boolean costAwareScheduling = false;
+    private TileOrder tileOrder = TileOrder.ROW_MAJOR;
+    private RenderStatistics statistics = null;
+
+    /**
+     * Number of pilot samples along a tile side used for estimating the tile rendering cost
+     */
+    private static final int PILOT_SAMPLES_PER_TILE_SIDE = 4;
 
     private Camera() {
     }
@@ -38,8 +47,11 @@ public class Camera implements Cloneable{
     public Camera renderImage(){
         final int nX = imagerWriter.getNx();
         final int nY = imagerWriter.getNy();
+        final long start = System.nanoTime();
         pixelManager = new PixelManager(nY, nX, 100);
-        if (threadsCount == 0) {
+        if (tileSize > 0)
+            renderTiles(nX, nY);
+        else if (threadsCount == 0) {
             for (int i = 0; i < nY; i++)
                 for (int j = 0; j < nX; j++)
                     castRay(nX, nY, j, i);
@@ -55,10 +67,106 @@ public class Camera implements Cloneable{
                         }
                     });
 
-
+        statistics = new RenderStatistics(rayTracer.scene.geometries.getBuildTime(), System.nanoTime() - start,
+                (long) nX * nY, Math.max(1, threadsCount));
         return this;
     }
 
+    /**
+     * Returns the statistics of the last rendered image, including the time of building
+     * the acceleration structures of the scene
+     *
+     * @return the statistics, or null if no image was rendered yet
+     */
+    public RenderStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Renders the image tile by tile. The tiles are handed out to the rendering threads by a
+     * {@link TileScheduler}. If cost-aware scheduling is enabled, a low resolution pilot pass
+     * estimates the cost of each tile first so that the expensive tiles are rendered first.
+     *
+     * @param nX number of pixels in the x direction
+     * @param nY number of pixels in the y direction
+     */
+    private void renderTiles(int nX, int nY) {
+        TileScheduler scheduler = new TileScheduler(nY, nX, tileSize, tileOrder);
+        if (costAwareScheduling)
+            scheduler.prioritize(estimateTileCosts(nX, nY, scheduler.getTiles()));
+        IntStream.range(0, Math.max(1, threadsCount)).parallel()
+                .forEach(i -> {
+                    TileScheduler.Tile tile;
+                    while ((tile = scheduler.nextTile()) != null)
+                        renderTile(nX, nY, tile);
+                });
+    }
+
+    /**
+     * Renders a single tile. Without anti-aliasing the primary rays of the whole tile are
+     * traced together as one batch, ordered by blocks of 2x2 pixels so that every
+     * {@link RayPacket} of consecutive rays is coherent.
+     *
+     * @param nX   number of pixels in the x direction
+     * @param nY   number of pixels in the y direction
+     * @param tile the tile to render
+     */
+    private void renderTile(int nX, int nY, TileScheduler.Tile tile) {
+        if (numSamples != 1) {
+            for (int row = tile.row(); row < tile.row() + tile.height(); row++)
+                for (int col = tile.col(); col < tile.col() + tile.width(); col++)
+                    castRay(nX, nY, col, row);
+            return;
+        }
+
+        final int count = tile.width() * tile.height();
+        int[] cols = new int[count];
+        int[] rows = new int[count];
+        List<Ray> rays = new ArrayList<>(count);
+        for (int blockRow = tile.row(); blockRow < tile.row() + tile.height(); blockRow += 2)
+            for (int blockCol = tile.col(); blockCol < tile.col() + tile.width(); blockCol += 2)
+                for (int row = blockRow; row < Math.min(blockRow + 2, tile.row() + tile.height()); row++)
+                    for (int col = blockCol; col < Math.min(blockCol + 2, tile.col() + tile.width()); col++) {
+                        cols[rays.size()] = col;
+                        rows[rays.size()] = row;
+                        rays.add(constructRay(nX, nY, col, row));
+                    }
+        Color[] colors = rayTracer.traceRayBatch(rays);
+        for (int index = 0; index < count; index++) {
+            imagerWriter.writePixel(cols[index], rows[index], colors[index]);
+            pixelManager.pixelDone();
+        }
+    }
+
+    /**
+     * Renders a cheap pilot pass - a few single rays per tile - and counts the rays (primary,
+     * secondary and shadow rays) traced for them, which measures the work of a tile
+     * deterministically, unlike timing it. The pilot pass runs on the rendering threads.
+     *
+     * @param nX    number of pixels in the x direction
+     * @param nY    number of pixels in the y direction
+     * @param tiles the tiles of the image
+     * @return the estimated cost of each tile (in the order of the tiles list)
+     */
+    private double[] estimateTileCosts(int nX, int nY, List<TileScheduler.Tile> tiles) {
+        final int step = Math.max(1, tileSize / PILOT_SAMPLES_PER_TILE_SIDE);
+        double[] costs = new double[tiles.size()];
+        AtomicInteger next = new AtomicInteger();
+        IntStream.range(0, Math.max(1, threadsCount)).parallel()
+                .forEach(i -> {
+                    int t;
+                    while ((t = next.getAndIncrement()) < tiles.size()) {
+                        TileScheduler.Tile tile = tiles.get(t);
+                        long start = rayTracer.getRayCount();
+                        for (int row = tile.row() + step / 2; row < tile.row() + tile.height(); row += step)
+                            for (int col = tile.col() + step / 2; col < tile.col() + tile.width(); col += step)
+                                rayTracer.traceRay(constructRay(nX, nY, col, row));
+                        costs[t] = rayTracer.getRayCount() - start;
+                    }
+                });
+        return costs;
+    }
+
     /**
      * Prints a grid on the image.
      *
@@ -198,7 +306,8 @@ public class Camera implements Cloneable{
      * @return the constructed ray
      */
     private Ray constructRayFromOffset(int nX, int nY, int j, int i, double offsetX, double offsetY) {
-        Point pIJ = calculatePixelCenter(nX, nY, j, i).add(vRight.scale(offsetX)).add(vUp.scale(offsetY));
+        Point pIJ = calculatePixelCenter(nX, nY, j, i).add(vRight.scaleUnchecked(offsetX))
+                .add(vUp.scaleUnchecked(offsetY));
         return new Ray(p0, pIJ.subtract(p0));
     }
 
@@ -209,7 +318,10 @@ public class Camera implements Cloneable{
      * @return the average color
      */
     private Color averageColors(List<Color> colors) {
-        return colors.stream().reduce(Color.BLACK, Color::add).scale(1.0 / colors.size());
+        Color.Accumulator sum = new Color.Accumulator();
+        for (Color color : colors)
+            sum.add(color);
+        return sum.average(colors.size());
     }
 
     /**
@@ -234,7 +346,8 @@ public class Camera implements Cloneable{
         for (int s = 1; s < numSamples; s++) {
             double offsetX = (Math.random() - 0.5) * rX;
             double offsetY = (Math.random() - 0.5) * rY;
-            Point pIJ = calculatePixelCenter(nX, nY, j, i).add(vRight.scale(offsetX)).add(vUp.scale(offsetY));
+            Point pIJ = calculatePixelCenter(nX, nY, j, i).add(vRight.scaleUnchecked(offsetX))
+                    .add(vUp.scaleUnchecked(offsetY));
             rays.add(new Ray(p0, pIJ.subtract(p0))); // add the ray
         }
 
@@ -273,19 +386,14 @@ public class Camera implements Cloneable{
         double rX = width / nX;
 
         // place pixel[i,j] in view grid center
-        Point pIJ = p0.add(vTo.scale(distance));
+        Point pIJ = p0.add(vTo.scaleUnchecked(distance));
 
         // calculate pixel[i,j] center
         double yI = -(i - ((nY - 1) / 2d)) * rY;
         double xJ = (j - ((nX - 1) / 2d)) * rX;
 
-        // shift to a center of pixel[i, j]
-        if (!isZero(xJ))
-            pIJ = pIJ.add(vRight.scale(xJ));
-        if (!isZero(yI))
-            pIJ = pIJ.add(vUp.scale(yI));
-
-        return pIJ;
+        // shift to a center of pixel[i, j] - a zero shift of the central pixel is harmless
+        return pIJ.add(vRight.scaleUnchecked(xJ)).add(vUp.scaleUnchecked(yI));
     }
 
     public static class Builder{
@@ -339,6 +447,46 @@ public class Camera implements Cloneable{
             return this;
         }
 
+        /**
+         * Sets the size of the square tiles that are handed out to the rendering threads.
+         *
+         * @param tileSize the tile side in pixels, 0 for rendering pixel by pixel
+         * @return the Builder
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize < 0) {
+                throw new IllegalArgumentException("Tile size must be at least 0");
+            }
+            camera.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * Sets the order in which the tiles are handed out to the rendering threads.
+         *
+         * @param tileOrder the tiles order
+         * @return the Builder
+         */
+        public Builder setTileOrder(TileOrder tileOrder) {
+            if (tileOrder == null) {
+                throw new IllegalArgumentException("The tile order cannot be null");
+            }
+            camera.tileOrder = tileOrder;
+            return this;
+        }
+
+        /**
+         * Enables estimating the cost of each tile by a low resolution pilot pass, so that
+         * the expensive tiles are split and rendered first. Works with tile rendering only.
+         *
+         * @param costAwareScheduling true to schedule the tiles by their estimated cost
+         * @return the Builder
+         */
+        public Builder setCostAwareScheduling(boolean costAwareScheduling) {
+            camera.costAwareScheduling = costAwareScheduling;
+            return this;
+        }
+
         /**
          * Sets the camera's direction vectors.
          *
@@ -394,7 +542,7 @@ public class Camera implements Cloneable{
          * @param rayTracer the ray tracer of the camera
          * @return the Builder
          */
-        public Builder setRayTracer(SimpleRayTracer rayTracer) {
+        public Builder setRayTracer(RayTracerBase rayTracer) {
             camera.rayTracer = rayTracer;
             return this;
         }
@@ -436,6 +584,9 @@ public class Camera implements Cloneable{
             if (camera.imagerWriter == null) {
                 throw new MissingResourceException(MISSING_RESOURCE_ERROR, CAMERA_CLASS, "imageWriter");
             }
+            if (camera.costAwareScheduling && camera.tileSize == 0) {
+                throw new MissingResourceException(MISSING_RESOURCE_ERROR, CAMERA_CLASS, "tileSize");
+            }
 
             // Calculate the missing data
             camera.vRight = camera.vTo.crossProduct(camera.vUp).normalize();
@@ -0,0 +1,139 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+import scene.CompiledScene;
+import scene.Scene;
+
+/**
+ * A ray tracer which calculates the same colors as {@link SimpleRayTracer}, but traverses
+ * the reflection / refraction rays tree iteratively instead of recursively.<br/>
+ * The pending rays are kept in an explicit per-thread stack together with their
+ * accumulated attenuation factor, and the color contribution of every ray is added
+ * directly to the color of the primary ray. The amount of rays traced for a single
+ * primary ray is explicit and can be capped by {@link #setRayBudget(int)}.
+ */
+public class IterativeRayTracer extends SimpleRayTracer {
+    /**
+     * Maximal amount of rays that are pending at the same time - every traced ray adds at
+     * most two rays of the next level, so the stack never holds more than two rays per level
+     */
+    private static final int STACK_SIZE = 2 * MAX_CALC_COLOR_LEVEL;
+
+    /**
+     * Pending rays stack of a single thread
+     */
+    private static final class RayStack {
+        /**
+         * The pending rays
+         */
+        final Ray[] rays = new Ray[STACK_SIZE];
+        /**
+         * Accumulated attenuation factor of each pending ray
+         */
+        final Double3[] ks = new Double3[STACK_SIZE];
+        /**
+         * Remaining tree levels of each pending ray
+         */
+        final int[] levels = new int[STACK_SIZE];
+    }
+
+    /**
+     * The stack of each rendering thread
+     */
+    private final ThreadLocal<RayStack> stacks = ThreadLocal.withInitial(RayStack::new);
+
+    /**
+     * Maximal amount of rays traced for a single primary ray (including itself)
+     */
+    private int rayBudget = Integer.MAX_VALUE;
+
+    /**
+     * Constructs an IterativeRayTracer with the given scene.
+     *
+     * @param scene the scene to be rendered by this ray tracer
+     */
+    public IterativeRayTracer(Scene scene) {
+        super(scene);
+    }
+
+    /**
+     * Constructs an IterativeRayTracer with the given compiled scene.
+     *
+     * @param compiled the compiled scene to be rendered by this ray tracer
+     */
+    public IterativeRayTracer(CompiledScene compiled) {
+        super(compiled);
+    }
+
+    /**
+     * Sets the maximal amount of rays traced for a single primary ray (including itself).
+     * When the budget is exhausted the remaining pending rays are dropped.
+     *
+     * @param rayBudget the maximal amount of rays per primary ray
+     * @return the ray tracer itself
+     */
+    public IterativeRayTracer setRayBudget(int rayBudget) {
+        if (rayBudget < 1)
+            throw new IllegalArgumentException("Ray budget must be at least 1");
+        this.rayBudget = rayBudget;
+        return this;
+    }
+
+    @Override
+    protected Color calcColor(GeoPoint geopoint, Ray ray) {
+        RayStack stack = stacks.get();
+        Color.Accumulator color = accumulator().add(ambientLight().getIntensity());
+        int budget = rayBudget - 1;
+        GeoPoint gp = geopoint;
+        Double3 k = INITIAL_K;
+        int level = MAX_CALC_COLOR_LEVEL;
+        int top = 0;
+        while (true) {
+            if (gp == null)
+                color.add(background(), k);
+            else {
+                calcLocalEffects(gp, ray, k, color);
+                if (level > 1) {
+                    Material material = gp.geometry.getMaterial();
+                    Double3 kkr = k.product(material.kR);
+                    if (!kkr.lowerThan(MIN_CALC_COLOR_K))
+                        top = push(stack, top, constructReflectedRay(gp, ray), kkr, level - 1);
+                    Double3 kkt = k.product(material.kT);
+                    if (!kkt.lowerThan(MIN_CALC_COLOR_K))
+                        top = push(stack, top, constructRefractedRay(gp, ray), kkt, level - 1);
+                }
+            }
+            if (top == 0 || budget == 0) break;
+
+            // pop the next pending ray
+            --top;
+            --budget;
+            ray = stack.rays[top];
+            k = stack.ks[top];
+            level = stack.levels[top];
+            stack.rays[top] = null;
+            gp = findClosestIntersection(ray);
+        }
+        // release the dropped rays for the garbage collector
+        while (top > 0) stack.rays[--top] = null;
+        return color.toColor();
+    }
+
+    /**
+     * Pushes a ray into the pending rays stack
+     *
+     * @param stack the stack
+     * @param top   the current size of the stack
+     * @param ray   the ray
+     * @param k     the accumulated attenuation factor of the ray
+     * @param level the remaining tree levels of the ray
+     * @return the new size of the stack
+     */
+    private static int push(RayStack stack, int top, Ray ray, Double3 k, int level) {
+        stack.rays[top] = ray;
+        stack.ks[top] = k;
+        stack.levels[top] = level;
+        return top + 1;
+    }
+}
@@ -16,6 +16,11 @@ public abstract class RayTracerBase {
      */
     protected final Scene scene;
 
+    /**
+     * Amount of rays intersected with the scene by each thread
+     */
+    private final ThreadLocal<long[]> rayCounts = ThreadLocal.withInitial(() -> new long[1]);
+
     /**
      * Constructs a RayTracerBase with a specific scene.
      *
@@ -25,6 +30,26 @@ public abstract class RayTracerBase {
         this.scene = scene;
     }
 
+    /**
+     * Counts rays (primary, secondary and shadow rays) intersected with the scene by the
+     * current thread
+     *
+     * @param count the amount of rays
+     */
+    protected void countRays(int count) {
+        rayCounts.get()[0] += count;
+    }
+
+    /**
+     * Returns the amount of rays the current thread intersected with the scene so far - a
+     * deterministic measure of the work of tracing, unlike the time it takes
+     *
+     * @return the amount of rays
+     */
+    public long getRayCount() {
+        return rayCounts.get()[0];
+    }
+
     /**
      * Abstract method to trace a ray and return the color.
      *
@@ -40,11 +65,27 @@ public abstract class RayTracerBase {
      * @return the average color of the rays
      */
     public Color traceRays(List<Ray> rays) {
-        Color avgColor = Color.BLACK;
+        Color.Accumulator sum = new Color.Accumulator();
         for (Ray ray : rays) {
-            avgColor = avgColor.add(traceRay(ray));
+            sum.add(traceRay(ray));
         }
-        return avgColor.reduce(rays.size()); //return the average color
+        return sum.average(rays.size()); //return the average color
+    }
+
+    /**
+     * Traces a batch of independent rays. The default implementation traces the rays
+     * one by one, ray tracers that benefit from processing many rays together
+     * (e.g. for coherent memory access) override it.
+     *
+     * @param rays the rays to trace
+     * @return the color of each ray, in the order of the rays
+     */
+    public Color[] traceRayBatch(List<Ray> rays) {
+        Color[] colors = new Color[rays.size()];
+        int i = 0;
+        for (Ray ray : rays)
+            colors[i++] = traceRay(ray);
+        return colors;
     }
 
 }
@@ -0,0 +1,17 @@
+package renderer;
+
+/**
+ * Statistics of rendering an image - where the time went
+ *
+ * @param accelerationBuildTime time of building the acceleration structures of the scene, in nanoseconds
+ * @param renderTime            time of rendering the image, in nanoseconds
+ * @param pixels                amount of rendered pixels
+ * @param threads               amount of rendering threads
+ */
+public record RenderStatistics(long accelerationBuildTime, long renderTime, long pixels, int threads) {
+    @Override
+    public String toString() {
+        return String.format("acceleration build %.1f ms, render %.1f ms (%d pixels, %d threads)",
+                accelerationBuildTime / 1e6, renderTime / 1e6, pixels, threads);
+    }
+}
@@ -1,20 +1,78 @@
 package renderer;
 
+import geometries.Intersectable;
+import lighting.AmbientLight;
 import lighting.LightSource;
+import lighting.LightTree;
 import primitives.*;
 import geometries.Intersectable.GeoPoint;
+import scene.CompiledScene;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static primitives.Util.alignZero;
 
 /**
  * A simple implementation of a ray tracer.
- * This class extends RayTracerBase and provides a basic ray tracing mechanism.
+ * This class extends RayTracerBase and provides a basic ray tracing mechanism.<br/>
+ * The colors of all the rays of the tree of a primary ray are summed, each scaled by its
+ * accumulated attenuation factor, in a per-thread {@link Color.Accumulator}, so only the
+ * color of the primary ray is created.<br/>
+ * A ray tracer constructed with a {@link CompiledScene} renders the compiled scene, a ray
+ * tracer constructed with a {@link scene.Scene} renders the scene as it is when rendering.<br/>
+ * By default every light is shaded at every hit. With light samples (see
+ * {@link #setLightSamples(int)}) a fixed amount of point lights is sampled at every hit from a
+ * {@link LightTree} by their importance, for scenes with many lights.
  */
 public class SimpleRayTracer extends RayTracerBase {
 
-    private static final int MAX_CALC_COLOR_LEVEL = 10;
-    private static final double MIN_CALC_COLOR_K = 0.001;
-    private static final Double3 INITIAL_K = Double3.ONE;
+    /**
+     * Maximal depth of the reflection / refraction rays tree
+     */
+    protected static final int MAX_CALC_COLOR_LEVEL = 10;
+    /**
+     * Minimal attenuation factor of a ray that is still worth tracing
+     */
+    protected static final double MIN_CALC_COLOR_K = 0.001;
+    /**
+     * Minimal unshadowed light of a light source in any color channel (in color levels of
+     * 0 to 255) that is worth casting a shadow ray
+     */
+    protected static final double MIN_LIGHT_CONTRIBUTION = 0.001;
+    /**
+     * Attenuation factor of the primary rays
+     */
+    protected static final Double3 INITIAL_K = Double3.ONE;
+
+    /**
+     * The color accumulator of each rendering thread
+     */
+    private final ThreadLocal<Color.Accumulator> accumulators = ThreadLocal.withInitial(Color.Accumulator::new);
+
+    /**
+     * The compiled scene to render, null for rendering the scene itself
+     */
+    private final CompiledScene compiled;
+
+    /**
+     * Amount of lights sampled at every hit, 0 for shading all the lights
+     */
+    private int lightSamples = 0;
+    /**
+     * The hierarchy of the sampled lights and the list of lights it was built of
+     *
+     * @param lights the list of the lights the tree was built of
+     * @param size   the amount of the lights in the list when the tree was built
+     * @param tree   the light tree
+     */
+    private record SampledLights(List<LightSource> lights, int size, LightTree tree) {
+    }
+
+    /**
+     * The hierarchy of the sampled lights, null until the first sampling
+     */
+    private volatile SampledLights sampledLights = null;
 
     /**
      * Constructs a SimpleRayTracer with the given scene.
@@ -23,13 +81,137 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     public SimpleRayTracer(scene.Scene scene) {
         super(scene);
+        compiled = null;
+    }
+
+    /**
+     * Constructs a SimpleRayTracer with the given compiled scene.
+     *
+     * @param compiled the compiled scene to be rendered by this ray tracer
+     */
+    public SimpleRayTracer(CompiledScene compiled) {
+        super(compiled.getScene());
+        this.compiled = compiled;
+    }
+
+    /**
+     * Sets the amount of lights sampled at every hit. The point lights (and spotlights) are
+     * sampled by their importance for the hit from a {@link LightTree}, which is built on the
+     * first sampling, and their contributions are weighted by their probabilities. The other
+     * lights are always shaded. When the amount of samples is not smaller than the amount of
+     * the point lights, all the lights are shaded.
+     *
+     * @param lightSamples the amount of sampled lights per hit, 0 for shading all the lights
+     * @return the ray tracer itself
+     */
+    public SimpleRayTracer setLightSamples(int lightSamples) {
+        if (lightSamples < 0)
+            throw new IllegalArgumentException("Amount of light samples must not be negative");
+        this.lightSamples = lightSamples;
+        return this;
+    }
+
+    /**
+     * Returns the amount of lights sampled at every hit
+     *
+     * @return the amount of sampled lights per hit, 0 if the lights are not sampled
+     */
+    protected int lightSamples() {
+        return lightSamples == 0 || lightSamples >= lightTree().size() ? 0 : lightSamples;
+    }
+
+    /**
+     * Returns the hierarchy of the sampled lights, building it on the first call. The tree is
+     * rebuilt when the lights to render are replaced, or when lights are added to or removed
+     * from them (e.g. between two renderings of a scene).
+     *
+     * @return the light tree
+     */
+    protected LightTree lightTree() {
+        List<LightSource> lights = lights();
+        SampledLights sampled = sampledLights;
+        if (sampled == null || sampled.lights() != lights || sampled.size() != lights.size())
+            synchronized (this) {
+                sampled = sampledLights;
+                if (sampled == null || sampled.lights() != lights || sampled.size() != lights.size())
+                    sampledLights = sampled = new SampledLights(lights, lights.size(), new LightTree(lights));
+            }
+        return sampled.tree();
+    }
+
+    /**
+     * Returns the geometries to render
+     *
+     * @return the geometries of the compiled scene, or of the scene if not compiled
+     */
+    protected Intersectable geometries() {
+        return compiled == null ? scene.geometries : compiled;
+    }
+
+    /**
+     * Returns the lights to render
+     *
+     * @return the lights of the compiled scene, or of the scene if not compiled
+     */
+    protected List<LightSource> lights() {
+        return compiled == null ? scene.lights : compiled.getLights();
+    }
+
+    /**
+     * Returns the background color
+     *
+     * @return the background of the compiled scene, or of the scene if not compiled
+     */
+    protected Color background() {
+        return compiled == null ? scene.background : compiled.getBackground();
+    }
+
+    /**
+     * Returns the ambient light
+     *
+     * @return the ambient light of the compiled scene, or of the scene if not compiled
+     */
+    protected AmbientLight ambientLight() {
+        return compiled == null ? scene.ambientLight : compiled.getAmbientLight();
     }
 
 
     @Override
     public Color traceRay(Ray ray) {
         GeoPoint closestPoint = findClosestIntersection(ray);
-        return closestPoint == null ? scene.background : calcColor(closestPoint, ray);
+        return closestPoint == null ? background() : calcColor(closestPoint, ray);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The closest intersections of the rays are found by packets of {@link RayPacket#WIDTH}
+     * consecutive rays, so the rays should be ordered coherently (e.g. by pixel blocks).
+     */
+    @Override
+    public Color[] traceRayBatch(List<Ray> rays) {
+        GeoPoint[] closestPoints = findClosestIntersections(rays);
+        Color[] colors = new Color[closestPoints.length];
+        for (int i = 0; i < colors.length; ++i)
+            colors[i] = closestPoints[i] == null ? background() : calcColor(closestPoints[i], rays.get(i));
+        return colors;
+    }
+
+    /**
+     * Finds the closest intersection points of rays with the geometries in the scene,
+     * intersecting the geometries with packets of consecutive rays.
+     * @param rays the rays to find intersections with the geometries
+     * @return the closest GeoPoint intersection of each ray, null for rays without intersections
+     */
+    protected GeoPoint[] findClosestIntersections(List<Ray> rays) {
+        GeoPoint[] closestPoints = new GeoPoint[rays.size()];
+        RayPacket packet = new RayPacket();
+        for (int first = 0; first < closestPoints.length; first += RayPacket.WIDTH) {
+            packet.load(rays, first);
+            geometries().intersectPacket(packet);
+            countRays(packet.size());
+            System.arraycopy(packet.hits, 0, closestPoints, first, packet.size());
+        }
+        return closestPoints;
     }
 
 
@@ -38,19 +220,31 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray the ray to find intersections with the geometries
      * @return the closest GeoPoint intersection, or null if there are no intersections
      */
-    private GeoPoint findClosestIntersection(Ray ray) {
-        var intersections = scene.geometries.findGeoIntersections(ray);
+    protected GeoPoint findClosestIntersection(Ray ray) {
+        countRays(1);
+        var intersections = geometries().findGeoIntersections(ray);
         return intersections == null ? null : ray.findClosestGeoPoint(intersections);
     }
 
+    /**
+     * Returns the color accumulator of the current thread, cleared
+     *
+     * @return the color accumulator
+     */
+    protected Color.Accumulator accumulator() {
+        return accumulators.get().reset();
+    }
+
     /**
      * Calculates the color at a given intersection point, including ambient light.
      * @param geopoint the intersection point
      * @param ray the ray that intersects at the geopoint
      * @return the color at the intersection point
      */
-    private Color calcColor(GeoPoint geopoint, Ray ray) {
-        return calcColor(geopoint, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K).add(scene.ambientLight.getIntensity());
+    protected Color calcColor(GeoPoint geopoint, Ray ray) {
+        Color.Accumulator color = accumulator().add(ambientLight().getIntensity());
+        calcColor(geopoint, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K, color);
+        return color.toColor();
     }
 
     /**
@@ -59,11 +253,11 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray the ray that intersects at the intersection point
      * @param level the current recursion level
      * @param k the attenuation factor for the current recursion level
-     * @return the calculated color at the intersection point
+     * @param color the accumulator the color, scaled by the attenuation factor, is added to
      */
-    private Color calcColor(GeoPoint intersection, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(intersection, ray, k);
-        return 1 == level ? color : color.add(calcGlobalEffects(intersection, ray, level, k));
+    private void calcColor(GeoPoint intersection, Ray ray, int level, Double3 k, Color.Accumulator color) {
+        calcLocalEffects(intersection, ray, k, color);
+        if (level > 1) calcGlobalEffects(intersection, ray, level, k, color);
     }
 
     /**
@@ -72,27 +266,28 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray the ray that intersects at the intersection point
      * @param level the current recursion level
      * @param k the attenuation factor for the current recursion level
-     * @return the calculated color considering global effects
+     * @param color the accumulator the colors of the effects are added to
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
+    private void calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k, Color.Accumulator color) {
         Material material = gp.geometry.getMaterial();
-        return calcGlobalEffect(constructRefractedRay(gp, ray), material.kT, level, k)
-                .add(calcGlobalEffect(constructReflectedRay(gp, ray), material.kR, level, k));
+        calcGlobalEffect(constructRefractedRay(gp, ray), material.kT, level, k, color);
+        calcGlobalEffect(constructReflectedRay(gp, ray), material.kR, level, k, color);
     }
 
     /**
      * Calculates the global effect (either reflection or refraction) for a given ray.
      * @param ray the ray to calculate the global effect for
-     * @param k the attenuation factor for the current recursion level
-     * @param level the current recursion level
      * @param kx the attenuation factor for the specific global effect
-     * @return the calculated color considering the global effect
+     * @param level the current recursion level
+     * @param k the attenuation factor for the current recursion level
+     * @param color the accumulator the color of the effect is added to
      */
-    private Color calcGlobalEffect(Ray ray, Double3 kx, int level,Double3 k) {
+    private void calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k, Color.Accumulator color) {
         Double3 kkx = k.product(kx);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
+        if (kkx.lowerThan(MIN_CALC_COLOR_K)) return;
         GeoPoint gp = findClosestIntersection(ray);
-        return (gp == null ? scene.background : calcColor(gp, ray, level - 1, kkx)).scale(kx);
+        if (gp == null) color.add(background(), kkx);
+        else calcColor(gp, ray, level - 1, kkx, color);
     }
 
 
@@ -102,7 +297,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray the original ray
      * @return the refracted ray
      */
-    private Ray constructRefractedRay(GeoPoint geoPoint, Ray ray) {
+    protected Ray constructRefractedRay(GeoPoint geoPoint, Ray ray) {
         Point point = geoPoint.point;
         Vector direction = ray.getDirection();
         Vector normal = geoPoint.geometry.getNormal(point);
@@ -115,44 +310,114 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray the original ray
      * @return the reflected ray
      */
-    private Ray constructReflectedRay(GeoPoint geoPoint, Ray ray) {
+    protected Ray constructReflectedRay(GeoPoint geoPoint, Ray ray) {
         Point point = geoPoint.point;
         Vector direction = ray.getDirection();
         Vector normal = geoPoint.geometry.getNormal(point);
-        // Calculate the reflected direction
-        Vector reflectedDirection = direction.subtract(normal.scale(2 * direction.dotProduct(normal)));
+        // Calculate the reflected direction d - 2(d.n)n in plain coordinates
+        double dn2 = 2 * VectorMath.dot(direction, normal);
+        Vector reflectedDirection = new Vector(direction.getX() - dn2 * normal.getX(),
+                direction.getY() - dn2 * normal.getY(), direction.getZ() - dn2 * normal.getZ());
         return new Ray(point, reflectedDirection, normal);
     }
 
 
 
     /**
-     * Calculates the color of the intersection point by considering the local effects only.
+     * Calculates the color of the intersection point by considering the local effects only,
+     * and adds it to an accumulator scaled by the attenuation factor of the ray. Nothing is
+     * added if the ray is tangent to the surface.
      *
      * @param gp the intersection point
      * @param ray the ray that intersects the geometry
-     * @return the color at the intersection point
+     * @param k the attenuation factor of the ray
+     * @param color the accumulator the color is added to
      */
-    private Color calcLocalEffects(GeoPoint gp, Ray ray, Double3 k) {
+    protected void calcLocalEffects(GeoPoint gp, Ray ray, Double3 k, Color.Accumulator color) {
         Vector n = gp.geometry.getNormal(gp.point);
         Vector v = ray.getDirection();
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0)
-            return null;
+            return;
         Material material = gp.geometry.getMaterial();
-        Color color = gp.geometry.getEmission();
-        for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(gp.point);
-            double nl = alignZero(n.dotProduct(l));
-            if ((nl * nv > 0)) {// sign(nl) == sign(nv))
-                Double3 ktr = transparency(gp, lightSource, l, n);
-                if (ktr.product(k).greaterThan(MIN_CALC_COLOR_K)) {
-                    Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(iL.scale(calcDiffusive(material, nl).add(calcSpecular(material, n, l, nl, v))));
-                }
-            }
+        color.add(gp.geometry.getEmission(), k);
+        int samples = lightSamples();
+        if (samples == 0) {
+            for (LightSource lightSource : lights())
+                calcLightEffect(gp, lightSource, n, v, nv, material, k, color);
+            return;
+        }
+        LightTree tree = lightTree();
+        for (LightSource lightSource : tree.getGlobalLights())
+            calcLightEffect(gp, lightSource, n, v, nv, material, k, color);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < samples; ++i) {
+            LightTree.Sample sample = tree.sample(gp.point, random.nextDouble());
+            if (sample != null)
+                calcLightEffect(gp, sample.light(), n, v, nv, material,
+                        k.scale(1 / (samples * sample.probability())), color);
         }
-        return color;
+    }
+
+    /**
+     * Calculates the diffusive and specular light of a single light source at an intersection
+     * point, and adds it to an accumulator scaled by the attenuation factor of the ray and by
+     * the transparency of the geometries between the point and the light source.<br/>
+     * The unshadowed light is calculated first, so no shadow ray is cast for a light which is
+     * out of its radius of influence or whose unshadowed light is negligible.
+     *
+     * @param gp the intersection point
+     * @param lightSource the light source
+     * @param n the normal at the intersection point
+     * @param v the direction of the ray
+     * @param nv dot product of the normal and the direction of the ray (not zero)
+     * @param material the material at the intersection point
+     * @param k the attenuation factor of the ray (weighted for a sampled light)
+     * @param color the accumulator the color is added to
+     */
+    private void calcLightEffect(GeoPoint gp, LightSource lightSource, Vector n, Vector v, double nv,
+                                 Material material, Double3 k, Color.Accumulator color) {
+        if (!isInfluenced(gp.point, lightSource))
+            return;
+        Vector l = lightSource.getL(gp.point);
+        double nl = alignZero(n.dotProduct(l));
+        if (nl * nv <= 0) // sign(nl) != sign(nv)
+            return;
+        Color intensity = lightSource.getIntensity(gp.point);
+        double diffuse = Math.abs(nl);
+        double specular = calcSpecularFactor(material, n, l, nl, v);
+        if (isNegligible(intensity, material.kD.scale(diffuse).add(material.kS.scale(specular)), k))
+            return;
+        Double3 kktr = transparency(gp, lightSource, l, n).product(k);
+        if (kktr.greaterThan(MIN_CALC_COLOR_K))
+            color.add(intensity, kktr, material.kD, diffuse, material.kS, specular);
+    }
+
+    /**
+     * Checks whether a point is in the radius of influence of a light source
+     *
+     * @param point the point
+     * @param lightSource the light source
+     * @return true if the point may be lighted by the light source
+     */
+    protected static boolean isInfluenced(Point point, LightSource lightSource) {
+        double radius = lightSource.getInfluenceRadius();
+        return radius == Double.POSITIVE_INFINITY || lightSource.getDistance(point) <= radius;
+    }
+
+    /**
+     * Checks whether the unshadowed light of a light source at a point is negligible, so no
+     * shadow ray should be cast for it - the intensity of the light (attenuated by its
+     * distance, or zero behind a spotlight) times the response of the material and the
+     * attenuation factor of the ray is below {@link #MIN_LIGHT_CONTRIBUTION} in every channel
+     *
+     * @param intensity the intensity of the light at the point
+     * @param response the diffusive and specular response of the material to the light
+     * @param k the attenuation factor of the ray
+     * @return true if the light is negligible
+     */
+    protected static boolean isNegligible(Color intensity, Double3 response, Double3 k) {
+        return intensity.scale(response.product(k)).lowerThan(MIN_LIGHT_CONTRIBUTION);
     }
 
     /**
@@ -164,10 +429,11 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param n the normal vector at the intersection point
      * @return the transparency of the point as a Double3
      */
-    private Double3 transparency(GeoPoint geoPoint, LightSource ls, Vector l, Vector n){
-        Vector lightDirection = l.scale(-1); // from point to light source
+    protected Double3 transparency(GeoPoint geoPoint, LightSource ls, Vector l, Vector n){
+        Vector lightDirection = l.scaleUnchecked(-1); // from point to light source
         Ray lightRay = new Ray(geoPoint.point, lightDirection, n);
-        var intersections = scene.geometries.findGeoIntersections(lightRay);
+        countRays(1);
+        var intersections = geometries().findGeoIntersections(lightRay);
         if (intersections == null) return Double3.ONE;
         Double3 ktr = Double3.ONE;
         for (GeoPoint gp : intersections) {
@@ -187,7 +453,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param nl the dot product of the normal and the light direction
      * @return the diffusive component as a Double3
      */
-    private Double3 calcDiffusive(Material material, double nl) {
+    protected Double3 calcDiffusive(Material material, double nl) {
         return material.kD.scale(Math.abs(nl));
     }
 
@@ -201,11 +467,25 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param v the view direction vector
      * @return the specular component as a Double3
      */
-    private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
-        Vector r = l.subtract(n.scale(2 * nl));
-        double vr = -alignZero(v.dotProduct(r));
-        double max = Math.max(0, vr);
-        return material.kS.scale(Math.pow(max, material.nShininess));
+    protected Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
+        return material.kS.scale(calcSpecularFactor(material, n, l, nl, v));
+    }
+
+    /**
+     * Calculates the specular factor of the lighting model - the specular component is the
+     * specular attenuation factor of the material scaled by it.
+     *
+     * @param material the material of the intersected geometry
+     * @param n the normal vector at the intersection point
+     * @param l the light direction vector
+     * @param nl the dot product of the normal and the light direction
+     * @param v the view direction vector
+     * @return the specular factor
+     */
+    protected double calcSpecularFactor(Material material, Vector n, Vector l, double nl, Vector v) {
+        // v.r for the reflection r = l - 2(n.l)n, without creating r
+        double vr = -alignZero(VectorMath.dot(v, l) - 2 * nl * VectorMath.dot(v, n));
+        return Math.pow(Math.max(0, vr), material.nShininess);
     }
 }
 
@@ -0,0 +1,82 @@
+package renderer;
+
+/**
+ * The order in which the image tiles are handed out to the rendering threads.
+ * Ordering the tiles along a space-filling curve makes consecutive tiles neighbours in
+ * the image, so a thread keeps touching the same geometry and its caches stay warm.
+ */
+public enum TileOrder {
+    /**
+     * Row after row, from left to right
+     */
+    ROW_MAJOR,
+    /**
+     * Z-order curve - interleaving the bits of the tile column and row
+     */
+    MORTON,
+    /**
+     * Hilbert curve - every tile is adjacent to the previous one
+     */
+    HILBERT;
+
+    /**
+     * Calculates the position of a tile along the curve
+     *
+     * @param col  the tile column
+     * @param row  the tile row
+     * @param side the amount of tiles along the longer image side
+     * @return the position of the tile along the curve
+     */
+    long index(int col, int row, int side) {
+        return switch (this) {
+            case ROW_MAJOR -> (long) row * side + col;
+            case MORTON -> spread(col) | (spread(row) << 1);
+            case HILBERT -> hilbert(col, row, side);
+        };
+    }
+
+    /**
+     * Spreads the bits of a number so that there is a zero bit between every two bits
+     *
+     * @param v the number
+     * @return the spread number
+     */
+    private static long spread(int v) {
+        long x = v & 0xFFFFFFFFL;
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x << 2)) & 0x3333333333333333L;
+        x = (x | (x << 1)) & 0x5555555555555555L;
+        return x;
+    }
+
+    /**
+     * Calculates the distance of a cell along the Hilbert curve covering a square grid
+     *
+     * @param x    the cell column
+     * @param y    the cell row
+     * @param side the grid side
+     * @return the distance along the curve
+     */
+    private static long hilbert(int x, int y, int side) {
+        int n = Integer.highestOneBit(Math.max(1, side - 1)) << 1;
+        long d = 0;
+        for (int s = n / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // rotate the quadrant so the curve inside it is in the canonical orientation
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+}
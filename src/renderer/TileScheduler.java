@@ -0,0 +1,134 @@
+package renderer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/** TileScheduler is a helper class for multi-threaded rendering. It divides the image
+ * into rectangular tiles and hands them out to the rendering threads one tile at a time.<br/>
+ * When tile cost estimates are supplied (e.g. from a low resolution pilot pass), the
+ * expensive tiles are split into smaller ones and all the tiles are handed out
+ * longest-first, so that no thread is left with a long tile at the end of the frame.
+ */
+class TileScheduler {
+    /**
+     * Immutable class for object containing allocated tile (its top left pixel and its size)
+     */
+    record Tile(int col, int row, int width, int height) {
+    }
+
+    /**
+     * A tile whose estimated cost is higher than this factor times the average tile cost
+     * is split into four smaller tiles
+     */
+    private static final double SPLIT_FACTOR = 2;
+    /**
+     * Minimal size (in pixels) of a tile side that is created by splitting an expensive tile
+     */
+    private static final int MIN_TILE_SIZE = 4;
+
+    /**
+     * The tiles of the image in the order they are handed out
+     */
+    private final List<Tile> tiles = new ArrayList<>();
+    /**
+     * Index of the next tile to be handed out
+     */
+    private int next = 0;
+    /**
+     * Mutual exclusion object for synchronizing next tile allocation between threads
+     */
+    private final Object mutexNext = new Object();
+
+    /**
+     * Initialize the tiles of the image in row-major order
+     *
+     * @param maxRows  the amount of pixel rows
+     * @param maxCols  the amount of pixel columns
+     * @param tileSize the size (in pixels) of a tile side
+     */
+    TileScheduler(int maxRows, int maxCols, int tileSize) {
+        this(maxRows, maxCols, tileSize, TileOrder.ROW_MAJOR);
+    }
+
+    /**
+     * Initialize the tiles of the image in the requested order
+     *
+     * @param maxRows  the amount of pixel rows
+     * @param maxCols  the amount of pixel columns
+     * @param tileSize the size (in pixels) of a tile side
+     * @param order    the order of handing out the tiles
+     */
+    TileScheduler(int maxRows, int maxCols, int tileSize, TileOrder order) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be at least 1");
+        for (int row = 0; row < maxRows; row += tileSize)
+            for (int col = 0; col < maxCols; col += tileSize)
+                tiles.add(new Tile(col, row, Math.min(tileSize, maxCols - col), Math.min(tileSize, maxRows - row)));
+        final int side = (Math.max(maxRows, maxCols) + tileSize - 1) / tileSize;
+        tiles.sort(Comparator.comparingLong(t -> order.index(t.col() / tileSize, t.row() / tileSize, side)));
+    }
+
+    /**
+     * Get the tiles in the order they are going to be handed out
+     *
+     * @return unmodifiable list of the tiles
+     */
+    List<Tile> getTiles() {
+        return List.copyOf(tiles);
+    }
+
+    /**
+     * Reorder the tiles according to their estimated rendering cost. Tiles that are much
+     * more expensive than the average are split into four quadrants, then all the tiles are
+     * sorted longest-first. Tiles of the same cost keep their current relative order, i.e.
+     * the order of the tiles along the curve.
+     *
+     * @param costs estimated cost of each tile, in the order of {@link #getTiles()}
+     */
+    void prioritize(double[] costs) {
+        if (costs.length != tiles.size())
+            throw new IllegalArgumentException("There must be exactly one cost estimate per tile");
+        if (costs.length == 0) return;
+
+        double average = 0;
+        for (double cost : costs) average += cost;
+        average /= costs.length;
+
+        record Estimated(Tile tile, double cost) {
+        }
+        List<Estimated> estimated = new ArrayList<>();
+        for (int t = 0; t < costs.length; ++t) {
+            Tile tile = tiles.get(t);
+            if (costs[t] > SPLIT_FACTOR * average
+                    && tile.width() >= 2 * MIN_TILE_SIZE && tile.height() >= 2 * MIN_TILE_SIZE) {
+                int halfW = tile.width() / 2;
+                int halfH = tile.height() / 2;
+                double quarter = costs[t] / 4;
+                estimated.add(new Estimated(new Tile(tile.col(), tile.row(), halfW, halfH), quarter));
+                estimated.add(new Estimated(new Tile(tile.col() + halfW, tile.row(), tile.width() - halfW, halfH), quarter));
+                estimated.add(new Estimated(new Tile(tile.col(), tile.row() + halfH, halfW, tile.height() - halfH), quarter));
+                estimated.add(new Estimated(new Tile(tile.col() + halfW, tile.row() + halfH,
+                        tile.width() - halfW, tile.height() - halfH), quarter));
+            } else
+                estimated.add(new Estimated(tile, costs[t]));
+        }
+        // List.sort is stable - equally expensive tiles keep their original order
+        estimated.sort(Comparator.comparingDouble(Estimated::cost).reversed());
+
+        synchronized (mutexNext) {
+            tiles.clear();
+            for (Estimated e : estimated) tiles.add(e.tile());
+            next = 0;
+        }
+    }
+
+    /** Function for thread-safe allocation of the next tile to render - this
+     * function is critical section for all the threads.
+     * @return the next tile, or null if there are no more tiles
+     */
+    Tile nextTile() {
+        synchronized (mutexNext) {
+            return next < tiles.size() ? tiles.get(next++) : null;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import lighting.LightSource;
+import lighting.LightTree;
+import primitives.*;
+import scene.CompiledScene;
+import scene.Scene;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static primitives.Util.alignZero;
+
+/**
+ * A wavefront ray tracer - calculates the same colors as {@link SimpleRayTracer}, but
+ * processes a whole batch of rays stage by stage instead of following one ray at a time.<br/>
+ * Every wave of rays goes through the following stages:
+ * <ol>
+ * <li>intersection - the closest intersection of every ray in the wave, by ray packets</li>
+ * <li>shading - emission and background of every ray, processed sorted by material</li>
+ * <li>shadow rays generation - one shadow query per lighted hit and light source</li>
+ * <li>shadow test - the transparency of every shadow query and the light it contributes</li>
+ * <li>secondary rays - reflected and refracted rays are queued as the next wave</li>
+ * </ol>
+ * The queues are kept as structures of primitive arrays indexed by the ray number in the wave,
+ * and the colors are summed into a primitive array of RGB numbers per pixel. The tracer is
+ * meant for throughput on big batches (e.g. a whole tile of primary rays), not for the
+ * latency of a single ray.
+ */
+public class WavefrontRayTracer extends SimpleRayTracer {
+
+    /**
+     * A queue of rays of a single wave, kept as structure of arrays
+     */
+    private static final class RayQueue {
+        /**
+         * Coordinates of the ray heads
+         */
+        double[] ox, oy, oz;
+        /**
+         * Components of the (normalized) ray directions
+         */
+        double[] dx, dy, dz;
+        /**
+         * Index of the pixel (primary ray) each ray contributes to
+         */
+        int[] pixels;
+        /**
+         * Accumulated attenuation factor of each ray, three numbers per ray
+         */
+        double[] ks;
+        /**
+         * Remaining tree levels of each ray
+         */
+        int[] levels;
+        /**
+         * Amount of rays in the queue
+         */
+        int size = 0;
+
+        /**
+         * Creates an empty queue
+         *
+         * @param capacity initial capacity of the queue
+         */
+        RayQueue(int capacity) {
+            capacity = Math.max(capacity, 1);
+            ox = new double[capacity];
+            oy = new double[capacity];
+            oz = new double[capacity];
+            dx = new double[capacity];
+            dy = new double[capacity];
+            dz = new double[capacity];
+            pixels = new int[capacity];
+            ks = new double[3 * capacity];
+            levels = new int[capacity];
+        }
+
+        /**
+         * Adds a ray to the queue
+         *
+         * @param ray   the ray
+         * @param pixel the pixel the ray contributes to
+         * @param k     accumulated attenuation factor of the ray
+         * @param level remaining tree levels of the ray
+         */
+        void add(Ray ray, int pixel, Double3 k, int level) {
+            if (size == pixels.length) {
+                int capacity = size * 2;
+                ox = Arrays.copyOf(ox, capacity);
+                oy = Arrays.copyOf(oy, capacity);
+                oz = Arrays.copyOf(oz, capacity);
+                dx = Arrays.copyOf(dx, capacity);
+                dy = Arrays.copyOf(dy, capacity);
+                dz = Arrays.copyOf(dz, capacity);
+                pixels = Arrays.copyOf(pixels, capacity);
+                ks = Arrays.copyOf(ks, 3 * capacity);
+                levels = Arrays.copyOf(levels, capacity);
+            }
+            Point head = ray.getP0();
+            Vector direction = ray.getDirection();
+            ox[size] = head.getX();
+            oy[size] = head.getY();
+            oz[size] = head.getZ();
+            dx[size] = direction.getX();
+            dy[size] = direction.getY();
+            dz[size] = direction.getZ();
+            pixels[size] = pixel;
+            k.copyTo(ks, size);
+            levels[size] = level;
+            ++size;
+        }
+
+        /**
+         * Returns the attenuation factor of a queued ray
+         *
+         * @param i index of the ray in the queue
+         * @return the attenuation factor
+         */
+        Double3 k(int i) {
+            return new Double3(ks[3 * i], ks[3 * i + 1], ks[3 * i + 2]);
+        }
+
+        /**
+         * Creates the ray object of a queued ray
+         *
+         * @param i index of the ray in the queue
+         * @return the ray
+         */
+        Ray ray(int i) {
+            return new Ray(new Point(ox[i], oy[i], oz[i]), Vector.unchecked(dx[i], dy[i], dz[i]));
+        }
+    }
+
+    /**
+     * A queue of shadow queries of a single wave, kept as structure of arrays
+     */
+    private static final class ShadowQueue {
+        /**
+         * Index (in the wave) of the ray whose hit is lighted
+         */
+        int[] hits;
+        /**
+         * The light source
+         */
+        LightSource[] lights;
+        /**
+         * Components of the direction from the light source to the hit point
+         */
+        double[] lx, ly, lz;
+        /**
+         * The unshadowed light reflected by the hit - the intensity scaled by the diffusive and
+         * specular response, three RGB numbers per query
+         */
+        double[] light;
+        /**
+         * Weight of the light - the inverse of its expected amount of samples for a sampled light, 1 otherwise
+         */
+        double[] weights;
+        /**
+         * Amount of queries in the queue
+         */
+        int size = 0;
+
+        /**
+         * Creates an empty queue
+         *
+         * @param capacity initial capacity of the queue
+         */
+        ShadowQueue(int capacity) {
+            capacity = Math.max(capacity, 1);
+            hits = new int[capacity];
+            lights = new LightSource[capacity];
+            lx = new double[capacity];
+            ly = new double[capacity];
+            lz = new double[capacity];
+            light = new double[3 * capacity];
+            weights = new double[capacity];
+        }
+
+        /**
+         * Adds a shadow query to the queue
+         *
+         * @param hit         index of the lighted ray in the wave
+         * @param lightSource the light source
+         * @param l           direction from the light source to the hit point
+         * @param intensity   intensity of the light at the hit
+         * @param response    the diffusive and specular response of the hit
+         * @param weight      weight of the light
+         */
+        void add(int hit, LightSource lightSource, Vector l, Color intensity, Double3 response, double weight) {
+            if (size == hits.length) {
+                int capacity = size * 2;
+                hits = Arrays.copyOf(hits, capacity);
+                lights = Arrays.copyOf(lights, capacity);
+                lx = Arrays.copyOf(lx, capacity);
+                ly = Arrays.copyOf(ly, capacity);
+                lz = Arrays.copyOf(lz, capacity);
+                light = Arrays.copyOf(light, 3 * capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            hits[size] = hit;
+            lights[size] = lightSource;
+            lx[size] = l.getX();
+            ly[size] = l.getY();
+            lz[size] = l.getZ();
+            intensity.addTo(light, size, response);
+            weights[size] = weight;
+            ++size;
+        }
+    }
+
+    /**
+     * Constructs a WavefrontRayTracer with the given scene.
+     *
+     * @param scene the scene to be rendered by this ray tracer
+     */
+    public WavefrontRayTracer(Scene scene) {
+        super(scene);
+    }
+
+    /**
+     * Constructs a WavefrontRayTracer with the given compiled scene.
+     *
+     * @param compiled the compiled scene to be rendered by this ray tracer
+     */
+    public WavefrontRayTracer(CompiledScene compiled) {
+        super(compiled);
+    }
+
+    /**
+     * Adds a shadow query of a light source at a hit, unless the light is behind the surface
+     * relative to the ray, or the hit is out of the radius of influence of the light, or the
+     * unshadowed light of the light source at the hit is negligible
+     *
+     * @param shadows     the shadow queue
+     * @param hit         index of the lighted ray in the wave
+     * @param gp          the hit
+     * @param n           the normal at the hit
+     * @param v           the direction of the ray
+     * @param nv          dot product of the normal and the direction of the ray
+     * @param k           the attenuation factor of the ray
+     * @param lightSource the light source
+     * @param weight      weight of the light
+     */
+    private void addShadow(ShadowQueue shadows, int hit, GeoPoint gp, Vector n, Vector v, double nv, Double3 k,
+                           LightSource lightSource, double weight) {
+        if (!isInfluenced(gp.point, lightSource)) return;
+        Vector l = lightSource.getL(gp.point);
+        double nl = alignZero(n.dotProduct(l));
+        if (nl * nv <= 0) return;
+        Material material = gp.geometry.getMaterial();
+        Color intensity = lightSource.getIntensity(gp.point);
+        Double3 response = calcDiffusive(material, nl).add(calcSpecular(material, n, l, nl, v));
+        if (isNegligible(intensity, response, weight == 1 ? k : k.scale(weight))) return;
+        shadows.add(hit, lightSource, l, intensity, response, weight);
+    }
+
+    @Override
+    public Color traceRay(Ray ray) {
+        return traceRayBatch(List.of(ray))[0];
+    }
+
+    /**
+     * Finds the closest intersections of the rays of a wave with the geometries in the scene,
+     * loading packets of consecutive rays straight from the coordinates of the queue
+     *
+     * @param wave the wave
+     * @return the closest intersection of each ray, null for rays without intersections
+     */
+    private GeoPoint[] findClosestIntersections(RayQueue wave) {
+        GeoPoint[] closestPoints = new GeoPoint[wave.size];
+        RayPacket packet = new RayPacket();
+        for (int first = 0; first < wave.size; first += RayPacket.WIDTH) {
+            packet.load(wave.ox, wave.oy, wave.oz, wave.dx, wave.dy, wave.dz, first, wave.size);
+            geometries().intersectPacket(packet);
+            countRays(packet.size());
+            System.arraycopy(packet.hits, 0, closestPoints, first, packet.size());
+        }
+        return closestPoints;
+    }
+
+    @Override
+    public Color[] traceRayBatch(List<Ray> rays) {
+        final int count = rays.size();
+        // the RGB sums of the pixels, three numbers per pixel
+        double[] sums = new double[3 * count];
+
+        // primary rays generation
+        RayQueue wave = new RayQueue(count);
+        for (Ray ray : rays)
+            wave.add(ray, wave.size, INITIAL_K, MAX_CALC_COLOR_LEVEL);
+
+        boolean primary = true;
+        while (wave.size > 0) {
+            final int size = wave.size;
+
+            // intersection stage
+            GeoPoint[] hits = findClosestIntersections(wave);
+
+            // shading stage - sorted by material, so equal materials are shaded together
+            long[] order = new long[size];
+            for (int i = 0; i < size; ++i)
+                order[i] = hits[i] == null ? i
+                        : ((long) hits[i].geometry.getMaterialIndex() + 1) << 32 | i;
+            Arrays.sort(order);
+
+            Vector[] normals = new Vector[size];
+            ShadowQueue shadows = new ShadowQueue(size);
+            RayQueue next = new RayQueue(size);
+            double[] ks = wave.ks;
+            for (long key : order) {
+                int i = (int) key;
+                int pixel = wave.pixels[i];
+                GeoPoint gp = hits[i];
+                if (gp == null) {
+                    background().addTo(sums, pixel, ks[3 * i], ks[3 * i + 1], ks[3 * i + 2]);
+                    continue;
+                }
+                if (primary)
+                    ambientLight().getIntensity().addTo(sums, pixel, Double3.ONE);
+
+                // shadow rays generation
+                Double3 k = wave.k(i);
+                Vector n = gp.geometry.getNormal(gp.point);
+                Vector v = Vector.unchecked(wave.dx[i], wave.dy[i], wave.dz[i]);
+                double nv = alignZero(n.dotProduct(v));
+                if (nv != 0) {
+                    normals[i] = n;
+                    gp.geometry.getEmission().addTo(sums, pixel, ks[3 * i], ks[3 * i + 1], ks[3 * i + 2]);
+                    int samples = lightSamples();
+                    if (samples == 0)
+                        for (LightSource lightSource : lights())
+                            addShadow(shadows, i, gp, n, v, nv, k, lightSource, 1);
+                    else {
+                        LightTree tree = lightTree();
+                        for (LightSource lightSource : tree.getGlobalLights())
+                            addShadow(shadows, i, gp, n, v, nv, k, lightSource, 1);
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int j = 0; j < samples; ++j) {
+                            LightTree.Sample sample = tree.sample(gp.point, random.nextDouble());
+                            if (sample != null)
+                                addShadow(shadows, i, gp, n, v, nv, k,
+                                        sample.light(), 1 / (samples * sample.probability()));
+                        }
+                    }
+                }
+
+                // secondary rays generation for the next wave
+                int level = wave.levels[i];
+                if (level > 1) {
+                    Material material = gp.geometry.getMaterial();
+                    Double3 kkt = k.product(material.kT);
+                    Double3 kkr = k.product(material.kR);
+                    boolean refracted = !kkt.lowerThan(MIN_CALC_COLOR_K);
+                    boolean reflected = !kkr.lowerThan(MIN_CALC_COLOR_K);
+                    Ray ray = refracted || reflected ? wave.ray(i) : null;
+                    if (refracted)
+                        next.add(constructRefractedRay(gp, ray), pixel, kkt, level - 1);
+                    if (reflected)
+                        next.add(constructReflectedRay(gp, ray), pixel, kkr, level - 1);
+                }
+            }
+
+            // shadow test stage
+            double[] ktr = new double[3];
+            for (int s = 0; s < shadows.size; ++s) {
+                int i = shadows.hits[s];
+                Vector l = Vector.unchecked(shadows.lx[s], shadows.ly[s], shadows.lz[s]);
+                transparency(hits[i], shadows.lights[s], l, normals[i]).copyTo(ktr, 0);
+                double weight = shadows.weights[s];
+                double kr = ktr[0] * ks[3 * i] * weight;
+                double kg = ktr[1] * ks[3 * i + 1] * weight;
+                double kb = ktr[2] * ks[3 * i + 2] * weight;
+                if (kr > MIN_CALC_COLOR_K && kg > MIN_CALC_COLOR_K && kb > MIN_CALC_COLOR_K) {
+                    int pixel = wave.pixels[i];
+                    sums[3 * pixel] += shadows.light[3 * s] * kr;
+                    sums[3 * pixel + 1] += shadows.light[3 * s + 1] * kg;
+                    sums[3 * pixel + 2] += shadows.light[3 * s + 2] * kb;
+                }
+            }
+
+            wave = next;
+            primary = false;
+        }
+
+        Color[] colors = new Color[count];
+        for (int pixel = 0; pixel < count; ++pixel)
+            colors[pixel] = new Color(sums[3 * pixel], sums[3 * pixel + 1], sums[3 * pixel + 2]);
+        return colors;
+    }
+}
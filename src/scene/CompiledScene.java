@@ -0,0 +1,259 @@
+package scene;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.MissingResourceException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * CompiledScene is an immutable snapshot of a {@link Scene} prepared for rendering (see
+ * {@link Scene#compile()}). The nested geometries collections are flattened, the primitives
+ * are grouped by their exact type into arrays and the lights are ordered by their exact type,
+ * so every loop over a group calls the methods of a single class, which the JIT can
+ * inline. The distinct materials of the geometries are collected by their indices in the
+ * shared {@link MaterialTable}.<br/>
+ * Acceleration structures built in the scene before compiling it are kept as they are, so
+ * a big scene should be accelerated first and compiled afterward. Changes of the scene after
+ * compiling it are not seen by the compiled scene.
+ */
+public final class CompiledScene extends Intersectable {
+    /**
+     * The scene the compiled scene was compiled from
+     */
+    private final Scene scene;
+    /**
+     * The background color
+     */
+    private final Color background;
+    /**
+     * The ambient light
+     */
+    private final AmbientLight ambientLight;
+
+    /**
+     * The spheres
+     */
+    private final Sphere[] spheres;
+    /**
+     * The triangles
+     */
+    private final Triangle[] triangles;
+    /**
+     * The polygons (that are not triangles)
+     */
+    private final Polygon[] polygons;
+    /**
+     * The planes
+     */
+    private final Plane[] planes;
+    /**
+     * All the other intersectables - other geometries and acceleration structures
+     */
+    private final Intersectable[] others;
+    /**
+     * Bounding box of all the geometries, null if any of them is unbounded or if there are none
+     */
+    private final BoundingBox box;
+
+    /**
+     * All the lights, grouped by their type - directional lights, point lights, spotlights and
+     * the other light sources last
+     */
+    private final List<LightSource> lights;
+    /**
+     * The distinct materials of the geometries, ordered by their index in the shared table
+     */
+    private final List<Material> materials;
+
+    /**
+     * Compiles a scene
+     *
+     * @param scene the scene
+     * @throws MissingResourceException if any part of the scene is missing
+     */
+    CompiledScene(Scene scene) {
+        final String MISSING_RESOURCE_ERROR = "Missing scene resource";
+        final String SCENE_CLASS = "Scene";
+        if (scene.geometries == null)
+            throw new MissingResourceException(MISSING_RESOURCE_ERROR, SCENE_CLASS, "geometries");
+        if (scene.lights == null || scene.lights.contains(null))
+            throw new MissingResourceException(MISSING_RESOURCE_ERROR, SCENE_CLASS, "lights");
+        if (scene.ambientLight == null)
+            throw new MissingResourceException(MISSING_RESOURCE_ERROR, SCENE_CLASS, "ambientLight");
+        if (scene.background == null)
+            throw new MissingResourceException(MISSING_RESOURCE_ERROR, SCENE_CLASS, "background");
+        this.scene = scene;
+        background = scene.background;
+        ambientLight = scene.ambientLight;
+
+        // flatten the geometries, group them by type and collect their distinct materials
+        List<Sphere> sphereList = new ArrayList<>();
+        List<Triangle> triangleList = new ArrayList<>();
+        List<Polygon> polygonList = new ArrayList<>();
+        List<Plane> planeList = new ArrayList<>();
+        List<Intersectable> otherList = new ArrayList<>();
+        Set<Integer> materialIndices = new TreeSet<>();
+        List<Intersectable> leaves = new ArrayList<>();
+        flatten(scene.geometries, leaves);
+        BoundingBox bounds = null;
+        boolean unbounded = false;
+        for (Intersectable leaf : leaves) {
+            if (leaf instanceof Geometry geometry) {
+                if (geometry.getEmission() == null)
+                    throw new MissingResourceException(MISSING_RESOURCE_ERROR, SCENE_CLASS, "emission");
+                materialIndices.add(geometry.getMaterialIndex());
+            }
+            if (leaf.getClass() == Sphere.class) sphereList.add((Sphere) leaf);
+            else if (leaf.getClass() == Triangle.class) triangleList.add((Triangle) leaf);
+            else if (leaf.getClass() == Polygon.class) polygonList.add((Polygon) leaf);
+            else if (leaf.getClass() == Plane.class) planeList.add((Plane) leaf);
+            else otherList.add(leaf);
+            BoundingBox leafBox = leaf.getBoundingBox();
+            if (leafBox == null) unbounded = true;
+            else bounds = bounds == null ? leafBox : bounds.union(leafBox);
+        }
+        spheres = sphereList.toArray(new Sphere[0]);
+        triangles = triangleList.toArray(new Triangle[0]);
+        polygons = polygonList.toArray(new Polygon[0]);
+        planes = planeList.toArray(new Plane[0]);
+        others = otherList.toArray(new Intersectable[0]);
+        box = unbounded ? null : bounds;
+        List<Material> materialList = new ArrayList<>();
+        for (int index : materialIndices) materialList.add(MaterialTable.SHARED.get(index));
+        materials = List.copyOf(materialList);
+
+        // group the lights by type
+        List<DirectionalLight> directionalList = new ArrayList<>();
+        List<PointLight> pointList = new ArrayList<>();
+        List<SpotLight> spotList = new ArrayList<>();
+        List<LightSource> otherLights = new ArrayList<>();
+        for (LightSource light : scene.lights)
+            if (light.getClass() == DirectionalLight.class) directionalList.add((DirectionalLight) light);
+            else if (light.getClass() == PointLight.class) pointList.add((PointLight) light);
+            else if (light.getClass() == SpotLight.class) spotList.add((SpotLight) light);
+            else otherLights.add(light);
+        List<LightSource> all = new ArrayList<>(directionalList);
+        all.addAll(pointList);
+        all.addAll(spotList);
+        all.addAll(otherLights);
+        lights = List.copyOf(all);
+    }
+
+    /**
+     * Collects the leaves of nested geometries collections
+     *
+     * @param geometries the geometries collection
+     * @param leaves     the list the leaves are added to
+     */
+    private static void flatten(Geometries geometries, List<Intersectable> leaves) {
+        for (Intersectable geometry : geometries.getGeometries())
+            if (geometry instanceof Geometries nested) flatten(nested, leaves);
+            else leaves.add(geometry);
+    }
+
+    /**
+     * Returns the scene the compiled scene was compiled from
+     *
+     * @return the scene
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * Returns the background color
+     *
+     * @return the background color
+     */
+    public Color getBackground() {
+        return background;
+    }
+
+    /**
+     * Returns the ambient light
+     *
+     * @return the ambient light
+     */
+    public AmbientLight getAmbientLight() {
+        return ambientLight;
+    }
+
+    /**
+     * Returns all the lights, grouped by their type
+     *
+     * @return unmodifiable list of the lights
+     */
+    public List<LightSource> getLights() {
+        return lights;
+    }
+
+    /**
+     * Returns the distinct materials of the geometries
+     *
+     * @return unmodifiable list of the materials
+     */
+    public List<Material> getMaterials() {
+        return materials;
+    }
+
+    /**
+     * Returns the amount of the geometries of the compiled scene
+     *
+     * @return the amount of the geometries - acceleration structures count as one
+     */
+    public int size() {
+        return spheres.length + triangles.length + polygons.length + planes.length + others.length;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    @Override
+    public void intersectPacket(RayPacket packet) {
+        for (Sphere sphere : spheres) sphere.intersectPacket(packet);
+        for (Triangle triangle : triangles) triangle.intersectPacket(packet);
+        for (Polygon polygon : polygons) polygon.intersectPacket(packet);
+        for (Plane plane : planes) plane.intersectPacket(packet);
+        for (Intersectable other : others) other.intersectPacket(packet);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        List<GeoPoint> intersections = null;
+        for (Sphere sphere : spheres) intersections = add(intersections, sphere.findGeoIntersections(ray));
+        for (Triangle triangle : triangles) intersections = add(intersections, triangle.findGeoIntersections(ray));
+        for (Polygon polygon : polygons) intersections = add(intersections, polygon.findGeoIntersections(ray));
+        for (Plane plane : planes) intersections = add(intersections, plane.findGeoIntersections(ray));
+        for (Intersectable other : others) intersections = add(intersections, other.findGeoIntersections(ray));
+        return intersections;
+    }
+
+    /**
+     * Adds the intersections with a geometry to the intersections found so far
+     *
+     * @param intersections the intersections found so far, null if none
+     * @param found         the intersections with the geometry, null if none
+     * @return the intersections list
+     */
+    private static List<GeoPoint> add(List<GeoPoint> intersections, List<GeoPoint> found) {
+        if (found == null) return intersections;
+        if (intersections == null) intersections = new LinkedList<>();
+        intersections.addAll(found);
+        return intersections;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledScene{spheres=" + spheres.length + ", triangles=" + triangles.length
+                + ", polygons=" + polygons.length + ", planes=" + planes.length + ", others=" + others.length
+                + ", lights=" + lights.size() + ", materials=" + materials.size() + '}';
+    }
+}
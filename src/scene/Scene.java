@@ -83,4 +83,16 @@ public class Scene {
         this.geometries = geometries;
         return this;
     }
+
+    /**
+     * Compiles the scene for rendering - validates it, flattens the geometries, groups the
+     * geometries and the lights by their types and collects the distinct materials. Acceleration
+     * structures should be built before compiling.
+     *
+     * @return the compiled scene
+     * @throws java.util.MissingResourceException if any part of the scene is missing
+     */
+    public CompiledScene compile() {
+        return new CompiledScene(this);
+    }
 }
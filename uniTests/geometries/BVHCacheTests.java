@@ -0,0 +1,135 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.BVHCache class
+ */
+class BVHCacheTests {
+    /**
+     * Test method for {@link geometries.BVHCache#get(java.util.List)}.
+     */
+    @Test
+    void testGet() throws IOException {
+        Random random = new Random(38);
+        List<Intersectable> geometries = BVHTests.randomGeometries(random, 500);
+        Path directory = Files.createTempDirectory("bvh-cache");
+        BVHCache cache = new BVHCache(directory);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: First request builds the hierarchy and stores it
+        BVH built = cache.get(geometries);
+        assertEquals(1, cache.getMisses(), "First request should miss");
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count(), "The hierarchy should be stored");
+        }
+
+        // TC02: Second request loads the same hierarchy over the same primitives
+        BVH loaded = cache.get(geometries);
+        assertEquals(1, cache.getHits(), "Second request should hit");
+        assertEquals(built.getNodeCount(), loaded.getNodeCount(), "Wrong amount of nodes");
+        assertArrayEquals(built.getBounds(), loaded.getBounds(), "Wrong node bounds");
+        assertArrayEquals(built.getLinks(), loaded.getLinks(), "Wrong node links");
+        assertArrayEquals(built.getPrimitives(), loaded.getPrimitives(), "Wrong primitives order");
+        for (int r = 0; r < 100; ++r) {
+            Ray ray = new Ray(new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80)),
+                    new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expected = built.findGeoIntersections(ray);
+            List<GeoPoint> result = loaded.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+        }
+
+        // TC03: Different primitives do not use the stored hierarchy
+        cache.get(geometries.subList(0, 400));
+        assertEquals(2, cache.getMisses(), "Different primitives should miss");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Corrupted file is a miss and is rewritten
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) Files.write(file, new byte[10]);
+        }
+        cache.get(geometries);
+        assertEquals(3, cache.getMisses(), "Corrupted file should miss");
+        cache.get(geometries);
+        assertEquals(2, cache.getHits(), "Rewritten file should hit");
+
+        // TC12: Files with a corrupted node link, node box or primitives order are misses
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        cache.get(geometries);
+        Path file;
+        try (var files = Files.list(directory)) {
+            file = files.findFirst().orElseThrow();
+        }
+        byte[] stored = Files.readAllBytes(file);
+        int nodeCount = built.getNodeCount();
+        int links = HEADER_SIZE + 6 * Float.BYTES * nodeCount;
+        int order = links + 2 * Integer.BYTES * nodeCount;
+        int misses = cache.getMisses();
+        // the right child of the root out of the nodes
+        assertMiss(cache, geometries, file, corrupt(stored, links, nodeCount + 5), ++misses, "Wrong child link");
+        // the minimum of the root box above its maximum
+        assertMiss(cache, geometries, file, corrupt(stored, HEADER_SIZE, Float.floatToIntBits(1e30f)), ++misses,
+                "Wrong node box");
+        // the first primitive repeated
+        assertMiss(cache, geometries, file, corrupt(stored, order + Integer.BYTES,
+                ByteBuffer.wrap(stored, order, Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).getInt()), ++misses,
+                "Primitives order is not a permutation");
+
+        try (var files = Files.list(directory)) {
+            for (Path f : files.toList()) Files.delete(f);
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Size of the header of a cache file
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + 2 * Integer.BYTES + 6 * Double.BYTES;
+
+    /**
+     * Copies the bytes of a cache file with a single integer replaced
+     *
+     * @param bytes  the bytes of the file
+     * @param offset offset of the integer
+     * @param value  the new value of the integer
+     * @return the corrupted bytes
+     */
+    private static byte[] corrupt(byte[] bytes, int offset, int value) {
+        byte[] corrupted = bytes.clone();
+        ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+        return corrupted;
+    }
+
+    /**
+     * Writes a corrupted cache file and checks that the cache misses it
+     *
+     * @param cache      the cache
+     * @param geometries the primitives of the file
+     * @param file       the cache file
+     * @param bytes      the corrupted bytes of the file
+     * @param misses     the expected amount of misses afterward
+     * @param message    the message of a failure
+     * @throws IOException if the file cannot be written
+     */
+    private static void assertMiss(BVHCache cache, List<Intersectable> geometries, Path file, byte[] bytes,
+                                   int misses, String message) throws IOException {
+        Files.write(file, bytes);
+        assertDoesNotThrow(() -> cache.get(geometries), message);
+        assertEquals(misses, cache.getMisses(), message);
+    }
+}
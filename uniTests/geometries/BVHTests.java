@@ -0,0 +1,206 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.BVH class
+ */
+class BVHTests {
+
+    /**
+     * Creates random spheres and triangles
+     *
+     * @param random the random numbers generator
+     * @param count  amount of geometries
+     * @return the geometries
+     */
+    static List<Intersectable> randomGeometries(Random random, int count) {
+        List<Intersectable> geometries = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            Point p = new Point(random.nextDouble(-50, 50), random.nextDouble(-50, 50), random.nextDouble(-50, 50));
+            if (i % 2 == 0)
+                geometries.add(new Sphere(random.nextDouble(0.5, 4), p));
+            else
+                geometries.add(new Triangle(p, p.add(new Vector(random.nextDouble(1, 5), 0, random.nextDouble(-2, 2))),
+                        p.add(new Vector(0, random.nextDouble(1, 5), random.nextDouble(-2, 2)))));
+        }
+        return geometries;
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Random random = new Random(32);
+        List<Intersectable> geometries = randomGeometries(random, 400);
+        Geometries flat = new Geometries(geometries.toArray(new Intersectable[0]));
+        BVH bvh = new BVH(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays - the same intersections as the flat collection
+        for (int r = 0; r < 300; ++r) {
+            Ray ray = new Ray(new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80)),
+                    new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expected = flat.findGeoIntersections(ray);
+            List<GeoPoint> result = bvh.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+            if (expected != null)
+                assertTrue(result.containsAll(expected), "Wrong intersections");
+        }
+
+        // TC02: Hierarchy big enough to be built in parallel - the same intersections as the flat collection
+        List<Intersectable> many = randomGeometries(random, 10_000);
+        Geometries manyFlat = new Geometries(many.toArray(new Intersectable[0]));
+        BVH manyBvh = new BVH(many);
+        for (int r = 0; r < 50; ++r) {
+            Ray ray = new Ray(new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80)),
+                    new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expected = manyFlat.findGeoIntersections(ray);
+            List<GeoPoint> result = manyBvh.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty hierarchy
+        assertNull(new BVH().findGeoIntersections(new Ray(Point.ZERO, new Vector(1, 0, 0))),
+                "Empty hierarchy has no intersections");
+
+        // TC12: Unbounded geometry
+        assertThrows(IllegalArgumentException.class,
+                () -> new BVH(new Plane(Point.ZERO, new Vector(0, 0, 1))), "Plane cannot be in a hierarchy");
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    void testIntersectPacket() {
+        Random random = new Random(33);
+        List<Intersectable> geometries = randomGeometries(random, 400);
+        Geometries flat = new Geometries(geometries.toArray(new Intersectable[0]));
+        BVH bvh = new BVH(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Packets of random rays - the same nearest hits as the flat collection
+        List<Ray> rays = new ArrayList<>();
+        for (int r = 0; r < 200; ++r)
+            rays.add(new Ray(new Point(0, 0, 100), new Vector(random.nextDouble(-0.5, 0.5),
+                    random.nextDouble(-0.5, 0.5), -1)));
+        RayPacket expected = new RayPacket();
+        RayPacket result = new RayPacket();
+        for (int first = 0; first < rays.size(); first += RayPacket.WIDTH) {
+            expected.load(rays, first);
+            result.load(rays, first);
+            flat.intersectPacket(expected);
+            bvh.intersectPacket(result);
+            for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+                assertEquals(expected.t[lane], result.t[lane], 1e-9, "Wrong nearest distance");
+                assertEquals(expected.hits[lane] == null ? null : expected.hits[lane].geometry,
+                        result.hits[lane] == null ? null : result.hits[lane].geometry, "Wrong nearest geometry");
+            }
+        }
+    }
+
+    /**
+     * Creates instances of a unit sphere, randomly placed
+     *
+     * @param random the random numbers generator
+     * @param count  amount of instances
+     * @return the instances
+     */
+    static List<Instance> randomInstances(Random random, int count) {
+        Sphere sphere = new Sphere(1, Point.ZERO);
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < count; ++i)
+            instances.add(new Instance(sphere, Transform.scaling(random.nextDouble(0.5, 3))));
+        move(random, instances, 50);
+        return instances;
+    }
+
+    /**
+     * Moves instances to random places, keeping their scale
+     *
+     * @param random    the random numbers generator
+     * @param instances the instances
+     * @param range     the coordinates range of the new places
+     */
+    static void move(Random random, List<Instance> instances, double range) {
+        for (Instance instance : instances) {
+            BoundingBox box = instance.getBoundingBox();
+            double scale = (box.maxX - box.minX) / 2;
+            instance.setTransform(Transform.scaling(scale).then(Transform.translation(new Vector(
+                    random.nextDouble(-range, range), random.nextDouble(-range, range), random.nextDouble(-range, range)))));
+        }
+    }
+
+    /**
+     * Checks that an intersectable has the same intersections as the flat collection of its
+     * instances for random rays
+     *
+     * @param random   the random numbers generator
+     * @param expected the flat collection
+     * @param result   the tested intersectable
+     */
+    static void assertSameIntersections(Random random, Intersectable expected, Intersectable result) {
+        for (int r = 0; r < 200; ++r) {
+            Ray ray = new Ray(new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80)),
+                    new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expectedPoints = expected.findGeoIntersections(ray);
+            List<GeoPoint> resultPoints = result.findGeoIntersections(ray);
+            assertEquals(expectedPoints == null ? 0 : expectedPoints.size(),
+                    resultPoints == null ? 0 : resultPoints.size(), "Wrong number of intersections");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#update()}.
+     */
+    @Test
+    void testUpdate() {
+        Random random = new Random(36);
+        List<Instance> instances = randomInstances(random, 300);
+        Geometries flat = new Geometries(instances.toArray(new Intersectable[0]));
+        BVH bvh = new BVH(instances);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Small moves - the hierarchy is refitted and has the same intersections as the flat collection
+        for (Instance instance : instances) {
+            BoundingBox box = instance.getBoundingBox();
+            instance.setTransform(instance.getTransform().then(Transform.translation(
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), random.nextDouble(-1, 1)))));
+            assertNotEquals(box.minX, instance.getBoundingBox().minX, "Instance box should move");
+        }
+        assertFalse(bvh.update(), "Small moves should not rebuild the hierarchy");
+        assertSameIntersections(random, flat, bvh);
+
+        // TC02: Shuffling the instances - the hierarchy is rebuilt
+        move(random, instances, 50);
+        assertTrue(bvh.update(), "Shuffling should rebuild the hierarchy");
+        assertSameIntersections(random, flat, bvh);
+
+        // TC03: Collection with a hierarchy - its bounding box follows the instances
+        Geometries collection = new Geometries(instances.toArray(new Intersectable[0])).buildBvh();
+        move(random, instances, 100);
+        collection.update();
+        BoundingBox expected = new Geometries(instances.toArray(new Intersectable[0])).getBoundingBox();
+        BoundingBox result = collection.getBoundingBox();
+        assertEquals(expected.minX, result.minX, 1e-9, "Wrong collection box");
+        assertEquals(expected.maxZ, result.maxZ, 1e-9, "Wrong collection box");
+        assertSameIntersections(random, flat, collection);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty hierarchy
+        assertFalse(new BVH().update(), "Empty hierarchy should not be rebuilt");
+    }
+}
@@ -0,0 +1,121 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.CompressedBVH class
+ */
+class CompressedBVHTests {
+
+    /**
+     * Test method for {@link geometries.CompressedBVH#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Random random = new Random(35);
+        List<Intersectable> geometries = BVHTests.randomGeometries(random, 2000);
+        Geometries flat = new Geometries(geometries.toArray(new Intersectable[0]));
+        CompressedBVH compressed = new CompressedBVH(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays - the same intersections as the flat collection
+        for (int r = 0; r < 300; ++r) {
+            Ray ray = new Ray(new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80)),
+                    new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expected = flat.findGeoIntersections(ray);
+            List<GeoPoint> result = compressed.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+            if (expected != null)
+                assertTrue(result.containsAll(expected), "Wrong intersections");
+        }
+
+        // TC02: The nodes take much less memory than the nodes of the binary hierarchy
+        assertTrue(compressed.getNodeMemory() * 3 < new BVH(geometries).getNodeMemory(),
+                "Compressed hierarchy is too big");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty hierarchy
+        assertNull(new CompressedBVH().findGeoIntersections(new Ray(Point.ZERO, new Vector(1, 0, 0))),
+                "Empty hierarchy has no intersections");
+
+        // TC12: Single primitive - the root is a leaf
+        assertEquals(2, new CompressedBVH(new Sphere(1, Point.ZERO))
+                        .findGeoIntersections(new Ray(new Point(-2, 0, 0), new Vector(1, 0, 0))).size(),
+                "Wrong number of intersections with a single primitive");
+
+        // TC13: Geometries with the same centroid are still split into small leaves
+        List<Intersectable> nested = new ArrayList<>();
+        for (int i = 1; i <= 100; ++i) nested.add(new Sphere(i, Point.ZERO));
+        assertEquals(200, new CompressedBVH(nested)
+                        .findGeoIntersections(new Ray(new Point(-200, 0, 0), new Vector(1, 0, 0))).size(),
+                "Wrong number of intersections with nested spheres");
+    }
+
+    /**
+     * Test method for {@link geometries.CompressedBVH#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    void testIntersectPacket() {
+        Random random = new Random(36);
+        List<Intersectable> geometries = BVHTests.randomGeometries(random, 2000);
+        BVH bvh = new BVH(geometries);
+        CompressedBVH compressed = new CompressedBVH(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Packets of random rays - the same nearest hits as the binary hierarchy
+        List<Ray> rays = new ArrayList<>();
+        for (int r = 0; r < 200; ++r)
+            rays.add(new Ray(new Point(0, 0, 100), new Vector(random.nextDouble(-0.5, 0.5),
+                    random.nextDouble(-0.5, 0.5), -1)));
+        RayPacket expected = new RayPacket();
+        RayPacket result = new RayPacket();
+        for (int first = 0; first < rays.size(); first += RayPacket.WIDTH) {
+            expected.load(rays, first);
+            result.load(rays, first);
+            bvh.intersectPacket(expected);
+            compressed.intersectPacket(result);
+            for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+                assertEquals(expected.t[lane], result.t[lane], 1e-9, "Wrong nearest distance");
+                assertEquals(expected.hits[lane] == null ? null : expected.hits[lane].geometry,
+                        result.hits[lane] == null ? null : result.hits[lane].geometry, "Wrong nearest geometry");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.CompressedBVH#update()}.
+     */
+    @Test
+    void testUpdate() {
+        Random random = new Random(37);
+        List<Instance> instances = BVHTests.randomInstances(random, 300);
+        Geometries flat = new Geometries(instances.toArray(new Intersectable[0]));
+        CompressedBVH bvh = new CompressedBVH(instances);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Small moves - the hierarchy is refitted and has the same intersections as the flat collection
+        for (Instance instance : instances)
+            instance.setTransform(instance.getTransform().then(Transform.translation(
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), random.nextDouble(-1, 1)))));
+        assertFalse(bvh.update(), "Small moves should not rebuild the hierarchy");
+        BVHTests.assertSameIntersections(random, flat, bvh);
+
+        // TC02: Shuffling the instances - the hierarchy is rebuilt
+        BVHTests.move(random, instances, 50);
+        assertTrue(bvh.update(), "Shuffling should rebuild the hierarchy");
+        BVHTests.assertSameIntersections(random, flat, bvh);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty hierarchy
+        assertFalse(new CompressedBVH().update(), "Empty hierarchy should not be rebuilt");
+    }
+}
@@ -1,136 +1,166 @@
-//package geometries;
-//
-//import org.junit.jupiter.api.Test;
-//import primitives.Point;
-//import primitives.Ray;
-//import primitives.Vector;
-//import geometries.Intersectable.GeoPoint;
-//import java.util.List;
-//
-//import static org.junit.jupiter.api.Assertions.*;
-//
-///**
-// * Test class for {@link geometries.Cylinder}.
-// */
-//public class CylinderTests {
-//
-//    @Test
-//    public void testGetNormal() {
-//        // ============ Equivalence Partitions Tests ==============
-//        Cylinder cylinder = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 5);
-//
-//        // TC01: point on the side of the cylinder
-//        Point pointOnSide = new Point(1, 0, 2);
-//        Vector expectedNormalSide = new Vector(1, 0, 0).normalize();
-//        assertEquals(expectedNormalSide, cylinder.getNormal(pointOnSide), "TC01: Bad normal for point on the side of the cylinder");
-//
-//        // TC02: point on the bottom base of the cylinder
-//        Point pointOnBottomBase = new Point(0, 0, 0);
-//        Vector expectedNormalBottomBase = new Vector(0, 0, -1).normalize();
-//        assertEquals(expectedNormalBottomBase, cylinder.getNormal(pointOnBottomBase), "TC02: Bad normal for point on the bottom base of the cylinder");
-//
-//        // TC03: point on the edge of the bottom base
-//        Point pointOnBottomEdge = new Point(0.5, 0.5, 0);
-//        assertEquals(expectedNormalBottomBase, cylinder.getNormal(pointOnBottomEdge), "TC03: Bad normal for point on the edge of the bottom base");
-//
-//        // =============== Boundary Values Tests ==================
-//        // TC04: point on the top base of the cylinder
-//        Point pointOnTopBase = new Point(0, 0, 5);
-//        Vector expectedNormalTopBase = new Vector(0, 0, 1).normalize();
-//        assertEquals(expectedNormalTopBase, cylinder.getNormal(pointOnTopBase), "TC04: Bad normal for point on the top base of the cylinder");
-//
-//        // TC05: point on the edge of the top base
-//        Point pointOnTopEdge = new Point(0.5, 0.5, 5);
-//        assertEquals(expectedNormalTopBase, cylinder.getNormal(pointOnTopEdge), "TC05: Bad normal for point on the edge of the top base");
-//    }
-//
-//    /**
-//     * Test method for {@link geometries.Cylinder#findIntersections(primitives.Ray)}.
-//     */
-//    @Test
-//    public void testFindIntersections() {
-//        Cylinder cylinder = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 2);
-//
-//        // ============ Equivalence Partitions Tests ==============
-//        // TC01: Ray's line is outside the cylinder (0 points)
-//        assertNull(cylinder.findIntersections(new Ray(new Point(3, 3, 0), new Vector(0, 0, 1))),
-//                "Ray's line is outside the cylinder");
-//
-//        // TC02: Ray starts before and crosses the cylinder (2 points)
-//        Point p1 = new Point(1, 1, 0);
-//        Point p2 = new Point(1, 1, 2);
-//        List<Point> result = cylinder.findIntersections(new Ray(new Point(1, 1, -1), new Vector(0, 0, 1)));
-////        assertEquals(2, result.size(), "Wrong number of points");
-////        assertTrue(result.contains(p1) && result.contains(p2), "Ray crosses cylinder");
-//
-//        // TC03: Ray starts inside the cylinder (1 point)
-//        Point p3 = new Point(0, 0, 1);
-//        result = cylinder.findIntersections(new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)));
-//        assertEquals(1, result.size(), "Wrong number of points");
-//        assertTrue(result.contains(p3), "Ray inside cylinder");
-//
-//        // TC04: Ray starts after the cylinder (0 points)
-//        assertNull(cylinder.findIntersections(new Ray(new Point(0, 0, 3), new Vector(0, 0, 1))),
-//                "Ray's line is outside the cylinder");
-//
-//        // =============== Boundary Values Tests ==================
-//        // TC11: Ray's line is tangent to the cylinder (1 point)
-//        Point p4 = new Point(1, 1, 2);
-//        result = cylinder.findIntersections(new Ray(new Point(1, 1, 0), new Vector(1, 0, 2)));
-//        assertEquals(1, result.size(), "Wrong number of points");
-//        assertTrue(result.contains(p4), "Ray tangent to cylinder");
-//
-//        // TC12: Ray's line is parallel to the cylinder (0 points)
-//        assertNull(cylinder.findIntersections(new Ray(new Point(1, 1, 0), new Vector(1, 0, 0))),
-//                "Ray's line is parallel to the cylinder");
-//    }
-//
-//    @Test
-//    public void testFindGeoIntersectionsHelper() {
-//        Cylinder cylinder = new Cylinder(1, new Ray(Point.ZERO, new Vector(0, 0, 1)), 2);
-//
-//        // Test case 1: Ray from above, not intersecting the cylinder
-//        Ray ray1 = new Ray(new Point(0, 3, 3), new Vector(0, 0, -1));
-//        assertNull(cylinder.findGeoIntersectionsHelper(ray1), "Ray should not intersect cylinder");
-//
-//        // Test case 2: Ray intersecting the side surface at two points (general case of double intersection)
-//        Ray ray2 = new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0));
-//        List<GeoPoint> result2 = cylinder.findGeoIntersectionsHelper(ray2);
-//        assertNotNull(result2, "Ray should intersect cylinder");
-//        assertEquals(result2.size(), 2,"Should have two intersection points" );
-//
-//        // Test case 3: Ray entering and exiting through bases
-//        Ray ray3 = new Ray(new Point(0, 0, -1), new Vector(0, 0, 1));
-//        List<GeoPoint> result3 = cylinder.findGeoIntersectionsHelper(ray3);
-//        assertNotNull(result3,"Ray should intersect cylinder");
-//        assertEquals(2, result3.size(),"Should have two intersection points");
-//
-//        // Test case 4: Ray touching the edge of the base (tangent)
-//        Ray ray4 = new Ray(new Point(1, 0, -1), new Vector(0, 1, 1));
-//        List<GeoPoint> result4 = cylinder.findGeoIntersectionsHelper(ray4);
-//        assertNotNull(result4, "Ray should intersect cylinder");
-//        assertEquals(1, result4.size(),"Should have one intersection point");
-//
-//        // Test case 5: Ray inside the cylinder along the axis
-//        Ray ray5 = new Ray(new Point(0, 0, 0.5), new Vector(0, 0, 1));
-//        List<GeoPoint> result5 = cylinder.findGeoIntersectionsHelper(ray5);
-//        assertNotNull( result5, "Ray should intersect cylinder");
-//        assertEquals(1, result5.size(),"Should have one intersection point");
-//
-//        // Test case 6: Ray passing through the center of bases
-//        Ray ray6 = new Ray(new Point(0, 0, -1), new Vector(0, 0, 1));
-//        List<GeoPoint> result6 = cylinder.findGeoIntersectionsHelper(ray6);
-//        assertNotNull(result6, "Ray should intersect cylinder");
-//        assertEquals(2, result6.size(), "Should have two intersection points");
-//
-//        // Test case 7: Ray parallel to cylinder axis and outside
-//        Ray ray7 = new Ray(new Point(2, 0, 0), new Vector(0, 0, 1));
-//        assertNull(cylinder.findGeoIntersectionsHelper(ray7), "Ray should not intersect cylinder");
-//
-//        // Test case 8: Ray entering through one side and exiting through the other side surface
-//        Ray ray8 = new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0.1));
-//        List<GeoPoint> result8 = cylinder.findGeoIntersectionsHelper(ray8);
-//        assertNotNull(result8, "Ray should intersect cylinder");
-//        assertEquals(2, result8.size(),"Should have two intersection points");
-//    }
-//}
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link geometries.Cylinder}.
+ */
+class CylinderTests {
+
+    /**
+     * Test method for {@link geometries.Cylinder#getNormal(primitives.Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        Cylinder cylinder = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 5);
+
+        // TC01: point on the side of the cylinder
+        assertEquals(new Vector(1, 0, 0), cylinder.getNormal(new Point(1, 0, 2)),
+                "TC01: Bad normal for point on the side of the cylinder");
+
+        // TC02: point on the bottom base of the cylinder
+        assertEquals(new Vector(0, 0, -1), cylinder.getNormal(new Point(0.5, 0.5, 0)),
+                "TC02: Bad normal for point on the bottom base of the cylinder");
+
+        // TC03: point on the top base of the cylinder
+        assertEquals(new Vector(0, 0, 1), cylinder.getNormal(new Point(0.5, 0.5, 5)),
+                "TC03: Bad normal for point on the top base of the cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the center of the bottom base
+        assertEquals(new Vector(0, 0, -1), cylinder.getNormal(new Point(0, 0, 0)),
+                "TC11: Bad normal for the center of the bottom base");
+
+        // TC12: the center of the top base
+        assertEquals(new Vector(0, 0, 1), cylinder.getNormal(new Point(0, 0, 5)),
+                "TC12: Bad normal for the center of the top base");
+    }
+
+    /**
+     * Test method for {@link geometries.Cylinder#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Cylinder cylinder = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray's line is outside the cylinder (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(3, 3, 0), new Vector(0, 0, 1))),
+                "Ray's line is outside the cylinder");
+
+        // TC02: Ray crosses the side twice (2 points)
+        List<Point> result = cylinder.findIntersections(new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0)));
+        assertEquals(List.of(new Point(-1, 0, 1), new Point(1, 0, 1)), result, "Ray crosses the side");
+
+        // TC03: Ray crosses both bases (2 points)
+        result = cylinder.findIntersections(new Ray(new Point(0.5, 0, -1), new Vector(0, 0, 1)));
+        assertEquals(List.of(new Point(0.5, 0, 0), new Point(0.5, 0, 2)), result, "Ray crosses the bases");
+
+        // TC04: Ray crosses a base and the side (2 points)
+        result = cylinder.findIntersections(new Ray(new Point(0, 0, -1), new Vector(1, 0, 2)));
+        assertEquals(List.of(new Point(0.5, 0, 0), new Point(1, 0, 1)), result, "Ray crosses a base and the side");
+
+        // TC05: Ray starts inside the cylinder (1 point)
+        result = cylinder.findIntersections(new Ray(new Point(0, 0, 1), new Vector(0, 0, 1)));
+        assertEquals(List.of(new Point(0, 0, 2)), result, "Ray starts inside the cylinder");
+
+        // TC06: Ray starts after the cylinder (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(0, 0, 3), new Vector(0, 0, 1))),
+                "Ray starts after the cylinder");
+
+        // TC07: Ray's line crosses the tube beyond the height (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(-2, 0, 5), new Vector(1, 0, 0))),
+                "Ray crosses the tube above the cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray's line is tangent to the side (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(1, -2, 1), new Vector(0, 1, 0))),
+                "Ray's line is tangent to the cylinder");
+
+        // TC12: Ray on the plane of a base, outside the disc (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(2, 2, 2), new Vector(1, 0, 0))),
+                "Ray on the plane of the top base");
+
+        // TC13: Ray starts on the bottom base and goes inside (1 point)
+        result = cylinder.findIntersections(new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        assertEquals(List.of(new Point(0, 0, 2)), result, "Ray starts on the bottom base");
+
+        // TC14: Ray parallel to the axis outside the cylinder (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(2, 0, 0), new Vector(0, 0, 1))),
+                "Ray's line is parallel to the cylinder");
+    }
+
+    /**
+     * Test method for {@link geometries.Cylinder#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Slanted cylinder - the box contains sampled surface points and is tight
+        Cylinder cylinder = new Cylinder(1, new Ray(new Point(1, 2, 3), new Vector(1, 1, 1)), 4);
+        BoundingBox box = cylinder.getBoundingBox();
+        Random random = new Random(39);
+        Vector v = new Vector(1, 1, 1).normalize();
+        Vector u = new Vector(1, -1, 0).normalize();
+        Vector w = v.crossProduct(u);
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 2000; ++i) {
+            double angle = random.nextDouble(0, 2 * Math.PI);
+            Point base = i % 2 == 0 ? new Point(1, 2, 3) : new Point(1, 2, 3).add(v.scale(4));
+            Point p = base.add(u.scale(Math.cos(angle))).add(w.scale(Math.sin(angle)));
+            assertTrue(p.getX() >= box.minX - 1e-9 && p.getX() <= box.maxX + 1e-9
+                    && p.getY() >= box.minY - 1e-9 && p.getY() <= box.maxY + 1e-9
+                    && p.getZ() >= box.minZ - 1e-9 && p.getZ() <= box.maxZ + 1e-9, "Point outside the box");
+            minX = Math.min(minX, p.getX());
+            maxX = Math.max(maxX, p.getX());
+        }
+        assertEquals(minX, box.minX, 1e-3, "The box is not tight");
+        assertEquals(maxX, box.maxX, 1e-3, "The box is not tight");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Axis along a coordinate axis
+        box = new Cylinder(1, new Ray(Point.ZERO, new Vector(0, 0, 1)), 2).getBoundingBox();
+        assertEquals(-1, box.minX, 1e-12, "Wrong box");
+        assertEquals(2, box.maxZ, 1e-12, "Wrong box");
+        assertEquals(0, box.minZ, 1e-12, "Wrong box");
+    }
+
+    /**
+     * Test method for {@link geometries.Cylinder#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    void testIntersectPacket() {
+        Cylinder cylinder = new Cylinder(2, new Ray(new Point(0, 0, -1), new Vector(0.2, 0.1, 1)), 3);
+        Random random = new Random(40);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Packets of random rays - the nearest of the single ray intersections
+        List<Ray> rays = new ArrayList<>();
+        for (int r = 0; r < 200; ++r)
+            rays.add(new Ray(new Point(random.nextDouble(-6, 6), random.nextDouble(-6, 6), 10),
+                    new Vector(random.nextDouble(-0.5, 0.5), random.nextDouble(-0.5, 0.5), -1)));
+        RayPacket packet = new RayPacket();
+        for (int first = 0; first < rays.size(); first += RayPacket.WIDTH) {
+            packet.load(rays, first);
+            cylinder.intersectPacket(packet);
+            for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+                Ray ray = rays.get(first + lane);
+                List<GeoPoint> intersections = cylinder.findGeoIntersections(ray);
+                if (intersections == null)
+                    assertNull(packet.hits[lane], "There should be no hit");
+                else
+                    assertEquals(intersections.getFirst().point.distance(ray.getP0()), packet.t[lane], 1e-9,
+                            "Wrong nearest distance");
+            }
+        }
+    }
+}
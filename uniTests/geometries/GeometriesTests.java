@@ -4,6 +4,8 @@ package geometries;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GeometriesTests {
@@ -46,4 +48,76 @@ class GeometriesTests {
                 "Wrong number of points");
     }
 
-}
\ No newline at end of file
+    /**
+     * Test method for {@link geometries.Geometries#buildAcceleration(geometries.Acceleration)}.
+     */
+    @Test
+    void testBuildAcceleration() {
+        Ray ray = new Ray(new Point(6, 6, 6), new Vector(-1, -3, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Unbounded geometries are kept beside the structure - the same intersections
+        for (Acceleration acceleration : Acceleration.values()) {
+            Geometries geometries = new Geometries(
+                    new Sphere(1, new Point(5, 5, 5)),
+                    new Plane(new Point(2, 3, 4), new Vector(0, 1, 0)),
+                    new Triangle(new Point(4, 4, 4), new Point(6.66, 4, 4), new Point(5.33, 4, 6.66)),
+                    new Tube(0.5, new Ray(new Point(0, 0, 0), new Vector(1, 0, 0))),
+                    new Sphere(1, new Point(-5, -5, -5))
+            ).buildAcceleration(acceleration);
+            assertNull(geometries.getBoundingBox(), "Collection with unbounded geometries is unbounded");
+            assertEquals(4, geometries.findIntersections(ray).size(), "Wrong number of points " + acceleration);
+        }
+
+        // TC02: A polygon with many vertices is triangulated into a mesh - the same intersections
+        Point[] vertices = new Point[Geometries.TRIANGULATED_POLYGON_SIZE];
+        for (int i = 0; i < vertices.length; ++i) {
+            double angle = 2 * Math.PI * i / vertices.length;
+            vertices[i] = new Point(2 * Math.cos(angle), 2 * Math.sin(angle), -3);
+        }
+        Ray down = new Ray(new Point(0.3, 0.2, 0), new Vector(0.1, 0, -1));
+        Geometries polygons = new Geometries(new Polygon(vertices), new Sphere(1, new Point(0, 0, -8)));
+        List<Point> expected = polygons.findIntersections(down);
+        polygons.buildBvh();
+        assertEquals(expected, polygons.findIntersections(down), "Wrong intersections of a triangulated polygon");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Only unbounded geometries - nothing to build
+        Geometries planes = new Geometries(new Plane(new Point(2, 3, 4), new Vector(0, 1, 0)),
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1))).buildBvh();
+        assertEquals(2, planes.findIntersections(ray).size(), "Wrong number of points");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    void testIntersectPacket() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Packet distances are the distances of the nearest single ray intersections
+        Geometries geometries = new Geometries(new Sphere(1, new Point(5, 0, 0)),
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)));
+        List<Ray> rays = List.of(
+                new Ray(Point.ZERO, new Vector(1, 0, 0)),
+                new Ray(Point.ZERO, new Vector(0, 0, -1)),
+                new Ray(Point.ZERO, new Vector(0, 1, 0)));
+        RayPacket packet = new RayPacket();
+        packet.load(rays, 0);
+        geometries.intersectPacket(packet);
+        assertEquals(4, packet.t[0], 1e-9, "Wrong distance to the sphere");
+        assertEquals(10, packet.t[1], 1e-9, "Wrong distance to the plane");
+        assertNull(packet.hits[2], "Ray should miss the geometries");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A nested collection filled after it was added - the packet finds what a single ray finds
+        Geometries nested = new Geometries(new Sphere(1, new Point(5, 0, 0)));
+        Geometries scene = new Geometries(nested);
+        nested.add(new Sphere(1, new Point(0, 5, 0)));
+        Ray up = new Ray(Point.ZERO, new Vector(0, 1, 0));
+        assertEquals(2, scene.findIntersections(up).size(), "Wrong number of points");
+        assertEquals(6, scene.getBoundingBox().maxY, 1e-9, "The box should cover the added sphere");
+        packet.load(List.of(up), 0);
+        scene.intersectPacket(packet);
+        assertEquals(4, packet.t[0], 1e-9, "The packet should hit the added sphere");
+    }
+}
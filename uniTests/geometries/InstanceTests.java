@@ -0,0 +1,113 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.Instance class
+ */
+class InstanceTests {
+    /**
+     * The model - a unit sphere and a triangle below it
+     */
+    private final Geometries model = new Geometries(
+            new Sphere(1, Point.ZERO).setMaterial(new Material().setKd(0.5)),
+            new Triangle(new Point(-1, -2, -1), new Point(1, -2, -1), new Point(0, -2, 1)));
+    /**
+     * The instance transformation - scale by 2, rotate around the z axis and move
+     */
+    private final Transform transform = Transform.scaling(2)
+            .then(Transform.rotation(new Vector(0, 0, 1), 90))
+            .then(Transform.translation(new Vector(10, 0, 0)));
+    /**
+     * The model as placed by the instance transformation
+     */
+    private final Geometries placed = new Geometries(
+            new Sphere(2, new Point(10, 0, 0)),
+            new Triangle(new Point(14, -2, -2), new Point(14, 2, -2), new Point(14, 0, 2)));
+
+    /**
+     * Test method for {@link geometries.Instance#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Instance instance = new Instance(model, transform);
+        Comparator<GeoPoint> byX = Comparator.comparingDouble(gp -> gp.point.getX());
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the sphere and the triangle of the instance
+        Ray ray = new Ray(new Point(0, 0.5, 0), new Vector(1, 0, 0));
+        List<GeoPoint> result = new ArrayList<>(instance.findGeoIntersections(ray));
+        List<GeoPoint> expected = new ArrayList<>(placed.findGeoIntersections(ray));
+        assertEquals(3, result.size(), "Wrong number of intersections");
+        result.sort(byX);
+        expected.sort(byX);
+        for (int i = 0; i < 3; ++i) {
+            GeoPoint gp = result.get(i);
+            assertTrue(expected.get(i).point.distance(gp.point) < 1e-9, "Wrong intersection point");
+            Vector normal = expected.get(i).geometry.getNormal(gp.point);
+            assertEquals(1, Math.abs(normal.dotProduct(gp.geometry.getNormal(gp.point))), 1e-9, "Wrong normal");
+        }
+
+        // TC02: The material of an intersected geometry is the material of the model geometry
+        Geometry sphere = ((Instance.InstancedGeometry) result.get(1).geometry).getGeometry();
+        assertSame(sphere.getMaterial(), result.get(1).geometry.getMaterial(), "Wrong material");
+        assertInstanceOf(Sphere.class, sphere, "Wrong model geometry");
+
+        // TC03: Ray misses the instance, although it crosses the model in the object space
+        assertNull(instance.findGeoIntersections(new Ray(new Point(0, -5, 0), new Vector(0, 1, 0))),
+                "Ray should miss the instance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Bounding box of the instance is the transformed box of the model
+        BoundingBox box = instance.getBoundingBox();
+        assertEquals(8, box.minX, 1e-9, "Wrong bounding box");
+        assertEquals(14, box.maxX, 1e-9, "Wrong bounding box");
+        assertEquals(-2, box.minY, 1e-9, "Wrong bounding box");
+        assertEquals(2, box.maxZ, 1e-9, "Wrong bounding box");
+
+        // TC12: A tiny uniform scaling is invertible, and its instance is hit
+        Instance tiny = new Instance(new Sphere(1, Point.ZERO), Transform.scaling(0.0001));
+        List<GeoPoint> hits = tiny.findGeoIntersections(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0)));
+        assertEquals(2, hits.size(), "The tiny instance should be hit twice");
+        assertEquals(0.0001, hits.stream().mapToDouble(gp -> gp.point.getX()).max().orElseThrow(), 1e-12,
+                "Wrong intersection of the tiny instance");
+
+        // TC13: A singular transformation is rejected
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 1, 0), "Singular scaling");
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(0), "Zero scaling");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    void testIntersectPacket() {
+        Instance instance = new Instance(new BVH(new Sphere(1, Point.ZERO),
+                new Triangle(new Point(-1, -2, -1), new Point(1, -2, -1), new Point(0, -2, 1))), transform);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Packet distances are world space distances of the nearest hits
+        List<Ray> rays = List.of(
+                new Ray(new Point(0, 0.5, 0), new Vector(1, 0, 0)),
+                new Ray(new Point(20, 0, 1), new Vector(-1, 0, 0)),
+                new Ray(new Point(10, 10, 0), new Vector(0, -1, 0)),
+                new Ray(new Point(0, 10, 0), new Vector(1, 0, 0)));
+        RayPacket packet = new RayPacket();
+        packet.load(rays, 0);
+        instance.intersectPacket(packet);
+        assertEquals(10 - Math.sqrt(3.75), packet.t[0], 1e-9, "Wrong distance to the sphere");
+        assertEquals(6, packet.t[1], 1e-9, "Wrong distance to the triangle");
+        assertEquals(8, packet.t[2], 1e-9, "Wrong distance to the sphere top");
+        assertNull(packet.hits[3], "Ray should miss the instance");
+        assertTrue(packet.hits[0].point.distance(new Point(10 - Math.sqrt(3.75), 0.5, 0)) < 1e-9,
+                "Wrong hit point");
+    }
+}
@@ -1,6 +1,7 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.BoundingBox;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -80,5 +81,32 @@ void testPlane() {
         assertEquals(new Point(0, 1, 1), result5.getFirst(), "Ray intersects the plane at (0,0,1)");
     }
 
+    /**
+     * Test method for {@link geometries.Plane#clip(primitives.Vector, double, double)}.
+     */
+    @Test
+    void testClip() {
+        Plane plane = new Plane(new Point(0, 0, 1), new Vector(0, 0, 1));
 
-}
\ No newline at end of file
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Clipped floor - bounded, intersected only inside the rectangle
+        Polygon floor = plane.clip(new Vector(1, 0, 0.5), 4, 2);
+        BoundingBox box = floor.getBoundingBox();
+        assertEquals(-2, box.minX, 1e-12, "Wrong width");
+        assertEquals(1, box.maxY, 1e-12, "Wrong height");
+        assertEquals(1, box.minZ, 1e-12, "The rectangle should lie in the plane");
+        assertEquals(1, floor.findIntersections(new Ray(new Point(1.5, 0.5, 0), new Vector(0, 0, 1))).size(),
+                "Ray inside the rectangle");
+        assertNull(floor.findIntersections(new Ray(new Point(1.5, 1.5, 0), new Vector(0, 0, 1))),
+                "Ray outside the rectangle");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Side direction orthogonal to the plane
+        assertThrows(IllegalArgumentException.class, () -> plane.clip(new Vector(0, 0, 1), 4, 2),
+                "Side direction cannot be orthogonal to the plane");
+
+        // TC12: Zero size
+        assertThrows(IllegalArgumentException.class, () -> plane.clip(new Vector(1, 0, 0), 0, 2),
+                "Size must be positive");
+    }
+}
@@ -4,7 +4,9 @@ package geometries;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -122,4 +124,68 @@ public class PolygonTests {
                 new Vector(-1,0,0))),"the point is on the edge's continuation...");
     }
 
+    /**
+     * Creates a regular polygon around a center
+     *
+     * @param center the center of the polygon
+     * @param normal the normal of the polygon
+     * @param size   the amount of the vertices
+     * @return the polygon
+     */
+    private static Polygon regular(Point center, Vector normal, int size) {
+        Vector u = normal.crossProduct(new Vector(0, 0, 1)).normalize();
+        Vector w = normal.normalize().crossProduct(u);
+        Point[] vertices = new Point[size];
+        for (int i = 0; i < size; ++i) {
+            double angle = 2 * Math.PI * i / size;
+            vertices[i] = center.add(u.scaleUnchecked(3 * Math.cos(angle))).add(w.scaleUnchecked(3 * Math.sin(angle)));
+        }
+        return new Polygon(vertices);
+    }
+
+    /**
+     * Test method for {@link geometries.Polygon#triangulate()}.
+     */
+    @Test
+    public void testTriangulate() {
+        Random random = new Random(44);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Polygons facing every dominant axis - the same intersections as their fans of triangles
+        for (Vector normal : List.of(new Vector(-1, 0.3, 0.2), new Vector(0.2, -1, 0.3), new Vector(0.3, 0.2, 1))) {
+            Polygon polygon = regular(new Point(1, 2, 3), normal, 20);
+            TriangleMesh mesh = polygon.triangulate();
+            assertEquals(18, mesh.getFaceCount(), "Wrong amount of triangles");
+            for (int r = 0; r < 300; ++r) {
+                Ray ray = new Ray(new Point(random.nextDouble(-5, 5), random.nextDouble(-5, 5), random.nextDouble(-5, 5)),
+                        new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+                assertEquals(mesh.findIntersections(ray), polygon.findIntersections(ray), "Wrong intersections");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Polygon#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    public void testIntersectPacket() {
+        Random random = new Random(45);
+        Polygon polygon = regular(new Point(0, 0, -5), new Vector(0.2, 0.1, 1), 7);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Packets of random rays - the same hits as the single rays
+        List<Ray> rays = new ArrayList<>();
+        for (int r = 0; r < 200; ++r)
+            rays.add(new Ray(Point.ZERO, new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1)));
+        RayPacket packet = new RayPacket();
+        for (int first = 0; first < rays.size(); first += RayPacket.WIDTH) {
+            packet.load(rays, first);
+            polygon.intersectPacket(packet);
+            for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+                List<Point> intersections = polygon.findIntersections(rays.get(first + lane));
+                if (intersections == null)
+                    assertNull(packet.hits[lane], "There should be no hit");
+                else
+                    assertEquals(intersections.getFirst(), packet.hits[lane].point, "Wrong hit");
+            }
+        }
+    }
 }
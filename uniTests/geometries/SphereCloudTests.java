@@ -0,0 +1,149 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.SphereCloud class
+ */
+class SphereCloudTests {
+
+    /**
+     * Test method for {@link geometries.SphereCloud#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Random random = new Random(31);
+        Material red = new Material().setKd(0.5);
+        Material blue = new Material().setKs(0.5);
+        SphereCloud cloud = new SphereCloud();
+        Geometries spheres = new Geometries();
+        for (int s = 0; s < 300; ++s) {
+            Point center = new Point(random.nextDouble(-50, 50), random.nextDouble(-50, 50), random.nextDouble(-50, 50));
+            double radius = random.nextDouble(0.5, 6);
+            cloud.add(center, radius, s % 2 == 0 ? red : blue);
+            spheres.add(new Sphere(radius, center));
+        }
+        assertEquals(300, cloud.size(), "Wrong cloud size");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays from outside and inside the cloud - the same intersections as separate spheres
+        for (int r = 0; r < 500; ++r) {
+            Point head = new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80));
+            Ray ray = new Ray(head, new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expected = spheres.findGeoIntersections(ray);
+            List<GeoPoint> result = cloud.findGeoIntersections(ray);
+            if (expected == null) {
+                assertNull(result, "There should be no intersections");
+                continue;
+            }
+            assertNotNull(result, "There should be intersections");
+            assertEquals(expected.size(), result.size(), "Wrong number of intersections");
+            Comparator<GeoPoint> order = Comparator.comparingDouble(gp -> gp.point.distanceSquared(head));
+            expected.sort(order);
+            result.sort(order);
+            for (int i = 0; i < result.size(); ++i) {
+                GeoPoint gp = result.get(i);
+                assertTrue(expected.get(i).point.distance(gp.point) < 1e-9, "Wrong intersection point");
+                Vector normal = expected.get(i).geometry.getNormal(gp.point);
+                assertTrue(normal.dotProduct(gp.geometry.getNormal(gp.point)) > 1 - 1e-9, "Wrong normal");
+                int index = ((SphereCloud.Member) gp.geometry).getIndex();
+                assertEquals(MaterialTable.SHARED.intern(index % 2 == 0 ? red : blue), gp.geometry.getMaterialIndex(),
+                        "Wrong material");
+            }
+        }
+
+        // TC02: Ray along an axis through the grid cells borders
+        Ray axis = new Ray(new Point(-100, 0, 0), new Vector(1, 0, 0));
+        List<GeoPoint> expected = spheres.findGeoIntersections(axis);
+        List<GeoPoint> result = cloud.findGeoIntersections(axis);
+        assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                "Wrong number of intersections along an axis");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty cloud
+        assertNull(new SphereCloud().findGeoIntersections(axis), "Empty cloud has no intersections");
+
+        // TC12: Single sphere - the same as a sphere
+        SphereCloud single = new SphereCloud().add(new Point(1, 0, 0), 1, red);
+        assertEquals(2, single.findGeoIntersections(new Ray(new Point(-1, 0, 0), new Vector(3, 1, 0))).size(),
+                "Ray crosses the single sphere");
+        assertEquals(1, single.findGeoIntersections(new Ray(new Point(0.5, 0, 0), new Vector(1, 0, 2))).size(),
+                "Ray starts inside the single sphere");
+        assertNull(single.findGeoIntersections(new Ray(new Point(3, 0, 0), new Vector(1, 0, 0))),
+                "Ray starts after the single sphere");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereCloud#findGeoIntersections(primitives.Ray)} in single precision.
+     */
+    @Test
+    void testSinglePrecision() {
+        Random random = new Random(43);
+        Material material = new Material();
+        SphereCloud cloud = new SphereCloud(Precision.SINGLE);
+        SphereCloud doubles = new SphereCloud();
+        List<Sphere> spheres = new ArrayList<>();
+        for (int s = 0; s < 300; ++s) {
+            Point center = new Point(random.nextDouble(-50, 50), random.nextDouble(-50, 50), random.nextDouble(-50, 50));
+            double radius = random.nextDouble(0.5, 6);
+            cloud.add(center, radius, material);
+            doubles.add(center, radius, material);
+            spheres.add(new Sphere(radius, center));
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays - the same hits and misses as in double precision, lying on the spheres
+        int hits = 0;
+        for (int r = 0; r < 500; ++r) {
+            Point head = new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80));
+            Ray ray = new Ray(head, new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expected = doubles.findGeoIntersections(ray);
+            List<GeoPoint> result = cloud.findGeoIntersections(ray);
+            if (spheres.stream().anyMatch(sphere -> isGrazing(sphere, ray))) continue; // may differ in float
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "The precisions should agree on the intersections");
+            if (expected == null) continue;
+            ++hits;
+            Comparator<GeoPoint> order = Comparator.comparingDouble(gp -> gp.point.distanceSquared(head));
+            expected.sort(order);
+            result.sort(order);
+            assertTrue(expected.getFirst().point.distance(result.getFirst().point) < 1e-3, "Wrong intersection point");
+            for (GeoPoint gp : result) {
+                // the refined point lies on the sphere stored in single precision
+                SphereCloud.Member member = (SphereCloud.Member) gp.geometry;
+                List<GeoPoint> exact = member.findGeoIntersections(new Ray(head, gp.point.subtract(head)));
+                assertNotNull(exact, "The point is not on the sphere");
+                assertTrue(exact.stream().anyMatch(e -> e.point.distance(gp.point) < 1e-9),
+                        "The point is not on the sphere");
+            }
+        }
+        assertTrue(hits > 50, "Too few rays hit the cloud: " + hits);
+        assertEquals(Precision.SINGLE, cloud.getPrecision(), "Wrong precision");
+    }
+
+    /**
+     * Checks whether a ray grazes a sphere or starts on its surface - the discriminant of the
+     * intersection, or the distance of the head from the surface, is within the rounding of
+     * single precision, so the precisions may disagree on the intersections
+     *
+     * @param sphere the sphere
+     * @param ray    the ray
+     * @return true if the ray grazes the sphere
+     */
+    private static boolean isGrazing(Sphere sphere, Ray ray) {
+        Vector u = sphere.getCenter().subtract(ray.getP0());
+        double tm = ray.getDirection().dotProduct(u);
+        double r2 = sphere.getRadius() * sphere.getRadius();
+        double discriminant = r2 - (u.lengthSquared() - tm * tm);
+        return Math.abs(discriminant) < 1e-3 * r2 || Math.abs(u.lengthSquared() - r2) < 1e-3 * r2;
+    }
+}
@@ -3,6 +3,7 @@ package geometries;
 import org.junit.jupiter.api.Test;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import primitives.Vector;
 
 import java.util.Comparator;
@@ -123,4 +124,67 @@ class SphereTests {
         assertNull(sphere.findIntersections(new Ray(new Point(1, 2, 0), new Vector(0, 0, 1))),
                 "Ray's direction is out of sphere");
     }
+
+    /**
+     * Test method for {@link geometries.Sphere#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    public void testIntersectPacket() {
+        Sphere sphere = new Sphere(1d, new Point(1, 0, 0));
+        RayPacket packet = new RayPacket();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rays crossing, missing, starting inside and starting after the sphere
+        packet.load(List.of(new Ray(new Point(-1, 0, 0), new Vector(3, 1, 0)),
+                new Ray(new Point(-1, 0, 0), new Vector(1, 1, 0)),
+                new Ray(new Point(0.5, 0, 0), new Vector(1, 0, 2)),
+                new Ray(new Point(3, 0, 0), new Vector(3, 0, -1))), 0);
+        sphere.intersectPacket(packet);
+        assertEquals(new Point(0.0651530771650466, 0.355051025721682, 0), packet.hits[0].point,
+                "Ray crosses sphere - nearest point");
+        assertNull(packet.hits[1], "Ray's line is out of sphere");
+        assertEquals(new Point(1, 0, 1), packet.hits[2].point, "Ray starts inside the sphere");
+        assertNull(packet.hits[3], "Ray starts after the sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Partial packet - a single ray from the center, nothing recorded for the unused lanes
+        packet.load(List.of(new Ray(new Point(1, 0, 0), new Vector(0, 0, 1))), 0);
+        sphere.intersectPacket(packet);
+        assertEquals(1, packet.size(), "Wrong packet size");
+        assertEquals(new Point(1, 0, 1), packet.hits[0].point, "Ray starts at the center");
+        for (int lane = 1; lane < RayPacket.WIDTH; lane++)
+            assertNull(packet.hits[lane], "Unused lane must not be hit");
+
+        // TC12: Ray tangent to the sphere
+        packet.load(List.of(new Ray(new Point(0, 0, 1), new Vector(1, 0, 0))), 0);
+        sphere.intersectPacket(packet);
+        assertNull(packet.hits[0], "Tangent ray should not intersect");
+    }
+
+    /**
+     * Test method for {@link geometries.Sphere#nearestIntersection(primitives.Ray, double, double)}.
+     */
+    @Test
+    void testNearestIntersection() {
+        Sphere sphere = new Sphere(1d, new Point(1, 0, 0));
+        Ray ray = new Ray(new Point(1, 0, 3), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Both intersections in the range - the nearer one
+        assertEquals(2, sphere.nearestIntersection(ray, 0, Double.POSITIVE_INFINITY), 1e-12, "Wrong nearest distance");
+        // TC02: Only the farther intersection in the range
+        assertEquals(4, sphere.nearestIntersection(ray, 3, Double.POSITIVE_INFINITY), 1e-12, "Wrong nearest distance");
+        // TC03: No intersection in the range
+        assertTrue(Double.isNaN(sphere.nearestIntersection(ray, 0, 1.5)), "The sphere is beyond the range");
+        // TC04: Ray's line is outside the sphere
+        assertTrue(Double.isNaN(sphere.nearestIntersection(new Ray(new Point(3, 0, 3), new Vector(0, 0, -1)),
+                0, Double.POSITIVE_INFINITY)), "Ray's line is outside the sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray's line is tangent to the sphere
+        assertTrue(Double.isNaN(sphere.nearestIntersection(new Ray(new Point(2, 0, 3), new Vector(0, 0, -1)),
+                0, Double.POSITIVE_INFINITY)), "Ray's line is tangent to the sphere");
+        // TC12: The nearer intersection at the minimal distance - the farther one
+        assertEquals(4, sphere.nearestIntersection(ray, 2, Double.POSITIVE_INFINITY), 1e-12, "Wrong nearest distance");
+    }
 }
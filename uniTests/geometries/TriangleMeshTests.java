@@ -0,0 +1,135 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.TriangleMesh class
+ */
+class TriangleMeshTests {
+
+    /**
+     * Creates a height field of random triangles - a mesh and the same triangles as separate geometries
+     *
+     * @param random    the random generator
+     * @param precision the precision of the mesh
+     * @param triangles the separate triangles, filled by the method
+     * @return the mesh
+     */
+    private static TriangleMesh heightField(Random random, Precision precision, List<Intersectable> triangles) {
+        TriangleMesh mesh = new TriangleMesh(precision);
+        int n = 20;
+        Point[][] points = new Point[n][n];
+        int[][] indices = new int[n][n];
+        for (int i = 0; i < n; ++i)
+            for (int j = 0; j < n; ++j) {
+                Point p = new Point(i * 5 - 50, j * 5 - 50, random.nextDouble(-3, 3));
+                indices[i][j] = mesh.addVertex(p);
+                points[i][j] = mesh.getVertex(indices[i][j]);
+            }
+        for (int i = 0; i < n - 1; ++i)
+            for (int j = 0; j < n - 1; ++j) {
+                mesh.addFace(indices[i][j], indices[i + 1][j], indices[i + 1][j + 1]);
+                mesh.addFace(indices[i][j], indices[i + 1][j + 1], indices[i][j + 1]);
+                triangles.add(new Triangle(points[i][j], points[i + 1][j], points[i + 1][j + 1]));
+                triangles.add(new Triangle(points[i][j], points[i + 1][j + 1], points[i][j + 1]));
+            }
+        return mesh;
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Random random = new Random(43);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays in both precisions - the same intersections as separate triangles
+        for (Precision precision : Precision.values()) {
+            List<Intersectable> triangles = new ArrayList<>();
+            TriangleMesh mesh = heightField(random, precision, triangles);
+            assertEquals(400, mesh.getVertexCount(), "Wrong amount of vertices");
+            assertEquals(722, mesh.getFaceCount(), "Wrong amount of faces");
+            Geometries flat = new Geometries(triangles.toArray(new Intersectable[0]));
+            for (int r = 0; r < 300; ++r) {
+                Point head = new Point(random.nextDouble(-60, 60), random.nextDouble(-60, 60), random.nextDouble(5, 20));
+                Ray ray = new Ray(head, new Vector(random.nextGaussian(), random.nextGaussian(), -1));
+                List<GeoPoint> expected = flat.findGeoIntersections(ray);
+                List<GeoPoint> result = mesh.findGeoIntersections(ray);
+                assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                        "Wrong number of intersections");
+                if (expected == null) continue;
+                GeoPoint nearest = ray.findClosestGeoPoint(expected);
+                GeoPoint gp = ray.findClosestGeoPoint(result);
+                assertTrue(nearest.point.distance(gp.point) < 1e-9, "Wrong intersection point");
+                Vector normal = nearest.geometry.getNormal(gp.point);
+                assertEquals(1, Math.abs(normal.dotProduct(gp.geometry.getNormal(gp.point))), 1e-6, "Wrong normal");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        TriangleMesh square = new TriangleMesh();
+        int a = square.addVertex(new Point(0, 0, 0)), b = square.addVertex(new Point(1, 0, 0));
+        int c = square.addVertex(new Point(1, 1, 0)), d = square.addVertex(new Point(0, 1, 0));
+        square.addFace(a, b, c).addFace(a, c, d);
+        // TC11: Ray through the shared edge of two faces - the edges belong to the faces
+        assertNotNull(square.findGeoIntersections(new Ray(new Point(0.5, 0.5, 1), new Vector(0, 0, -1))),
+                "Ray through a shared edge leaks through the mesh");
+        // TC12: Ray beside the mesh
+        assertNull(square.findGeoIntersections(new Ray(new Point(2, 0.5, 1), new Vector(0, 0, -1))),
+                "Ray beside the mesh");
+        // TC13: Empty mesh
+        assertNull(new TriangleMesh().findGeoIntersections(new Ray(Point.ZERO, new Vector(0, 0, 1))),
+                "Empty mesh has no intersections");
+        // TC14: Invalid faces
+        assertThrows(IllegalArgumentException.class, () -> square.addFace(a, b, 4), "Face of a missing vertex");
+        int e = square.addVertex(new Point(2, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> square.addFace(a, b, e), "Face of vertices on a line");
+        // TC15: A small face is valid and is hit in both precisions
+        for (Precision precision : Precision.values()) {
+            TriangleMesh small = new TriangleMesh(precision);
+            small.addFace(small.addVertex(new Point(0, 0, 0)), small.addVertex(new Point(1e-7, 0, 0)),
+                    small.addVertex(new Point(0, 1e-7, 0)));
+            List<GeoPoint> hits = small.findGeoIntersections(new Ray(new Point(2e-8, 2e-8, 1), new Vector(0, 0, -1)));
+            assertNotNull(hits, "A small face should be hit in " + precision + " precision");
+            assertEquals(0, hits.get(0).point.getZ(), 1e-12, "Wrong intersection of a small face");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    void testIntersectPacket() {
+        Random random = new Random(44);
+        TriangleMesh mesh = heightField(random, Precision.SINGLE, new ArrayList<>());
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Packets of random rays - the nearest of the single ray intersections
+        List<Ray> rays = new ArrayList<>();
+        for (int r = 0; r < 200; ++r)
+            rays.add(new Ray(new Point(0, 0, 50), new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1)));
+        RayPacket packet = new RayPacket();
+        for (int first = 0; first < rays.size(); first += RayPacket.WIDTH) {
+            packet.load(rays, first);
+            mesh.intersectPacket(packet);
+            for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+                Ray ray = rays.get(first + lane);
+                List<GeoPoint> intersections = mesh.findGeoIntersections(ray);
+                if (intersections == null)
+                    assertNull(packet.hits[lane], "There should be no hit");
+                else
+                    assertEquals(ray.findClosestGeoPoint(intersections).point.distance(ray.getP0()), packet.t[lane],
+                            1e-9, "Wrong nearest distance");
+            }
+        }
+    }
+}
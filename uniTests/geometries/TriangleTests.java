@@ -3,6 +3,7 @@ package geometries;
 import org.junit.jupiter.api.Test;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import primitives.Vector;
 
 import java.util.List;
@@ -61,4 +62,33 @@ class TriangleTests {
                 new Vector(-1,4,0))),"the point is on the edge's continuation...");
     }
 
-}
\ No newline at end of file
+    /**
+     * Test method for {@link geometries.Triangle#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    public void testIntersectPacket() {
+        Triangle triangle = new Triangle(new Point(0, 0, 2), new Point(0, 1, 0), new Point(0, -1, 0));
+        RayPacket packet = new RayPacket();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rays inside, outside against edge and outside against vertex, and a ray on the edge
+        packet.load(List.of(new Ray(new Point(1, 0, 0), new Vector(-1, 0, 1)),
+                new Ray(new Point(1, 0, 0), new Vector(-1, 0, -1)),
+                new Ray(new Point(1, 0, 0), new Vector(-1, 0, 4)),
+                new Ray(new Point(1, 0, 0), new Vector(-1, 0.5, 0))), 0);
+        triangle.intersectPacket(packet);
+        assertEquals(new Point(0, 0, 1), packet.hits[0].point, "Ray crosses the triangle");
+        assertNull(packet.hits[1], "The point is outside against edge");
+        assertNull(packet.hits[2], "The point is outside against vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: intersection on edge
+        assertNull(packet.hits[3], "The point is on the edge");
+
+        // TC12: A nearer hit that was already recorded is kept
+        packet.load(List.of(new Ray(new Point(1, 0, 0), new Vector(-1, 0, 1))), 0);
+        new Sphere(0.1, new Point(0.5, 0, 0.5)).intersectPacket(packet);
+        triangle.intersectPacket(packet);
+        assertInstanceOf(Sphere.class, packet.hits[0].geometry, "Nearer hit should be kept");
+    }
+}
@@ -81,5 +81,23 @@ class TubeTests {
         assertEquals(1, result7.size(), "BT3: Ray originating on the tube and pointing inward should intersect once");
     }
 
+    /**
+     * Test method for {@link geometries.Tube#clip(double)}.
+     */
+    @Test
+    void testClip() {
+        Tube tube = new Tube(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)));
 
-}
\ No newline at end of file
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Clipped tube - a bounded cylinder from the axis head
+        Cylinder cylinder = tube.clip(3);
+        assertNull(tube.getBoundingBox(), "Tube is unbounded");
+        assertEquals(3, cylinder.getBoundingBox().maxZ, 1e-12, "Wrong cylinder height");
+        assertNull(cylinder.findIntersections(new Ray(new Point(-2, 0, 5), new Vector(1, 0, 0))),
+                "Ray crosses the tube above the cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Zero height
+        assertThrows(IllegalArgumentException.class, () -> tube.clip(0), "Height must be positive");
+    }
+}
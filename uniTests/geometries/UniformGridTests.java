@@ -0,0 +1,127 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.UniformGrid class
+ */
+class UniformGridTests {
+
+    /**
+     * Test method for {@link geometries.UniformGrid#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Random random = new Random(38);
+        List<Intersectable> geometries = BVHTests.randomGeometries(random, 2000);
+        Geometries flat = new Geometries(geometries.toArray(new Intersectable[0]));
+        UniformGrid grid = new UniformGrid(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays from outside and inside the grid - the same intersections as the flat collection
+        for (int r = 0; r < 300; ++r) {
+            Ray ray = new Ray(new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80)),
+                    new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expected = flat.findGeoIntersections(ray);
+            List<GeoPoint> result = grid.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+            if (expected != null)
+                assertTrue(result.containsAll(expected), "Wrong intersections");
+        }
+
+        // TC02: Grid big enough to be built in parallel - the same intersections as the flat collection
+        List<Intersectable> many = BVHTests.randomGeometries(random, 10_000);
+        Geometries manyFlat = new Geometries(many.toArray(new Intersectable[0]));
+        UniformGrid manyGrid = new UniformGrid(many);
+        for (int r = 0; r < 50; ++r) {
+            Ray ray = new Ray(new Point(random.nextDouble(-80, 80), random.nextDouble(-80, 80), random.nextDouble(-80, 80)),
+                    new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            List<GeoPoint> expected = manyFlat.findGeoIntersections(ray);
+            List<GeoPoint> result = manyGrid.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty grid
+        assertNull(new UniformGrid().findGeoIntersections(new Ray(Point.ZERO, new Vector(1, 0, 0))),
+                "Empty grid has no intersections");
+
+        // TC12: Ray along an axis through the cells borders
+        Ray axis = new Ray(new Point(-100, 0, 0), new Vector(1, 0, 0));
+        List<GeoPoint> expected = flat.findGeoIntersections(axis);
+        List<GeoPoint> result = grid.findGeoIntersections(axis);
+        assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                "Wrong number of intersections along an axis");
+
+        // TC13: Flat content - a single layer of cells
+        List<Intersectable> flatContent = new ArrayList<>();
+        for (int i = 0; i < 10; ++i)
+            flatContent.add(new Triangle(new Point(i, 0, 0), new Point(i + 1, 0, 0), new Point(i, 1, 0)));
+        assertEquals(1, new UniformGrid(flatContent)
+                        .findGeoIntersections(new Ray(new Point(5.2, 0.2, 1), new Vector(0, 0, -1))).size(),
+                "Wrong number of intersections with flat content");
+
+        // TC14: Unbounded geometry
+        assertThrows(IllegalArgumentException.class,
+                () -> new UniformGrid(new Plane(Point.ZERO, new Vector(0, 0, 1))), "Plane cannot be in a grid");
+    }
+
+    /**
+     * Test method for {@link geometries.UniformGrid#intersectPacket(primitives.RayPacket)}.
+     */
+    @Test
+    void testIntersectPacket() {
+        Random random = new Random(39);
+        List<Intersectable> geometries = BVHTests.randomGeometries(random, 2000);
+        BVH bvh = new BVH(geometries);
+        UniformGrid grid = new UniformGrid(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Packets of random rays - the same nearest hits as the hierarchy
+        List<Ray> rays = new ArrayList<>();
+        for (int r = 0; r < 200; ++r)
+            rays.add(new Ray(new Point(0, 0, 100), new Vector(random.nextDouble(-0.5, 0.5),
+                    random.nextDouble(-0.5, 0.5), -1)));
+        RayPacket expected = new RayPacket();
+        RayPacket result = new RayPacket();
+        for (int first = 0; first < rays.size(); first += RayPacket.WIDTH) {
+            expected.load(rays, first);
+            result.load(rays, first);
+            bvh.intersectPacket(expected);
+            grid.intersectPacket(result);
+            for (int lane = 0; lane < RayPacket.WIDTH; ++lane) {
+                assertEquals(expected.t[lane], result.t[lane], 1e-9, "Wrong nearest distance");
+                assertEquals(expected.hits[lane] == null ? null : expected.hits[lane].geometry,
+                        result.hits[lane] == null ? null : result.hits[lane].geometry, "Wrong nearest geometry");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.UniformGrid#update()}.
+     */
+    @Test
+    void testUpdate() {
+        Random random = new Random(40);
+        List<Instance> instances = BVHTests.randomInstances(random, 300);
+        Geometries flat = new Geometries(instances.toArray(new Intersectable[0]));
+        Geometries collection = new Geometries(instances.toArray(new Intersectable[0]))
+                .buildAcceleration(Acceleration.GRID);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Moved instances - the rebuilt grid has the same intersections as the flat collection
+        BVHTests.move(random, instances, 70);
+        collection.update();
+        BVHTests.assertSameIntersections(random, flat, collection);
+    }
+}
@@ -0,0 +1,96 @@
+package lighting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for lighting.LightTree class
+ */
+class LightTreeTests {
+    /**
+     * Amount of stratified random numbers the tree is sampled with
+     */
+    private static final int STRATA = 100000;
+
+    /**
+     * Test method for {@link lighting.LightTree#sample(Point, double)}.
+     */
+    @Test
+    void testSample() {
+        List<LightSource> lights = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+            lights.add(new PointLight(new Color(100 + i, 50, 20), new Point(i * 10, (i % 7) * 10, 0))
+                    .setKl(0.01).setKq(0.001));
+        lights.add(new SpotLight(new Color(300, 300, 300), new Point(20, 20, 50), new Vector(0, 0, -1)).setKq(0.001));
+        DirectionalLight sun = new DirectionalLight(new Color(10, 10, 10), new Vector(0, 0, -1));
+        lights.add(sun);
+        LightTree tree = new LightTree(lights);
+        Point point = new Point(100, 30, 10);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The lights without a position are global
+        assertEquals(51, tree.size(), "Wrong amount of sampled lights");
+        assertEquals(List.of(sun), tree.getGlobalLights(), "Wrong global lights");
+
+        // TC02: The probabilities of all the lights sum to one, and the frequencies match them
+        Map<LightSource, Double> probabilities = new IdentityHashMap<>();
+        Map<LightSource, Integer> counts = new IdentityHashMap<>();
+        double estimate = 0;
+        for (int j = 0; j < STRATA; j++) {
+            LightTree.Sample sample = tree.sample(point, (j + 0.5) / STRATA);
+            assertNotNull(sample, "Every light can light the point");
+            probabilities.put(sample.light(), sample.probability());
+            counts.merge(sample.light(), 1, Integer::sum);
+            estimate += brightness(sample.light(), point) / sample.probability() / STRATA;
+        }
+        assertEquals(51, probabilities.size(), "Every light should be sampled");
+        assertEquals(1, probabilities.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9,
+                "The probabilities should sum to one");
+        for (var entry : probabilities.entrySet())
+            assertEquals(entry.getValue(), counts.get(entry.getKey()) / (double) STRATA, 1e-4,
+                    "Wrong probability of a light");
+
+        // TC03: The weighted samples estimate the light of all the lights
+        double exact = 0;
+        for (LightSource light : lights)
+            if (light != sun) exact += brightness(light, point);
+        assertEquals(exact, estimate, exact * 0.01, "Wrong estimate of the light");
+
+        // TC04: A nearer light is sampled more often than an equal far light
+        LightTree pair = new LightTree(List.of(
+                new PointLight(new Color(100, 100, 100), new Point(1, 0, 0)).setKq(1),
+                new PointLight(new Color(100, 100, 100), new Point(100, 0, 0)).setKq(1)));
+        assertTrue(pair.sample(Point.ZERO, 0.5).light().getL(Point.ZERO).getX() < 0, "The near light should be likelier");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: No point lights
+        LightTree empty = new LightTree(List.of(sun));
+        assertEquals(0, empty.size(), "There should be no sampled lights");
+        assertNull(empty.sample(point, 0.5), "There should be no sample");
+
+        // TC12: A single point light is always sampled
+        PointLight single = new PointLight(new Color(100, 100, 100), Point.ZERO);
+        LightTree.Sample sample = new LightTree(List.of(single)).sample(point, 0.99);
+        assertSame(single, sample.light(), "Wrong single light");
+        assertEquals(1, sample.probability(), 1e-12, "Wrong probability of a single light");
+    }
+
+    /**
+     * Calculates the brightness of a light at a point
+     *
+     * @param light the light
+     * @param point the point
+     * @return the brightness
+     */
+    private static double brightness(LightSource light, Point point) {
+        return light.getIntensity(point).brightness();
+    }
+}
@@ -0,0 +1,37 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColorTests {
+
+    private static final double DELTA = 0.0000001;
+
+    /**
+     * Test method for {@link primitives.Color.Accumulator}.
+     */
+    @Test
+    void testAccumulator() {
+        Color c1 = new Color(10, 20, 30);
+        Color c2 = new Color(1, 2, 3);
+        Double3 k = new Double3(0.5, 0.25, 2);
+        Double3 kD = new Double3(0.2, 0.4, 0.6);
+        Double3 kS = new Double3(0.1, 0.3, 0.5);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same sum as the immutable color operations
+        Color expected = c1.add(c2.scale(k)).add(c1.scale(k).scale(kD.scale(0.7).add(kS.scale(0.3))));
+        Color result = new Color.Accumulator().add(c1).add(c2, k).add(c1, k, kD, 0.7, kS, 0.3).toColor();
+        assertTrue(expected.isSimilar(result, DELTA), "Wrong sum");
+        // TC02: Average of the summed colors
+        assertTrue(c1.add(c2).reduce(2).isSimilar(new Color.Accumulator().add(c1).add(c2).average(2), DELTA),
+                "Wrong average");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A reset accumulator is black
+        Color.Accumulator accumulator = new Color.Accumulator().add(c1);
+        assertTrue(Color.BLACK.isSimilar(accumulator.reset().toColor(), DELTA), "Reset accumulator is not black");
+        // TC12: Average of no colors
+        assertThrows(IllegalArgumentException.class, () -> accumulator.average(0), "Average of no colors");
+    }
+}
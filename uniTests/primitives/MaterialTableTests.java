@@ -0,0 +1,73 @@
+package primitives;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.Sphere;
+
+/**
+ * Unit tests for primitives.MaterialTable class
+ */
+class MaterialTableTests {
+
+    /**
+     * Test method for {@link primitives.MaterialTable#intern(Material)}.
+     */
+    @Test
+    void testIntern() {
+        MaterialTable table = new MaterialTable();
+        Material red = new Material().setKd(0.5).setKs(0.25).setShininess(30);
+        int index = table.intern(red);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: An equal material is interned once
+        assertEquals(index, table.intern(new Material().setKd(0.5).setKs(0.25).setShininess(30)),
+                "Equal materials should have the same index");
+        assertEquals(new Double3(0.25), table.get(index).kS, "Wrong interned values");
+        assertNotSame(red, table.get(index), "The table should keep a snapshot of the material");
+        assertSame(table.get(index), table.get(index), "The snapshot should be shared");
+
+        // TC02: A different material gets a new index
+        int other = table.intern(new Material().setKd(0.5).setKs(0.25).setShininess(31));
+        assertNotEquals(index, other, "Different materials should have different indices");
+        assertEquals(2, table.size(), "Wrong amount of materials");
+
+        // TC03: Changing an interned material does not change the table
+        red.setKs(0.7);
+        assertEquals(new Double3(0.25), table.get(index).kS, "The interned values should not change");
+        assertEquals(index, table.intern(new Material().setKd(0.5).setKs(0.25).setShininess(30)),
+                "The interned values should still be found");
+        assertNotEquals(index, table.intern(red), "The changed material has new values");
+
+        // TC04: Geometries with equal materials share the interned material
+        Material glass = new Material().setKr(0.3).setKt(0.2);
+        Sphere first = (Sphere) new Sphere(1d, Point.ZERO).setMaterial(glass);
+        Sphere second = (Sphere) new Sphere(2d, Point.ZERO).setMaterial(new Material().setKr(0.3).setKt(0.2));
+        assertEquals(first.getMaterialIndex(), second.getMaterialIndex(), "Equal materials should have one index");
+        assertSame(first.getMaterial(), second.getMaterial(), "Equal materials should be shared");
+        glass.setKt(0.9);
+        assertEquals(new Double3(0.2), first.getMaterial().kT, "Changing the material should not change the geometry");
+
+        // TC05: The shared materials cannot be changed
+        Sphere plain = new Sphere(1d, Point.ZERO);
+        assertSame(plain.getMaterial(), new Sphere(2d, Point.ZERO).getMaterial(), "The default material should be shared");
+        assertThrows(UnsupportedOperationException.class, () -> plain.getMaterial().setKt(0.9),
+                "The default material cannot be changed");
+        assertThrows(UnsupportedOperationException.class, () -> first.getMaterial().setKd(0.9),
+                "An interned material cannot be changed");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Many materials beyond the initial capacity
+        for (int i = 0; i < 100; i++)
+            assertEquals(table.intern(new Material().setShininess(1000 + i)),
+                    table.intern(new Material().setShininess(1000 + i)), "Wrong index after growing");
+        assertEquals(103, table.size(), "Wrong amount of materials after growing");
+
+        // TC12: Null material and unknown index
+        assertThrows(IllegalArgumentException.class, () -> table.intern(null), "Cannot intern null");
+        assertThrows(IllegalArgumentException.class, () -> new Sphere(1d, Point.ZERO).setMaterial(null),
+                "A geometry cannot have a null material");
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(103), "No material at the index");
+    }
+}
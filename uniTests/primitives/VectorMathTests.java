@@ -0,0 +1,61 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorMathTests {
+
+    private static final double DELTA = 0.0000001;
+
+    /**
+     * Test method for {@link primitives.VectorMath#dot(double, double, double, double, double, double)}.
+     */
+    @Test
+    void testDot() {
+        Vector v1 = new Vector(1, 2, 3);
+        Vector v2 = new Vector(-2, 4, 1.5);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same as the dot product of the vectors
+        assertEquals(v1.dotProduct(v2), VectorMath.dot(1, 2, 3, -2, 4, 1.5), DELTA, "Wrong dot product");
+        assertEquals(v1.dotProduct(v2), VectorMath.dot(v1, v2), DELTA, "Wrong dot product");
+        assertEquals(v1.dotProduct(v2), VectorMath.dot(v1, -2, 4, 1.5), DELTA, "Wrong dot product");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Orthogonal vectors
+        assertEquals(0, VectorMath.dot(1, 0, 0, 0, 5, 0), DELTA, "Orthogonal vectors have a zero dot product");
+    }
+
+    /**
+     * Test method for {@link primitives.VectorMath#cross(double, double, double, double, double, double, double[], int)}.
+     */
+    @Test
+    void testCross() {
+        Vector v1 = new Vector(1, 2, 3);
+        Vector v2 = new Vector(-2, 4, 1.5);
+        double[] out = new double[4];
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same as the cross product of the vectors, at the given offset
+        VectorMath.cross(1, 2, 3, -2, 4, 1.5, out, 1);
+        assertEquals(v1.crossProduct(v2), new Vector(out[1], out[2], out[3]), "Wrong cross product");
+        assertEquals(v1.crossProduct(v2).dotProduct(new Vector(1, 1, 1)),
+                VectorMath.triple(1, 1, 1, 1, 2, 3, -2, 4, 1.5), DELTA, "Wrong triple product");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Parallel vectors - a zero result without an exception
+        VectorMath.cross(1, 2, 3, -2, -4, -6, out, 0);
+        assertEquals(0, VectorMath.lengthSquared(out[0], out[1], out[2]), DELTA, "Parallel vectors");
+    }
+
+    /**
+     * Test method for {@link primitives.VectorMath#normalize(double, double, double, double[], int)}.
+     */
+    @Test
+    void testNormalize() {
+        double[] out = new double[3];
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same as the normalized vector, returning the length
+        assertEquals(Math.sqrt(14), VectorMath.normalize(1, 2, 3, out, 0), DELTA, "Wrong length");
+        assertEquals(new Vector(1, 2, 3).normalize(), new Vector(out[0], out[1], out[2]), "Wrong normalized vector");
+    }
+}
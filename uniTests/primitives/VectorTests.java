@@ -148,6 +148,33 @@ class VectorTests {
         // TC13: Cross product of a vector with itself
         assertThrows(IllegalArgumentException.class, () -> v123.crossProduct(v123),
                 "Cross product of a vector with itself should throw an exception");
+        // TC14: Nearly parallel vectors - within the zero threshold of |a||b| - a*b - are parallel
+        assertThrows(IllegalArgumentException.class, () -> v03M2.crossProduct(new Vector(1, 1e-6, 0)),
+                "Cross product of nearly parallel vectors should throw an exception");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link primitives.Vector#scaleUnchecked(double)} and the other unchecked operations.
+     */
+    @Test
+    void testUnchecked() {
+        Vector v1 = new Vector(1, 2, 3);
+        Vector v2 = new Vector(-2, 4, 1.5);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same results as the checked operations
+        assertEquals(v1.scale(-2.5), v1.scaleUnchecked(-2.5), "scaleUnchecked() wrong result");
+        assertEquals(v1.normalize(), v1.normalizeUnchecked(), "normalizeUnchecked() wrong result");
+        assertEquals(v1.dotProduct(v2), v1.dotProductUnchecked(v2), DELTA, "dotProductUnchecked() wrong result");
+        assertEquals(v1.crossProduct(v2), v1.crossProductUnchecked(v2), "crossProductUnchecked() wrong result");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A zero scalar and parallel vectors give the zero vector without an exception
+        assertEquals(0, v1.scaleUnchecked(0).lengthSquared(), DELTA, "scaleUnchecked() by zero");
+        assertEquals(0, v1.crossProductUnchecked(v1.scale(-2)).lengthSquared(), DELTA,
+                "crossProductUnchecked() of parallel vectors");
+        // TC12: Nearly parallel vectors are not parallel for the checked cross product
+        assertDoesNotThrow(() -> v1.crossProduct(new Vector(1, 2, 3.001)),
+                "crossProduct() of nearly parallel vectors");
+    }
+}
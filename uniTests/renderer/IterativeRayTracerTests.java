@@ -0,0 +1,81 @@
+package renderer;
+
+import static java.awt.Color.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import scene.Scene;
+
+/**
+ * Unit tests for renderer.IterativeRayTracer class
+ */
+class IterativeRayTracerTests {
+    /**
+     * Scene of the tests - transparent sphere inside a transparent sphere on a mirror
+     */
+    private final Scene scene = new Scene("Test scene")
+            .setAmbientLight(new AmbientLight(new Color(WHITE), 0.1))
+            .setBackground(new Color(20, 30, 40));
+    /**
+     * Camera of the tests, used for constructing the rays only
+     */
+    private final Camera camera;
+
+    /**
+     * Prepares the scene and the camera of the tests
+     */
+    IterativeRayTracerTests() {
+        scene.geometries.add(
+                new Sphere(50d, new Point(0, 0, -50)).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setKt(0.3)),
+                new Sphere(25d, new Point(0, 0, -50)).setEmission(new Color(RED))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(100).setKr(0.2)),
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150))
+                        .setMaterial(new Material().setKr(0.8)));
+        scene.lights.add(new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2))
+                .setKl(0.0004).setKq(0.0000006));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        camera = Camera.getBuilder()
+                .setRayTracer(new IterativeRayTracer(scene))
+                .setImageWriter(new ImageWriter("Test", 1, 1))
+                .setLocation(new Point(0, 0, 1000)).setDirection(Vector.Z, Vector.Y)
+                .setVpDistance(1000).setVpSize(300, 300)
+                .build();
+    }
+
+    /**
+     * Test method for {@link IterativeRayTracer#traceRay(Ray)}.
+     */
+    @Test
+    void testTraceRay() {
+        SimpleRayTracer recursive = new SimpleRayTracer(scene);
+        IterativeRayTracer iterative = new IterativeRayTracer(scene);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Same colors as the recursive ray tracer all over the image
+        for (int i = 0; i < 20; i++)
+            for (int j = 0; j < 20; j++) {
+                Ray ray = camera.constructRay(20, 20, j, i);
+                Color expected = recursive.traceRay(ray);
+                Color actual = iterative.traceRay(ray);
+                assertTrue(expected.isSimilar(actual, 1e-6),
+                        "Wrong color at (" + j + "," + i + "): " + actual + " instead of " + expected);
+            }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Budget of a single ray - the local effects only
+        Ray ray = camera.constructRay(20, 20, 10, 10);
+        iterative.setRayBudget(1);
+        Color local = iterative.traceRay(ray);
+        iterative.setRayBudget(Integer.MAX_VALUE);
+        assertFalse(local.isSimilar(iterative.traceRay(ray), 1e-6),
+                "Single ray budget should not trace reflections and refractions");
+
+        // TC12: Illegal budget
+        assertThrows(IllegalArgumentException.class, () -> iterative.setRayBudget(0), "Budget must be positive");
+    }
+}
@@ -0,0 +1,245 @@
+package renderer;
+
+import static java.awt.Color.*;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import scene.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Rendering time benchmarks of the different rendering configurations.
+ * The images are rendered but not written - only the rendering time is reported.<br/>
+ * The benchmarks are a program rather than unit tests, so they do not slow down the unit tests:
+ * run {@link #main(String[])} with the names of the benchmarks to run, or without arguments
+ * to run all of them.
+ */
+public class RenderBenchmarks {
+    /**
+     * Resolution (in pixels) of the benchmark images
+     */
+    private static final int RESOLUTION = 200;
+
+    /**
+     * Builds the benchmark scene - a field of refractive and reflective bubbles in front
+     * of a mirror floor, lighted by a spot light and a directional light
+     *
+     * @return the benchmark scene
+     */
+    private static Scene bubbles() {
+        Scene scene = new Scene("Benchmark scene")
+                .setAmbientLight(new AmbientLight(new Color(WHITE), 0.1))
+                .setBackground(new Color(10, 20, 40));
+        Random random = new Random(5784);
+        for (int i = 0; i < 150; i++)
+            scene.geometries.add(new Sphere(2 + random.nextDouble() * 4,
+                    new Point(random.nextDouble() * 160 - 80, random.nextDouble() * 160 - 80, random.nextDouble() * -100))
+                    .setEmission(new Color(0, 20, 40))
+                    .setMaterial(new Material().setKd(0.1).setKs(0.3).setShininess(50).setKr(0.1).setKt(0.8)));
+        scene.geometries.add(new Polygon(new Point(-100, -100, -110), new Point(100, -100, -110),
+                new Point(100, 100, -110), new Point(-100, 100, -110))
+                .setEmission(new Color(20, 20, 50))
+                .setMaterial(new Material().setKd(0.3).setKs(0.3).setShininess(30).setKr(0.4)));
+        scene.lights.add(new SpotLight(new Color(800, 600, 400), new Point(50, 50, 100), new Vector(-1, -1, -4))
+                .setKl(4E-4).setKq(2E-5));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 150), new Vector(1, 1, -1)));
+        return scene;
+    }
+
+    /**
+     * Builds a particles scene - a box of small diffuse spheres of a few materials
+     *
+     * @param cloud whether the particles are kept in a single sphere cloud or as separate spheres
+     * @return the particles scene
+     */
+    private static Scene particles(boolean cloud) {
+        Scene scene = new Scene("Particles scene")
+                .setAmbientLight(new AmbientLight(new Color(WHITE), 0.1))
+                .setBackground(new Color(10, 20, 40));
+        Material[] materials = {
+                new Material().setKd(0.6).setKs(0.2).setShininess(20),
+                new Material().setKd(0.3).setKs(0.5).setShininess(80)
+        };
+        SphereCloud particles = new SphereCloud();
+        particles.setEmission(new Color(30, 10, 10));
+        Random random = new Random(5784);
+        for (int i = 0; i < 1000; i++) {
+            Point center = new Point(random.nextDouble() * 160 - 80, random.nextDouble() * 160 - 80,
+                    random.nextDouble() * -100);
+            double radius = 1 + random.nextDouble() * 2;
+            Material material = materials[i % materials.length];
+            if (cloud)
+                particles.add(center, radius, material);
+            else
+                scene.geometries.add(new Sphere(radius, center).setEmission(new Color(30, 10, 10)).setMaterial(material));
+        }
+        if (cloud) scene.geometries.add(particles);
+        scene.lights.add(new DirectionalLight(new Color(150, 150, 150), new Vector(1, 1, -1)));
+        return scene;
+    }
+
+    /**
+     * Builds an instances scene - a school of copies of a single fish model made of triangles
+     *
+     * @param acceleration the acceleration structure over the instances and over the model
+     * @return the instances scene
+     */
+    private static Scene school(Acceleration acceleration) {
+        Scene scene = new Scene("Instances scene")
+                .setAmbientLight(new AmbientLight(new Color(WHITE), 0.1))
+                .setBackground(new Color(10, 20, 40));
+        Random random = new Random(5784);
+        Geometries fish = new Geometries();
+        Material material = new Material().setKd(0.6).setKs(0.2).setShininess(20);
+        for (int i = 0; i < 60; i++) {
+            Point p = new Point(random.nextDouble() * 8 - 4, random.nextDouble() * 4 - 2, random.nextDouble() * 2 - 1);
+            fish.add(new Triangle(p, p.add(new Vector(1, random.nextDouble(), 0)), p.add(new Vector(0, 1, 0.5)))
+                    .setEmission(new Color(40, 30, 10)).setMaterial(material));
+        }
+        fish.buildAcceleration(acceleration);
+        for (int i = 0; i < 100; i++)
+            scene.geometries.add(new Instance(fish, Transform.rotation(new Vector(0, 1, 0), random.nextDouble() * 360)
+                    .then(Transform.translation(new Vector(random.nextDouble() * 160 - 80,
+                            random.nextDouble() * 160 - 80, random.nextDouble() * -100)))));
+        scene.geometries.buildAcceleration(acceleration);
+        scene.lights.add(new DirectionalLight(new Color(150, 150, 150), new Vector(1, 1, -1)));
+        return scene;
+    }
+
+    /**
+     * Camera builder of the benchmarks
+     *
+     * @param scene the scene to render
+     * @return the camera builder
+     */
+    private static Camera.Builder cameraBuilder(Scene scene) {
+        return cameraBuilder(new SimpleRayTracer(scene));
+    }
+
+    /**
+     * Camera builder of the benchmarks
+     *
+     * @param rayTracer the ray tracer to render with
+     * @return the camera builder
+     */
+    private static Camera.Builder cameraBuilder(RayTracerBase rayTracer) {
+        return Camera.getBuilder()
+                .setRayTracer(rayTracer)
+                .setLocation(new Point(0, 0, 300)).setDirection(Vector.Z, Vector.Y)
+                .setVpDistance(300).setVpSize(200, 200)
+                .setThreadsCount(Runtime.getRuntime().availableProcessors())
+                .setImageWriter(new ImageWriter("benchmark", RESOLUTION, RESOLUTION));
+    }
+
+    /**
+     * Renders the image of the camera and reports the rendering time
+     *
+     * @param name   the name of the configuration
+     * @param camera the camera to render with
+     */
+    private static void benchmark(String name, Camera camera) {
+        long start = System.nanoTime();
+        camera.renderImage();
+        System.out.printf("%-30s %8.1f ms - %s%n", name, (System.nanoTime() - start) / 1e6, camera.getStatistics());
+    }
+
+    /**
+     * Compares the tile hand out orders, with and without cost-aware scheduling
+     */
+    private static void tileOrders() {
+        Scene scene = bubbles();
+        // warm up the JIT before measuring
+        cameraBuilder(scene).build().renderImage();
+        benchmark("pixel by pixel", cameraBuilder(scene).build());
+        for (TileOrder order : TileOrder.values()) {
+            benchmark("tiles " + order, cameraBuilder(scene).setTileSize(16).setTileOrder(order).build());
+            benchmark("cost-aware tiles " + order, cameraBuilder(scene).setTileSize(16).setTileOrder(order)
+                    .setCostAwareScheduling(true).build());
+        }
+    }
+
+    /**
+     * Compares the ray tracer implementations
+     */
+    private static void rayTracers() {
+        Scene scene = bubbles();
+        cameraBuilder(scene).build().renderImage();
+        benchmark("recursive", cameraBuilder(new SimpleRayTracer(scene)).setTileSize(16).build());
+        benchmark("iterative", cameraBuilder(new IterativeRayTracer(scene)).setTileSize(16).build());
+        benchmark("wavefront", cameraBuilder(new WavefrontRayTracer(scene)).setTileSize(64).build());
+    }
+
+    /**
+     * Compares the particles as separate spheres with the particles as a sphere cloud
+     */
+    private static void particles() {
+        Scene spheres = particles(false);
+        Scene cloud = particles(true);
+        cameraBuilder(cloud).setTileSize(16).build().renderImage();
+        benchmark("separate spheres", cameraBuilder(spheres).setTileSize(16).build());
+        benchmark("sphere cloud", cameraBuilder(cloud).setTileSize(16).build());
+    }
+
+    /**
+     * Compares a flat list of instances with two-level acceleration structures over the instances
+     */
+    private static void instances() {
+        cameraBuilder(school(Acceleration.BVH)).setTileSize(16).build().renderImage();
+        for (Acceleration acceleration : Acceleration.values())
+            benchmark("instances " + acceleration, cameraBuilder(school(acceleration)).setTileSize(16).build());
+    }
+
+    /**
+     * Measures the parallel build of a hierarchy over many primitives
+     */
+    private static void bvhBuild() {
+        Random random = new Random(5784);
+        List<Intersectable> spheres = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++)
+            spheres.add(new Sphere(0.1 + random.nextDouble(), new Point(random.nextDouble() * 1000,
+                    random.nextDouble() * 1000, random.nextDouble() * 1000)));
+        new BVH(spheres);
+        BVH bvh = new BVH(spheres);
+        System.out.printf("%-30s %8.1f ms (%d nodes, %d threads)%n", "BVH build of 200000 spheres",
+                bvh.getBuildTime() / 1e6, bvh.getNodeCount(), ForkJoinPool.commonPool().getParallelism());
+
+        // the same hierarchy loaded from the cache by a later run
+        try {
+            Path directory = Files.createTempDirectory("bvh-cache");
+            BVHCache cache = new BVHCache(directory);
+            cache.get(spheres);
+            BVH cached = cache.get(spheres);
+            System.out.printf("%-30s %8.1f ms (%d nodes)%n", "BVH load of 200000 spheres",
+                    cached.getBuildTime() / 1e6, cached.getNodeCount());
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot use a temporary cache directory", e);
+        }
+    }
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param args names of the benchmarks to run (tileOrders, rayTracers, particles, instances,
+     *             bvhBuild), all of them if none are given
+     */
+    public static void main(String[] args) {
+        List<String> names = List.of(args);
+        if (names.isEmpty() || names.contains("tileOrders")) tileOrders();
+        if (names.isEmpty() || names.contains("rayTracers")) rayTracers();
+        if (names.isEmpty() || names.contains("particles")) particles();
+        if (names.isEmpty() || names.contains("instances")) instances();
+        if (names.isEmpty() || names.contains("bvhBuild")) bvhBuild();
+    }
+}
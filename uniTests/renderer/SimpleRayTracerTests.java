@@ -0,0 +1,177 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import scene.Scene;
+
+import java.util.List;
+
+/**
+ * Unit tests for renderer.SimpleRayTracer class
+ */
+class SimpleRayTracerTests {
+    /**
+     * Amount of the traces of a ray whose average is compared
+     */
+    private static final int TRACES = 4000;
+
+    /**
+     * Scene of the tests - a diffuse floor under a grid of point lights and a directional light
+     */
+    private final Scene scene = new Scene("Test scene").setBackground(new Color(20, 30, 40));
+
+    /**
+     * Prepares the scene of the tests
+     */
+    SimpleRayTracerTests() {
+        scene.geometries.add(new Polygon(new Point(-200, -200, 0), new Point(200, -200, 0),
+                new Point(200, 200, 0), new Point(-200, 200, 0))
+                .setMaterial(new Material().setKd(0.6).setKs(0.2).setShininess(20)));
+        for (int i = 0; i < 5; i++)
+            for (int j = 0; j < 5; j++)
+                scene.lights.add(new PointLight(new Color(100 + 20 * i, 80, 40 + 10 * j),
+                        new Point(i * 80 - 160, j * 80 - 160, 60)).setKl(0.001).setKq(0.0001));
+        scene.lights.add(new DirectionalLight(new Color(30, 30, 30), new Vector(1, 1, -2)));
+    }
+
+    /**
+     * Calculates the average color of many traces of a ray
+     *
+     * @param tracer the ray tracer
+     * @param ray    the ray
+     * @return the average color
+     */
+    private static Color average(RayTracerBase tracer, Ray ray) {
+        Color.Accumulator sum = new Color.Accumulator();
+        for (int i = 0; i < TRACES; i++)
+            sum.add(tracer.traceRay(ray));
+        return sum.average(TRACES);
+    }
+
+    /**
+     * Test method for {@link SimpleRayTracer#setLightSamples(int)}.
+     */
+    @Test
+    void testSetLightSamples() {
+        Ray ray = new Ray(new Point(30, -20, 500), new Vector(0, 0, -1));
+        Color exact = new SimpleRayTracer(scene).traceRay(ray);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The average of the sampled lights converges to all the lights
+        Color sampled = average(new SimpleRayTracer(scene).setLightSamples(3), ray);
+        assertTrue(exact.isSimilar(sampled, 8), "Wrong sampled color: " + sampled + " instead of " + exact);
+
+        // TC02: The same for the wavefront ray tracer
+        Color wavefront = average(new WavefrontRayTracer(scene).setLightSamples(3), ray);
+        assertTrue(exact.isSimilar(wavefront, 8), "Wrong sampled color: " + wavefront + " instead of " + exact);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: As many samples as point lights shade all the lights
+        assertTrue(exact.isSimilar(new SimpleRayTracer(scene).setLightSamples(25).traceRay(ray), 1e-9),
+                "All the lights should be shaded");
+
+        // TC12: Negative amount of samples
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(scene).setLightSamples(-1),
+                "Negative amount of samples");
+
+        // TC13: Lights added after the first rendering are sampled
+        Scene grown = new Scene("Grown scene").setBackground(scene.background);
+        grown.geometries.add(scene.geometries);
+        grown.lights.addAll(scene.lights);
+        SimpleRayTracer tracer = new SimpleRayTracer(grown).setLightSamples(3);
+        tracer.traceRay(ray);
+        grown.lights.add(new PointLight(new Color(400, 300, 200), new Point(30, -20, 40)).setKl(0.001));
+        Color added = new SimpleRayTracer(grown).traceRay(ray);
+        Color resampled = average(tracer, ray);
+        assertTrue(added.isSimilar(resampled, 8), "Wrong sampled color: " + resampled + " instead of " + added);
+    }
+
+    /**
+     * Test method for {@link SimpleRayTracer#calcLocalEffects(Intersectable.GeoPoint, Ray, Double3, Color.Accumulator)}.
+     */
+    @Test
+    void testLightCulling() {
+        // counts the scene queries - the primary ray and the shadow rays
+        int[] queries = {0};
+        Intersectable counter = new Intersectable() {
+            @Override
+            protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+                ++queries[0];
+                return null;
+            }
+        };
+        Geometry floor = new Polygon(new Point(-200, -200, 0), new Point(200, -200, 0),
+                new Point(200, 200, 0), new Point(-200, 200, 0))
+                .setMaterial(new Material().setKd(0.6).setKs(0.2).setShininess(20));
+        Scene lighted = new Scene("Lighted scene");
+        lighted.geometries.add(floor);
+        lighted.lights.add(new PointLight(new Color(200, 100, 50), new Point(30, 30, 100)).setKl(0.001));
+        Scene culled = new Scene("Culled scene");
+        culled.geometries.add(floor, counter);
+        culled.lights.add(new PointLight(new Color(200, 100, 50), new Point(30, 30, 100)).setKl(0.001));
+        Ray ray = new Ray(new Point(0, 0, 500), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A spotlight facing away from the point is culled
+        culled.lights.add(new SpotLight(new Color(500, 500, 500), new Point(0, 0, 50), new Vector(0, 0, 1)));
+        // TC02: A point light out of its radius of influence is culled
+        culled.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, 50)).setInfluenceRadius(100));
+        // TC03: A distant point light whose attenuated light is negligible is culled
+        culled.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 0, 5000)).setKq(1));
+        Color expected = new SimpleRayTracer(lighted).traceRay(ray);
+        assertTrue(expected.isSimilar(new SimpleRayTracer(culled).traceRay(ray), 1e-9), "Wrong color");
+        assertEquals(2, queries[0], "Only the primary ray and a single shadow ray should be cast");
+        queries[0] = 0;
+        assertTrue(expected.isSimilar(new WavefrontRayTracer(culled).traceRay(ray), 1e-9), "Wrong wavefront color");
+        assertEquals(2, queries[0], "Only the primary ray and a single shadow ray should be cast by the wavefront");
+
+        // TC04: A light whose unshadowed light is negligible for the attenuation of the ray is culled
+        assertTrue(SimpleRayTracer.isNegligible(new Color(500, 500, 500), new Double3(0.5), new Double3(1e-6)),
+                "The light is negligible for the attenuation of the ray");
+        assertFalse(SimpleRayTracer.isNegligible(new Color(500, 500, 500), new Double3(0.5), new Double3(0.001)),
+                "The light is not negligible");
+
+        // TC05: A very bright light is not culled for a small attenuation of the ray
+        assertFalse(SimpleRayTracer.isNegligible(new Color(1e6, 1e6, 1e6), new Double3(0.5), new Double3(1e-4)),
+                "A bright light is not negligible");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A point on the radius of influence is lighted
+        assertEquals(100, new PointLight(new Color(1, 1, 1), Point.ZERO).setInfluenceRadius(100)
+                .getInfluenceRadius(), "Wrong radius of influence");
+        assertTrue(SimpleRayTracer.isInfluenced(new Point(100, 0, 0),
+                new PointLight(new Color(1, 1, 1), Point.ZERO).setInfluenceRadius(100)), "The point is influenced");
+
+        // TC12: Zero intensity is negligible
+        assertTrue(SimpleRayTracer.isNegligible(Color.BLACK, Double3.ONE, Double3.ONE), "No light is negligible");
+
+        // TC13: Non-positive radius of influence
+        assertThrows(IllegalArgumentException.class,
+                () -> new PointLight(new Color(1, 1, 1), Point.ZERO).setInfluenceRadius(0), "Zero radius");
+    }
+
+    /**
+     * Test method for {@link RayTracerBase#getRayCount()}.
+     */
+    @Test
+    void testGetRayCount() {
+        SimpleRayTracer tracer = new SimpleRayTracer(scene);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A primary ray on the floor and a shadow ray for each light in front of the floor
+        long start = tracer.getRayCount();
+        tracer.traceRay(new Ray(new Point(30, -20, 500), new Vector(0, 0, -1)));
+        assertEquals(27, tracer.getRayCount() - start, "Wrong amount of rays");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A ray that misses the scene is a single ray
+        start = tracer.getRayCount();
+        tracer.traceRay(new Ray(new Point(30, -20, 500), new Vector(0, 0, 1)));
+        assertEquals(1, tracer.getRayCount() - start, "A missing ray should be counted once");
+    }
+}
@@ -0,0 +1,112 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.TileScheduler class
+ */
+class TileSchedulerTests {
+
+    /**
+     * Counts how many times each pixel is covered by the handed out tiles
+     *
+     * @param scheduler the scheduler to drain
+     * @param nX        number of pixel columns
+     * @param nY        number of pixel rows
+     * @return coverage count per pixel
+     */
+    private int[][] drain(TileScheduler scheduler, int nX, int nY) {
+        int[][] covered = new int[nY][nX];
+        TileScheduler.Tile tile;
+        while ((tile = scheduler.nextTile()) != null)
+            for (int row = tile.row(); row < tile.row() + tile.height(); row++)
+                for (int col = tile.col(); col < tile.col() + tile.width(); col++)
+                    covered[row][col]++;
+        return covered;
+    }
+
+    /**
+     * Test method for {@link TileScheduler#nextTile()}.
+     */
+    @Test
+    void testNextTile() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Image size is not a multiple of the tile size - every pixel is covered once
+        for (int[] row : drain(new TileScheduler(37, 50, 16), 50, 37))
+            for (int count : row)
+                assertEquals(1, count, "Each pixel must be rendered exactly once");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Tile bigger than the image - a single tile
+        TileScheduler scheduler = new TileScheduler(5, 7, 16);
+        assertEquals(new TileScheduler.Tile(0, 0, 7, 5), scheduler.nextTile(), "Wrong single tile");
+        assertNull(scheduler.nextTile(), "There should be no more tiles");
+    }
+
+    /**
+     * Test method for {@link TileScheduler#prioritize(double[])}.
+     */
+    @Test
+    void testPrioritize() {
+        TileScheduler scheduler = new TileScheduler(32, 48, 16);
+        List<TileScheduler.Tile> tiles = scheduler.getTiles();
+        assertEquals(6, tiles.size(), "Wrong number of tiles");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: One very expensive tile is split into quarters that are handed out first,
+        // cheap tiles are handed out longest-first afterward
+        scheduler.prioritize(new double[]{1, 2, 100, 3, 1, 1});
+        List<TileScheduler.Tile> ordered = scheduler.getTiles();
+        assertEquals(9, ordered.size(), "Expensive tile should be split into 4");
+        for (int t = 0; t < 4; t++) {
+            assertEquals(8, ordered.get(t).width(), "Split tile has wrong width");
+            assertEquals(8, ordered.get(t).height(), "Split tile has wrong height");
+            assertTrue(ordered.get(t).col() >= 32, "Split tile is not a part of the expensive tile");
+        }
+        assertEquals(tiles.get(3), ordered.get(4), "Tiles should be handed out longest-first");
+        assertEquals(tiles.get(1), ordered.get(5), "Tiles should be handed out longest-first");
+
+        // TC02: All the pixels are still rendered exactly once
+        for (int[] row : drain(scheduler, 48, 32))
+            for (int count : row)
+                assertEquals(1, count, "Each pixel must be rendered exactly once");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Wrong amount of cost estimates
+        assertThrows(IllegalArgumentException.class, () -> scheduler.prioritize(new double[]{1}),
+                "Cost estimates must match the tiles");
+    }
+
+    /**
+     * Test method for {@link TileScheduler#TileScheduler(int, int, int, TileOrder)}.
+     */
+    @Test
+    void testTileOrder() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Morton order visits the 2x2 blocks of tiles one after another
+        List<TileScheduler.Tile> morton = new TileScheduler(4, 4, 1, TileOrder.MORTON).getTiles();
+        assertEquals(List.of(new TileScheduler.Tile(0, 0, 1, 1), new TileScheduler.Tile(1, 0, 1, 1),
+                        new TileScheduler.Tile(0, 1, 1, 1), new TileScheduler.Tile(1, 1, 1, 1)),
+                morton.subList(0, 4), "Wrong Morton order");
+
+        // TC02: Every two consecutive tiles along the Hilbert curve are adjacent
+        List<TileScheduler.Tile> hilbert = new TileScheduler(8, 8, 1, TileOrder.HILBERT).getTiles();
+        for (int t = 1; t < hilbert.size(); t++) {
+            TileScheduler.Tile a = hilbert.get(t - 1);
+            TileScheduler.Tile b = hilbert.get(t);
+            assertEquals(1, Math.abs(a.col() - b.col()) + Math.abs(a.row() - b.row()),
+                    "Consecutive Hilbert tiles must be adjacent");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Non-square image which is not a multiple of the tile size is covered exactly once
+        for (TileOrder order : TileOrder.values())
+            for (int[] row : drain(new TileScheduler(21, 53, 8, order), 53, 21))
+                for (int count : row)
+                    assertEquals(1, count, "Each pixel must be rendered exactly once - " + order);
+    }
+}
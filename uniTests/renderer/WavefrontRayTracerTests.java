@@ -0,0 +1,83 @@
+package renderer;
+
+import static java.awt.Color.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for renderer.WavefrontRayTracer class
+ */
+class WavefrontRayTracerTests {
+    /**
+     * Scene of the tests - transparent sphere inside a transparent sphere on a mirror
+     */
+    private final Scene scene = new Scene("Test scene")
+            .setAmbientLight(new AmbientLight(new Color(WHITE), 0.1))
+            .setBackground(new Color(20, 30, 40));
+    /**
+     * Camera of the tests, used for constructing the rays only
+     */
+    private final Camera camera;
+
+    /**
+     * Prepares the scene and the camera of the tests
+     */
+    WavefrontRayTracerTests() {
+        scene.geometries.add(
+                new Sphere(50d, new Point(0, 0, -50)).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setKt(0.3)),
+                new Sphere(25d, new Point(0, 0, -50)).setEmission(new Color(RED))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(100).setKr(0.2)),
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150))
+                        .setMaterial(new Material().setKr(0.8)));
+        scene.lights.add(new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2))
+                .setKl(0.0004).setKq(0.0000006));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        camera = Camera.getBuilder()
+                .setRayTracer(new WavefrontRayTracer(scene))
+                .setImageWriter(new ImageWriter("Test", 1, 1))
+                .setLocation(new Point(0, 0, 1000)).setDirection(Vector.Z, Vector.Y)
+                .setVpDistance(1000).setVpSize(300, 300)
+                .build();
+    }
+
+    /**
+     * Test method for {@link WavefrontRayTracer#traceRayBatch(List)}.
+     */
+    @Test
+    void testTraceRayBatch() {
+        SimpleRayTracer recursive = new SimpleRayTracer(scene);
+        WavefrontRayTracer wavefront = new WavefrontRayTracer(scene);
+        List<Ray> rays = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            for (int j = 0; j < 20; j++)
+                rays.add(camera.constructRay(20, 20, j, i));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Same colors as the recursive ray tracer all over the image
+        Color[] colors = wavefront.traceRayBatch(rays);
+        assertEquals(rays.size(), colors.length, "Wrong amount of colors");
+        for (int r = 0; r < rays.size(); r++) {
+            Color expected = recursive.traceRay(rays.get(r));
+            assertTrue(expected.isSimilar(colors[r], 1e-6),
+                    "Wrong color of ray " + r + ": " + colors[r] + " instead of " + expected);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Single ray
+        assertTrue(recursive.traceRay(rays.get(210)).isSimilar(wavefront.traceRay(rays.get(210)), 1e-6),
+                "Wrong color of a single ray");
+
+        // TC12: Empty batch
+        assertEquals(0, wavefront.traceRayBatch(List.of()).length, "Empty batch should have no colors");
+    }
+}
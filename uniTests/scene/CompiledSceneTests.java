@@ -0,0 +1,115 @@
+package scene;
+
+import static java.awt.Color.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import renderer.SimpleRayTracer;
+
+import java.util.MissingResourceException;
+
+/**
+ * Unit tests for scene.CompiledScene class
+ */
+class CompiledSceneTests {
+    /**
+     * Builds the scene of the tests - nested geometries of all the grouped types, with equal
+     * materials, and lights of all the grouped types
+     *
+     * @return the scene
+     */
+    private static Scene scene() {
+        Scene scene = new Scene("Test scene")
+                .setAmbientLight(new AmbientLight(new Color(WHITE), 0.1))
+                .setBackground(new Color(20, 30, 40));
+        scene.geometries.add(
+                new Sphere(50d, new Point(0, 0, -50)).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setKt(0.3)),
+                new Geometries(
+                        new Sphere(25d, new Point(0, 0, -50)).setEmission(new Color(RED))
+                                .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setKt(0.3)),
+                        new Geometries(
+                                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
+                                        new Point(75, 75, -150))
+                                        .setMaterial(new Material().setKr(0.8)))),
+                new Polygon(new Point(-150, -150, -200), new Point(150, -150, -200),
+                        new Point(150, 150, -200), new Point(-150, 150, -200))
+                        .setMaterial(new Material().setKd(0.5)),
+                new Plane(new Point(0, 0, -300), Vector.Z).setMaterial(new Material().setKr(0.8)),
+                new Cylinder(10, new Ray(new Point(0, 0, -100), Vector.Y), 20));
+        scene.lights.add(new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2))
+                .setKl(0.0004).setKq(0.0000006));
+        scene.lights.add(new PointLight(new Color(500, 300, 0), new Point(100, 100, 300)).setKl(0.0004));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        return scene;
+    }
+
+    /**
+     * Test method for {@link Scene#compile()}.
+     */
+    @Test
+    void testCompile() {
+        Scene scene = scene();
+        CompiledScene compiled = scene.compile();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The nested geometries are flattened
+        assertEquals(6, compiled.size(), "Wrong amount of geometries");
+        assertSame(scene, compiled.getScene(), "Wrong scene");
+
+        // TC02: The lights are ordered by type
+        assertEquals(3, compiled.getLights().size(), "Wrong amount of lights");
+        assertInstanceOf(DirectionalLight.class, compiled.getLights().get(0), "Directional lights come first");
+        assertEquals(PointLight.class, compiled.getLights().get(1).getClass(), "Point lights come second");
+        assertInstanceOf(SpotLight.class, compiled.getLights().get(2), "Spotlights come third");
+
+        // TC03: The equal materials are shared (two spheres, triangle and plane, polygon, cylinder)
+        assertEquals(4, compiled.getMaterials().size(), "Wrong amount of distinct materials");
+
+        // TC04: The same intersections as the scene
+        Ray ray = new Ray(new Point(0, 0, 1000), new Vector(0.01, 0.02, -1));
+        assertEquals(scene.geometries.findGeoIntersections(ray).size(),
+                compiled.findGeoIntersections(ray).size(), "Wrong amount of intersections");
+        assertEquals(ray.findClosestGeoPoint(scene.geometries.findGeoIntersections(ray)),
+                ray.findClosestGeoPoint(compiled.findGeoIntersections(ray)), "Wrong closest intersection");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: An unbounded geometry makes the compiled scene unbounded
+        assertNull(compiled.getBoundingBox(), "A plane is unbounded");
+
+        // TC12: Missing parts of the scene
+        assertThrows(MissingResourceException.class, () -> scene().setBackground(null).compile(),
+                "Missing background");
+        assertThrows(MissingResourceException.class, () -> scene().setAmbientLight(null).compile(),
+                "Missing ambient light");
+        assertThrows(MissingResourceException.class, () -> scene().setLights(null).compile(),
+                "Missing lights");
+        assertThrows(MissingResourceException.class, () -> scene().setGeometries(null).compile(),
+                "Missing geometries");
+    }
+
+    /**
+     * Test method for {@link SimpleRayTracer#SimpleRayTracer(CompiledScene)}.
+     */
+    @Test
+    void testRender() {
+        SimpleRayTracer live = new SimpleRayTracer(scene());
+        SimpleRayTracer compiled = new SimpleRayTracer(scene().compile());
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Same colors as the scene all over the image
+        Point eye = new Point(0, 0, 1000);
+        for (int i = -10; i <= 10; i++)
+            for (int j = -10; j <= 10; j++) {
+                Ray ray = new Ray(eye, new Vector(j * 15, i * 15, -1000));
+                Color expected = live.traceRay(ray);
+                Color actual = compiled.traceRay(ray);
+                assertTrue(expected.isSimilar(actual, 1e-6),
+                        "Wrong color at (" + i + "," + j + "): " + actual + " instead of " + expected);
+            }
+    }
+}